@@ -1,3 +1,5 @@
+const PRODUCT_PAGE_SIZE = 500;
+
 class ProductExpirationMonitor {
     constructor() {
         this.products = [];
@@ -5,15 +7,17 @@ class ProductExpirationMonitor {
         this.currentFilter = 'all';
         this.editingProductId = null;
         this.alertHistory = [];
+        this.feedConnected = false;
+        this.loadingProducts = false;
+        this.pendingChanges = [];
         
         this.init();
     }
 
     init() {
         this.bindEvents();
-        this.loadProducts();
         this.updateStatus();
-        this.loadAlertHistory();
+        this.connectChangeFeed();
         
         // Set minimum date to today for expiration date input
         const today = new Date().toISOString().split('T')[0];
@@ -93,26 +97,129 @@ class ProductExpirationMonitor {
     async loadProducts() {
         try {
             this.showLoading(true);
-            const response = await fetch('/api/products');
-            const data = await response.json();
+            this.loadingProducts = true;
+            const [products] = await Promise.all([this.fetchAllProducts(), this.updateSummaryCards()]);
+            this.products = products;
+            this.loadingProducts = false;
             
-            if (data && data.success) {
-                this.products = data.data;
-                this.filterProducts();
-                this.updateSummaryCards();
-                this.updateStatus('Connected', true);
-            } else {
-                throw new Error(data.error || 'Failed to load products');
-            }
+            // Changes pushed while the list was loading are applied on top of it
+            const pending = this.pendingChanges;
+            this.pendingChanges = [];
+            this.applyProductChanges(pending);
+            this.filterProducts();
+            this.updateStatus('Connected', true);
         } catch (error) {
             console.error('Error loading products:', error);
             this.showToast('Failed to load products', 'error');
             this.updateStatus('Connection Error', false);
         } finally {
+            this.loadingProducts = false;
             this.showLoading(false);
         }
     }
 
+    connectChangeFeed() {
+        if (!window.EventSource) {
+            this.startPolling();
+            return;
+        }
+        
+        // Every (re)connect starts with "ready": load a fresh snapshot, then apply deltas
+        const source = new EventSource('/api/changes');
+        source.addEventListener('ready', () => {
+            this.feedConnected = true;
+            this.loadProducts();
+            this.loadAlertHistory();
+        });
+        source.addEventListener('resync', () => {
+            this.loadProducts();
+            this.loadAlertHistory();
+        });
+        source.addEventListener('products', (e) => {
+            const changes = JSON.parse(e.data);
+            if (this.loadingProducts) {
+                this.pendingChanges.push(...changes);
+                return;
+            }
+            this.applyProductChanges(changes);
+            this.filterProducts();
+            this.updateSummaryCards();
+        });
+        source.addEventListener('alert', (e) => {
+            const alert = JSON.parse(e.data);
+            this.alertHistory = [alert, ...this.alertHistory].slice(0, 5);
+            this.showToast(alert.message, 'info');
+        });
+        source.onerror = () => {
+            this.feedConnected = false;
+            if (source.readyState === EventSource.CLOSED) {
+                // Refused (e.g. connection limit reached); fall back to polling
+                this.startPolling();
+                return;
+            }
+            // EventSource reconnects by itself and gets a new "ready" event
+            this.updateStatus('Reconnecting...', false);
+        };
+    }
+
+    startPolling() {
+        this.loadProducts();
+        this.loadAlertHistory();
+        setInterval(() => {
+            this.loadProducts();
+            this.loadAlertHistory();
+        }, 30000);
+    }
+
+    applyProductChanges(changes) {
+        if (changes.length === 0) return;
+        
+        const positions = new Map(this.products.map((product, index) => [product.id, index]));
+        const deleted = new Set();
+        for (const change of changes) {
+            const index = positions.get(change.productId);
+            if (change.changeType === 'DELETED') {
+                deleted.add(change.productId);
+            } else if (index !== undefined) {
+                this.products[index] = change.product;
+                deleted.delete(change.productId);
+            } else {
+                positions.set(change.productId, this.products.push(change.product) - 1);
+                deleted.delete(change.productId);
+            }
+        }
+        
+        // Keep the listing's expiration order
+        this.products = this.products
+                .filter(product => !deleted.has(product.id))
+                .sort((a, b) => a.expirationDate.localeCompare(b.expirationDate) || a.id - b.id);
+    }
+
+    async fetchAllProducts() {
+        // Follow the keyset cursor page by page instead of pulling the whole table at once
+        const products = [];
+        let cursor = null;
+        
+        do {
+            const params = new URLSearchParams({ limit: PRODUCT_PAGE_SIZE });
+            if (cursor) {
+                params.set('cursor', cursor);
+            }
+            
+            const response = await fetch(`/api/products?${params}`);
+            const data = await response.json();
+            
+            if (!data || !data.success) {
+                throw new Error((data && data.error) || 'Failed to load products');
+            }
+            
+            products.push(...data.data);
+            cursor = data.nextCursor;
+        } while (cursor);
+        
+        return products;
+    }
+
     filterProducts() {
         const searchTerm = document.getElementById('searchInput').value.toLowerCase();
         
@@ -192,17 +299,26 @@ class ProductExpirationMonitor {
         }).join('');
     }
 
-    updateSummaryCards() {
-        const tomorrow = this.products.filter(p => this.getDaysUntilExpiration(p.expirationDate) === 1).length;
-        const week = this.products.filter(p => {
-            const days = this.getDaysUntilExpiration(p.expirationDate);
-            return days >= 0 && days <= 7;
-        }).length;
-        const total = this.products.length;
-
-        document.getElementById('tomorrowCount').textContent = tomorrow;
-        document.getElementById('weekCount').textContent = week;
-        document.getElementById('totalCount').textContent = total;
+    async updateSummaryCards() {
+        // Counted by the database, so the cards do not depend on the loaded product list
+        try {
+            const response = await fetch('/api/products/summary');
+            const data = await response.json();
+            
+            if (!data || !data.success) {
+                throw new Error((data && data.error) || 'Failed to load summary');
+            }
+            
+            const byStatus = data.data.byStatus;
+            const week = byStatus.EXPIRES_TODAY.products + byStatus.EXPIRES_TOMORROW.products +
+                         byStatus.EXPIRES_THIS_WEEK.products;
+
+            document.getElementById('tomorrowCount').textContent = byStatus.EXPIRES_TOMORROW.products;
+            document.getElementById('weekCount').textContent = week;
+            document.getElementById('totalCount').textContent = data.data.total.products;
+        } catch (error) {
+            console.error('Error loading summary:', error);
+        }
     }
 
     async loadAlertHistory() {
@@ -406,7 +522,7 @@ class ProductExpirationMonitor {
                     'success'
                 );
                 this.closeProductModal();
-                this.loadProducts();
+                this.refreshAfterChange();
             } else {
                 throw new Error(data.error || 'Failed to save product');
             }
@@ -416,6 +532,13 @@ class ProductExpirationMonitor {
         }
     }
 
+    refreshAfterChange() {
+        // With the change feed open, the change arrives as a delta
+        if (!this.feedConnected) {
+            this.loadProducts();
+        }
+    }
+
     editProduct(id) {
         const product = this.products.find(p => p.id === id);
         if (product) {
@@ -447,7 +570,7 @@ class ProductExpirationMonitor {
             if (data.success) {
                 this.showToast('Product deleted successfully', 'success');
                 this.closeDeleteModal();
-                this.loadProducts();
+                this.refreshAfterChange();
             } else {
                 throw new Error(data.error || 'Failed to delete product');
             }
@@ -535,9 +658,3 @@ class ProductExpirationMonitor {
 
 // Initialize the application
 const monitor = new ProductExpirationMonitor();
-
-// Auto-refresh data every 30 seconds
-setInterval(() => {
-    monitor.loadProducts();
-    monitor.loadAlertHistory();
-}, 30000);
\ No newline at end of file
@@ -0,0 +1,117 @@
+package com.expiration.benchmark;
+
+import com.expiration.dto.AlertHistoryQuery;
+import com.expiration.dto.ExpirationAlertDTO;
+import com.expiration.service.AlertHistoryStore;
+import com.expiration.service.AlertService;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The alert history under contention: 4 scheduler threads appending alerts while 8 HTTP threads
+ * read the latest alerts and 4 compute the statistics, as {@code /api/alerts/history} and
+ * {@code /api/alerts/stats} do, against a log seeded with 10k alerts in the last hour.
+ * Each method is also run alone, uncontended, for comparison.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Group)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlertHistoryContentionBenchmark {
+
+    private static final int SEEDED_ALERTS = 10_000;
+    private static final List<String> TYPES = List.of("TOMORROW", "SEVEN_DAYS", "EXPIRED");
+
+    private AlertHistoryStore alertHistory;
+    private Path historyDir;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Without fsync, and capped so long runs do not fill the disk
+        historyDir = Files.createTempDirectory("alert-history-contention-bench");
+        alertHistory = new AlertHistoryStore(new CompositeMeterRegistry(), historyDir.toString(),
+                                             DataSize.ofMegabytes(64), DataSize.ofKilobytes(4), Duration.ofDays(30),
+                                             DataSize.ofMegabytes(512), false);
+        for (int i = 0; i < SEEDED_ALERTS; i++) {
+            alertHistory.append(alert(i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        alertHistory.close();
+        FileSystemUtils.deleteRecursively(historyDir);
+    }
+
+    private static ExpirationAlertDTO alert(int i) {
+        LocalDate expires = LocalDate.now().plusDays(1 + i % 7);
+        List<ExpirationAlertDTO.ProductAlertInfo> products = List.of(
+                new ExpirationAlertDTO.ProductAlertInfo((long) i, "Organic Milk", "Dairy", expires, 3,
+                                                        BigDecimal.valueOf(449, 2), 1L + i % 7),
+                new ExpirationAlertDTO.ProductAlertInfo(i + 1L, "Chicken Breast", "Meat", expires, 2,
+                                                        BigDecimal.valueOf(899, 2), 1L + i % 7));
+        return new ExpirationAlertDTO("store-" + i % 20, TYPES.get(i % TYPES.size()), products, List.of(),
+                                      BigDecimal.valueOf(3145, 2));
+    }
+
+    private Map<String, AlertService.AlertBreakdown> statistics() {
+        // The reads behind AlertService#getAlertStatistics
+        alertHistory.recentByType(60);
+        alertHistory.recentByType(24 * 60);
+        return alertHistory.retainedByType();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(4)
+    public void append() {
+        alertHistory.append(alert(ThreadLocalRandom.current().nextInt(SEEDED_ALERTS)));
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(8)
+    public List<ExpirationAlertDTO> latest() {
+        return alertHistory.query(AlertHistoryQuery.latest(AlertHistoryQuery.DEFAULT_LIMIT));
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(4)
+    public Map<String, AlertService.AlertBreakdown> stats() {
+        return statistics();
+    }
+
+    @Benchmark
+    @Group("appendAlone")
+    public void appendAlone() {
+        append();
+    }
+
+    @Benchmark
+    @Group("latestAlone")
+    public List<ExpirationAlertDTO> latestAlone() {
+        return latest();
+    }
+
+    @Benchmark
+    @Group("statsAlone")
+    public Map<String, AlertService.AlertBreakdown> statsAlone() {
+        return stats();
+    }
+}
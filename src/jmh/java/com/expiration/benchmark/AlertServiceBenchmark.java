@@ -0,0 +1,154 @@
+package com.expiration.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import com.expiration.config.AlertJsonEncoder;
+import com.expiration.dto.ExpirationAlertDTO;
+import com.expiration.entity.Product;
+import com.expiration.service.AlertDeliveryService;
+import com.expiration.service.AlertHistoryStore;
+import com.expiration.service.AlertLogWriter;
+import com.expiration.service.AlertService;
+import com.expiration.service.RecipeService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AlertService#sendExpirationAlert} with the alert log switched off ("stubbed"), written as the
+ * synchronous multi-line text block for every product ("text"), or written as JSON events through
+ * async appenders into discarding streams, for every product ("json-uncapped") or with the default
+ * per-alert and per-minute product line limits ("json"),
+ * with alert and recipe metrics recorded by a Prometheus registry or discarded ("off"),
+ * and category partitions processed on the calling thread or fanned out to the CPUs
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlertServiceBenchmark {
+
+    @Param({"10", "100", "100000"})
+    int productCount;
+
+    @Param({"stubbed", "text", "json-uncapped", "json"})
+    String logging;
+
+    @Param({"off", "prometheus"})
+    String metrics;
+
+    @Param({"sequential", "parallel"})
+    String fanOut;
+
+    private AlertService alertService;
+    private AlertHistoryStore alertHistory;
+    private Path historyDir;
+    private List<Product> products;
+
+    @Setup
+    public void setUp() throws IOException {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.OFF);
+        for (String name : List.of(AlertService.class.getName(), AlertLogWriter.ALERT_LOGGER, AlertLogWriter.PRODUCT_LOGGER)) {
+            context.getLogger(name).setAdditive(false);
+            context.getLogger(name).setLevel(Level.OFF);
+        }
+        if ("text".equals(logging)) {
+            PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+            encoder.setContext(context);
+            encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss} - %msg%n");
+            encoder.start();
+            attach(context, AlertService.class.getName(), discarding(context, encoder));
+        } else if (logging.startsWith("json")) {
+            // Same queue settings as logback-spring.xml
+            attach(context, AlertLogWriter.ALERT_LOGGER, async(context, discarding(context, jsonEncoder(context)), 256));
+            attach(context, AlertLogWriter.PRODUCT_LOGGER, async(context, discarding(context, jsonEncoder(context)), 8192));
+        }
+        AlertLogWriter alertLog = "json".equals(logging)
+                ? new AlertLogWriter("json", 200, 1000)
+                : new AlertLogWriter(logging.startsWith("json") ? "json" : "text", Integer.MAX_VALUE, 0);
+
+        // Delivery disabled: submit() returns immediately
+        AlertDeliveryService delivery = new AlertDeliveryService(
+                new StaticListableBeanFactory().getBeanProvider(JavaMailSender.class), false, "noreply@company.com",
+                List.of(), 1, Duration.ofSeconds(5), 1, 1, 1, 1, Duration.ofSeconds(1), Duration.ofSeconds(1), 1);
+        MeterRegistry meterRegistry = RecipeServiceBenchmark.meterRegistry(metrics);
+        // Every alert is appended to the history; without fsync, and capped so long runs do not fill the disk
+        historyDir = Files.createTempDirectory("alert-history-bench");
+        alertHistory = new AlertHistoryStore(meterRegistry, historyDir.toString(), DataSize.ofMegabytes(64),
+                                             DataSize.ofKilobytes(4), Duration.ofDays(30), DataSize.ofMegabytes(512), false);
+        alertService = new AlertService(new RecipeService(meterRegistry), delivery, alertLog, alertHistory, meterRegistry,
+                                        event -> {}, 0,
+                                        "parallel".equals(fanOut) ? 1 : Integer.MAX_VALUE, false);
+        products = BenchmarkData.weekProducts(productCount);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        alertService.stop();
+        alertHistory.close();
+        FileSystemUtils.deleteRecursively(historyDir);
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        for (String name : List.of(AlertService.class.getName(), AlertLogWriter.ALERT_LOGGER, AlertLogWriter.PRODUCT_LOGGER)) {
+            context.getLogger(name).detachAndStopAllAppenders();
+        }
+    }
+
+    private static void attach(LoggerContext context, String loggerName, Appender<ILoggingEvent> appender) {
+        context.getLogger(loggerName).addAppender(appender);
+        context.getLogger(loggerName).setLevel(Level.INFO);
+    }
+
+    private static Encoder<ILoggingEvent> jsonEncoder(LoggerContext context) {
+        AlertJsonEncoder encoder = new AlertJsonEncoder();
+        encoder.setContext(context);
+        encoder.start();
+        return encoder;
+    }
+
+    private static Appender<ILoggingEvent> discarding(LoggerContext context, Encoder<ILoggingEvent> encoder) {
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        return appender;
+    }
+
+    private static Appender<ILoggingEvent> async(LoggerContext context, Appender<ILoggingEvent> target, int queueSize) {
+        AsyncAppender appender = new AsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(queueSize);
+        appender.setDiscardingThreshold(0);
+        appender.setNeverBlock(true);
+        appender.addAppender(target);
+        appender.start();
+        return appender;
+    }
+
+    @Benchmark
+    public ExpirationAlertDTO sendExpirationAlert() {
+        return alertService.sendExpirationAlert(Product.DEFAULT_STORE, products, "SEVEN_DAYS");
+    }
+}
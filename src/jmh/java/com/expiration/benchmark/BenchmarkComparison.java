@@ -0,0 +1,88 @@
+package com.expiration.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Compares two JMH JSON result files (-rf json) benchmark by benchmark.
+ *
+ * Usage: BenchmarkComparison &lt;baseline.json&gt; &lt;current.json&gt; [regressionThresholdPercent]
+ *
+ * Prints the score change and the normalized allocation change (from -prof gc) for every
+ * benchmark and parameter combination present in both files, and exits with status 1 if
+ * any score got worse by more than the threshold (default 10%).
+ */
+public final class BenchmarkComparison {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    private BenchmarkComparison() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json> [regressionThresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-70s %14s %14s %9s %12s%n", "Benchmark", "Baseline", "Current", "Change", "Alloc B/op");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            JsonNode after = entry.getValue();
+            if (before == null) {
+                System.out.printf("%-70s %14s %14s%n", entry.getKey(), "-", score(after));
+                continue;
+            }
+            double oldScore = before.path("primaryMetric").path("score").asDouble();
+            double newScore = after.path("primaryMetric").path("score").asDouble();
+            double change = oldScore == 0 ? 0 : (newScore - oldScore) * 100 / oldScore;
+            // Lower is better for time-per-operation modes, higher is better for throughput
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+            boolean regressed = (higherIsBetter ? -change : change) > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-70s %14s %14s %+8.1f%% %12s%s%n", entry.getKey(), score(before), score(after), change,
+                              allocation(before) + " -> " + allocation(after), regressed ? "  REGRESSION" : "");
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf("%-70s %14s %14s%n", key, score(baseline.get(key)), "-");
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new TreeMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText()
+                                                        .replace("com.expiration.benchmark.", ""));
+            result.path("params").fields().forEachRemaining(param ->
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    private static String score(JsonNode result) {
+        JsonNode metric = result.path("primaryMetric");
+        return String.format("%.3f %s", metric.path("score").asDouble(), metric.path("scoreUnit").asText());
+    }
+
+    private static String allocation(JsonNode result) {
+        JsonNode allocation = result.path("secondaryMetrics").path(ALLOCATION_METRIC);
+        return allocation.isMissingNode() ? "-" : String.format("%.0f", allocation.path("score").asDouble());
+    }
+}
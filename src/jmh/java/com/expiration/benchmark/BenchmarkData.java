@@ -0,0 +1,69 @@
+package com.expiration.benchmark;
+
+import com.expiration.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic fixtures shared by the benchmarks
+ */
+final class BenchmarkData {
+
+    /** Names and categories of the seeded sample products */
+    static final String[][] SEEDED_PRODUCTS = {
+            {"Fresh Milk", "Dairy"}, {"Ground Beef", "Meat"}, {"Salmon Fillet", "Seafood"},
+            {"Whole Wheat Bread", "Bakery"}, {"Fresh Lettuce", "Vegetables"}, {"Strawberries", "Fruits"},
+            {"Greek Yogurt", "Dairy"}, {"Aged Cheddar Cheese", "Dairy"}, {"Gala Apples", "Fruits"},
+            {"Ripe Bananas", "Fruits"}, {"Chicken Breast", "Meat"}, {"Roma Tomatoes", "Vegetables"},
+            {"Large Eggs", "Dairy"}, {"Fresh Spinach", "Vegetables"}, {"Pork Chops", "Meat"},
+            {"Bell Peppers", "Vegetables"}, {"Orange Juice", "Beverages"}, {"Whole Grain Pasta", "Pantry"},
+            {"Basmati Rice", "Pantry"}, {"Olive Oil", "Pantry"}
+    };
+
+    // Expiration dates are spread over [today - 30, today + 365]
+    static final int PAST_DAYS = 30;
+    static final int DATE_SPAN = 396;
+
+    private BenchmarkData() {}
+
+    /**
+     * Product names; "seeded" cycles the sample names, "unmatched" never hits a recipe key
+     */
+    static List<String> productNames(int count, String mix) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add("unmatched".equals(mix)
+                    ? "Item " + Integer.toString(i * 7919, 36)
+                    : SEEDED_PRODUCTS[i % SEEDED_PRODUCTS.length][0]);
+        }
+        return names;
+    }
+
+    /**
+     * Products expiring within the next 7 days, as the alert jobs see them
+     */
+    static List<Product> weekProducts(int count) {
+        LocalDate today = LocalDate.now();
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String[] seeded = SEEDED_PRODUCTS[i % SEEDED_PRODUCTS.length];
+            Product product = new Product(seeded[0], seeded[1], today.plusDays(i % 8), 1 + i % 50,
+                                          BigDecimal.valueOf(199 + i % 1000, 2));
+            product.setId((long) i + 1);
+            product.setCreatedAt(LocalDateTime.now());
+            products.add(product);
+        }
+        return products;
+    }
+
+    /**
+     * Days from today for the row with the given id
+     */
+    static int dayOffset(long id) {
+        return (int) (id * 7919 % DATE_SPAN) - PAST_DAYS;
+    }
+}
@@ -0,0 +1,55 @@
+package com.expiration.benchmark;
+
+import com.expiration.dto.ExpirationAlertDTO;
+import com.expiration.dto.ProductResponseDTO;
+import com.expiration.entity.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-product DTO construction used by every list endpoint and every alert
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoBenchmark {
+
+    private List<Product> products;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        products = BenchmarkData.weekProducts(1024);
+    }
+
+    private Product nextProduct() {
+        next = (next + 1) & 1023;
+        return products.get(next);
+    }
+
+    @Benchmark
+    public ProductResponseDTO productResponseDto() {
+        return new ProductResponseDTO(nextProduct());
+    }
+
+    @Benchmark
+    public ExpirationAlertDTO.ProductAlertInfo productAlertInfo() {
+        // Same conversion AlertService applies to each alerted product
+        Product product = nextProduct();
+        return new ExpirationAlertDTO.ProductAlertInfo(
+                product.getId(),
+                product.getName(),
+                product.getCategory(),
+                product.getExpirationDate(),
+                product.getQuantity(),
+                product.getPrice(),
+                ChronoUnit.DAYS.between(LocalDate.now(), product.getExpirationDate()));
+    }
+}
@@ -0,0 +1,129 @@
+package com.expiration.benchmark;
+
+import com.expiration.dto.ExportQuery;
+import com.expiration.entity.Product;
+import com.expiration.repository.ProductRepository;
+import com.expiration.service.ExpirationCalendarIndex;
+import com.expiration.service.ExportService;
+import com.expiration.service.ProductQueryCache;
+import com.expiration.service.ProductSearchIndex;
+import com.expiration.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full product export, by default 10M rows, written as CSV or NDJSON to a stream that only
+ * counts bytes. The fork runs with a 512MB heap, well under the size of the export, so a run
+ * that completes shows the export streams instead of buffering. The table lives in a
+ * file-backed H2 database in a temporary directory, like {@link StoreScanBenchmark}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class ExportBenchmark {
+
+    private static final int INSERT_BATCH = 10_000;
+
+    @Param({"10000000"})
+    long rows;
+
+    @Param({"csv", "ndjson"})
+    String format;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private ExportService exportService;
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Product.class)
+    @EnableJpaRepositories(basePackageClasses = ProductRepository.class)
+    @Import({ProductService.class, ProductQueryCache.class, ExpirationCalendarIndex.class, ProductSearchIndex.class})
+    static class ServiceContext {
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("export-benchmark");
+        context = new SpringApplicationBuilder(ServiceContext.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:file:" + directory.resolve("products").toAbsolutePath(),
+                     "--spring.jpa.show-sql=false",
+                     "--spring.jpa.properties.jakarta.persistence.validation.mode=none",
+                     "--logging.level.root=WARN",
+                     "--logging.level.com.expiration=WARN");
+        // Product exports never touch alerts
+        exportService = new ExportService(context.getBean(ProductService.class), null,
+                                          context.getBean(ObjectMapper.class));
+
+        LocalDate today = LocalDate.now();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (long id = 1; id <= rows; id++) {
+            String[] seeded = BenchmarkData.SEEDED_PRODUCTS[(int) (id % BenchmarkData.SEEDED_PRODUCTS.length)];
+            batch.add(new Object[]{id, seeded[0] + " " + id, seeded[1],
+                    Date.valueOf(today.plusDays(BenchmarkData.dayOffset(id))), (int) (1 + id % 50),
+                    BigDecimal.valueOf(199 + id % 1000, 2), Product.DEFAULT_STORE, createdAt});
+            if (batch.size() == INSERT_BATCH || id == rows) {
+                jdbcTemplate.batchUpdate("INSERT INTO products (id, name, category, expiration_date, quantity, price, store_id, "
+                                         + "created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.execute("ANALYZE TABLE products");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public long exportAll() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        exportService.exportProducts(ExportQuery.products(format, null, null, null, null), out);
+        return out.bytes;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.expiration.benchmark;
+
+import com.expiration.entity.Product;
+import com.expiration.repository.ProductRepository;
+import com.expiration.service.InventoryImportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end CSV import through {@link InventoryImportService}, by default a 5M-line file
+ * with one line in a thousand invalid: upload, split, parallel parse and validation, batched
+ * inserts and checkpoints. Each iteration starts from empty tables. The score is seconds
+ * per import, so rows/sec is lines / score; the service also logs rows/s when a job finishes.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ImportBenchmark {
+
+    @Param({"5000000"})
+    int lines;
+
+    @Param({"0"})
+    int parseThreads;
+
+    @Param({"2"})
+    int writers;
+
+    private Path directory;
+    private Path file;
+    private ConfigurableApplicationContext context;
+    private InventoryImportService importService;
+    private JdbcTemplate jdbcTemplate;
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Product.class)
+    @EnableJpaRepositories(basePackageClasses = ProductRepository.class)
+    @Import(InventoryImportService.class)
+    static class ImportContext {
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("import-benchmark");
+        file = directory.resolve("manifest.csv");
+        LocalDate today = LocalDate.now();
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("name,category,expirationDate,quantity,price,storeId\n");
+            for (long id = 1; id <= lines; id++) {
+                String[] seeded = BenchmarkData.SEEDED_PRODUCTS[(int) (id % BenchmarkData.SEEDED_PRODUCTS.length)];
+                String quantity = id % 1000 == 0 ? "0" : Long.toString(1 + id % 50);
+                writer.write(seeded[0] + " " + id + "," + seeded[1] + "," + today.plusDays(BenchmarkData.dayOffset(id))
+                             + "," + quantity + "," + BigDecimal.valueOf(199 + id % 1000, 2) + ",store-" + id % 20 + "\n");
+            }
+        }
+
+        context = new SpringApplicationBuilder(ImportContext.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:file:" + directory.resolve("products").toAbsolutePath(),
+                     "--spring.jpa.show-sql=false",
+                     "--spring.jpa.properties.jakarta.persistence.validation.mode=none",
+                     "--inventory.import.dir=" + directory.resolve("imports").toAbsolutePath(),
+                     "--inventory.import.parse-threads=" + parseThreads,
+                     "--inventory.import.writers=" + writers,
+                     "--logging.level.root=WARN",
+                     "--logging.level.com.expiration=INFO");
+        importService = context.getBean(InventoryImportService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyTables() {
+        // stock_lots stays empty here, but its foreign key to products would otherwise block the TRUNCATE
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        jdbcTemplate.execute("TRUNCATE TABLE products");
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+        jdbcTemplate.execute("TRUNCATE TABLE import_chunks");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Map<String, Object> importFile() throws IOException, InterruptedException {
+        Map<String, Object> status;
+        try (InputStream csv = Files.newInputStream(file)) {
+            status = importService.startImport(csv);
+        }
+        String id = (String) status.get("id");
+        while (status.get("state") == InventoryImportService.State.RUNNING) {
+            Thread.sleep(50);
+            status = importService.getStatus(id);
+        }
+        if (status.get("state") != InventoryImportService.State.COMPLETED) {
+            throw new IllegalStateException("Import failed: " + status.get("error"));
+        }
+        return status;
+    }
+}
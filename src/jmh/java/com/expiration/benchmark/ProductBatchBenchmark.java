@@ -0,0 +1,104 @@
+package com.expiration.benchmark;
+
+import com.expiration.dto.BatchItemResultDTO;
+import com.expiration.dto.ProductCreateDTO;
+import com.expiration.dto.ProductResponseDTO;
+import com.expiration.entity.Product;
+import com.expiration.repository.ProductRepository;
+import com.expiration.service.ExpirationCalendarIndex;
+import com.expiration.service.ProductBatchService;
+import com.expiration.service.ProductQueryCache;
+import com.expiration.service.ProductSearchIndex;
+import com.expiration.service.ProductService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product inserts per second: one {@link ProductService#createProduct} transaction per row, as
+ * the single POST endpoint does, against {@link ProductBatchService#createProducts} with 5,000
+ * rows per call, chunked and JDBC-batched. Both publish the same change events. The score is
+ * rows per second either way; a failed batch row fails the run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ProductBatchBenchmark {
+
+    private static final int BATCH = 5_000;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private ProductBatchService productBatchService;
+    private LocalDate today;
+    private long next;
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Product.class)
+    @EnableJpaRepositories(basePackageClasses = ProductRepository.class)
+    @Import({ProductService.class, ProductBatchService.class, ProductQueryCache.class, ExpirationCalendarIndex.class,
+             ProductSearchIndex.class})
+    static class BatchContext {
+    }
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BatchContext.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.jpa.show-sql=false",
+                     "--spring.jpa.properties.jakarta.persistence.validation.mode=none",
+                     "--logging.level.root=WARN");
+        productService = context.getBean(ProductService.class);
+        productBatchService = context.getBean(ProductBatchService.class);
+        today = LocalDate.now();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private ProductCreateDTO nextProduct() {
+        long id = ++next;
+        String[] seeded = BenchmarkData.SEEDED_PRODUCTS[(int) (id % BenchmarkData.SEEDED_PRODUCTS.length)];
+        return new ProductCreateDTO(seeded[0] + " " + id, seeded[1], today.plusDays(1 + id % 365), (int) (1 + id % 50),
+                                    BigDecimal.valueOf(199 + id % 1000, 2));
+    }
+
+    @Benchmark
+    public ProductResponseDTO perRow() {
+        return productService.createProduct(nextProduct());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<BatchItemResultDTO> batch() {
+        List<ProductCreateDTO> items = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            items.add(nextProduct());
+        }
+        List<BatchItemResultDTO> results = productBatchService.createProducts(items);
+        for (BatchItemResultDTO result : results) {
+            if (!result.isSuccess()) {
+                throw new IllegalStateException("Row " + result.getIndex() + " failed: " + result.getError());
+            }
+        }
+        return results;
+    }
+}
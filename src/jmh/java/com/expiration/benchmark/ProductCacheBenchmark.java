@@ -0,0 +1,142 @@
+package com.expiration.benchmark;
+
+import com.expiration.dto.ProductCreateDTO;
+import com.expiration.dto.ProductResponseDTO;
+import com.expiration.entity.Product;
+import com.expiration.repository.ProductRepository;
+import com.expiration.service.ExpirationCalendarIndex;
+import com.expiration.service.ProductQueryCache;
+import com.expiration.service.ProductSearchIndex;
+import com.expiration.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A read-heavy product workload through {@link ProductService}, by default over 10k rows:
+ * half by-id reads, a third expiry and category lists, and 5% updates that evict what they
+ * touch. "on" runs it with the entity second-level cache and {@link ProductQueryCache};
+ * "off" disables both. The statements counter is the number of JDBC statements prepared,
+ * so statements / operations is the database round trips per request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ProductCacheBenchmark {
+
+    private static final int INSERT_BATCH = 10_000;
+
+    @Param({"10000"})
+    int rows;
+
+    @Param({"off", "on"})
+    String cache;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private Statistics statistics;
+    private SplittableRandom random;
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Product.class)
+    @EnableJpaRepositories(basePackageClasses = ProductRepository.class)
+    @Import({ProductService.class, ProductQueryCache.class, ExpirationCalendarIndex.class, ProductSearchIndex.class})
+    static class ServiceContext {
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RoundTrips {
+        public long statements;
+        public long operations;
+    }
+
+    @Setup
+    public void setUp() {
+        boolean cached = "on".equals(cache);
+        context = new SpringApplicationBuilder(ServiceContext.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:cache-" + cache,
+                     "--spring.jpa.show-sql=false",
+                     "--spring.jpa.properties.jakarta.persistence.validation.mode=none",
+                     "--spring.jpa.properties.hibernate.generate_statistics=true",
+                     "--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + cached,
+                     "--products.query-cache.max-entries=" + (cached ? 500 : 0),
+                     "--logging.level.root=WARN",
+                     "--logging.level.com.expiration=WARN");
+        productService = context.getBean(ProductService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        random = new SplittableRandom(42);
+
+        LocalDate today = LocalDate.now();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (long id = 1; id <= rows; id++) {
+            String[] seeded = BenchmarkData.SEEDED_PRODUCTS[(int) (id % BenchmarkData.SEEDED_PRODUCTS.length)];
+            batch.add(new Object[]{id, seeded[0] + " " + id, seeded[1],
+                    Date.valueOf(today.plusDays(BenchmarkData.dayOffset(id))), (int) (1 + id % 50),
+                    BigDecimal.valueOf(199 + id % 1000, 2), Product.DEFAULT_STORE, createdAt});
+            if (batch.size() == INSERT_BATCH || id == rows) {
+                jdbcTemplate.batchUpdate("INSERT INTO products (id, name, category, expiration_date, quantity, price, store_id, "
+                                         + "created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        context.getBean(ExpirationCalendarIndex.class).rebuild();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void readHeavyMix(RoundTrips roundTrips, Blackhole blackhole) {
+        long statementsBefore = statistics.getPrepareStatementCount();
+        int roll = random.nextInt(100);
+        long id = 1 + random.nextInt(rows);
+        if (roll < 50) {
+            blackhole.consume(productService.getProductById(id));
+        } else if (roll < 70) {
+            blackhole.consume(productService.getProductsExpiringWithinDays(7, null));
+        } else if (roll < 85) {
+            String category = BenchmarkData.SEEDED_PRODUCTS[(int) (id % BenchmarkData.SEEDED_PRODUCTS.length)][1];
+            blackhole.consume(productService.getProductsByCategory(category));
+        } else if (roll < 95) {
+            blackhole.consume(productService.getProductsExpiringTomorrow(null));
+        } else {
+            ProductResponseDTO product = productService.getProductById(id);
+            ProductCreateDTO update = new ProductCreateDTO(product.getName(), product.getCategory(),
+                    product.getExpirationDate(), product.getQuantity() % 50 + 1, product.getPrice());
+            blackhole.consume(productService.updateProduct(id, update));
+        }
+        roundTrips.statements += statistics.getPrepareStatementCount() - statementsBefore;
+        roundTrips.operations++;
+    }
+}
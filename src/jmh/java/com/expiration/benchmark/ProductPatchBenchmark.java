@@ -0,0 +1,182 @@
+package com.expiration.benchmark;
+
+import com.expiration.dto.BatchItemResultDTO;
+import com.expiration.dto.ProductBatchPatchDTO;
+import com.expiration.dto.ProductBatchUpdateDTO;
+import com.expiration.dto.ProductCreateDTO;
+import com.expiration.dto.ProductPatchDTO;
+import com.expiration.dto.ProductResponseDTO;
+import com.expiration.entity.Product;
+import com.expiration.repository.ProductRepository;
+import com.expiration.service.ExpirationCalendarIndex;
+import com.expiration.service.ProductBatchService;
+import com.expiration.service.ProductQueryCache;
+import com.expiration.service.ProductSearchIndex;
+import com.expiration.service.ProductService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quantity changes over 10k products, one at a time and 500 per batch: through the PUT path,
+ * which loads each product and writes all of its fields back, and through PATCH, which sends
+ * only the quantity in one conditional UPDATE. Both publish the same change events, so the
+ * indexes and the query cache do the same work either way; the entity cache is on, as in the
+ * application. A failed batch row fails the run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ProductPatchBenchmark {
+
+    private static final int BATCH = 500;
+
+    @Param({"10000"})
+    int rows;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private ProductBatchService productBatchService;
+    private SplittableRandom random;
+    private LocalDate today;
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Product.class)
+    @EnableJpaRepositories(basePackageClasses = ProductRepository.class)
+    @Import({ProductService.class, ProductBatchService.class, ProductQueryCache.class, ExpirationCalendarIndex.class,
+             ProductSearchIndex.class})
+    static class PatchContext {
+    }
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(PatchContext.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.jpa.show-sql=false",
+                     "--spring.jpa.properties.jakarta.persistence.validation.mode=none",
+                     "--logging.level.root=WARN");
+        productService = context.getBean(ProductService.class);
+        productBatchService = context.getBean(ProductBatchService.class);
+        random = new SplittableRandom(42);
+        today = LocalDate.now();
+
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            batch.add(new Object[]{id, name(id), category(id), Date.valueOf(expirationDate(id)), (int) (1 + id % 50),
+                    price(id), Product.DEFAULT_STORE, createdAt});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate(
+                "INSERT INTO products (id, name, category, expiration_date, quantity, price, store_id, created_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+        context.getBean(ExpirationCalendarIndex.class).rebuild();
+        context.getBean(ProductSearchIndex.class).rebuild();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // The seeded values, so a PUT can resend the fields it does not change without reading them first
+
+    private static String name(long id) {
+        return BenchmarkData.SEEDED_PRODUCTS[(int) (id % BenchmarkData.SEEDED_PRODUCTS.length)][0] + " " + id;
+    }
+
+    private static String category(long id) {
+        return BenchmarkData.SEEDED_PRODUCTS[(int) (id % BenchmarkData.SEEDED_PRODUCTS.length)][1];
+    }
+
+    private LocalDate expirationDate(long id) {
+        // All in the future, as the PUT path validates the whole product
+        return today.plusDays(1 + id % 365);
+    }
+
+    private static BigDecimal price(long id) {
+        return BigDecimal.valueOf(199 + id % 1000, 2);
+    }
+
+    private long nextId() {
+        return 1 + random.nextInt(rows);
+    }
+
+    private int nextQuantity() {
+        return 1 + random.nextInt(50);
+    }
+
+    @Benchmark
+    public ProductResponseDTO put() {
+        long id = nextId();
+        return productService.updateProduct(id, new ProductCreateDTO(name(id), category(id), expirationDate(id),
+                                                                     nextQuantity(), price(id)));
+    }
+
+    @Benchmark
+    public ProductResponseDTO patch() {
+        ProductPatchDTO patch = new ProductPatchDTO();
+        patch.setQuantity(nextQuantity());
+        return productService.patchProduct(nextId(), patch);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<BatchItemResultDTO> putBatch() {
+        List<ProductBatchUpdateDTO> items = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            long id = nextId();
+            ProductBatchUpdateDTO item = new ProductBatchUpdateDTO();
+            item.setId(id);
+            item.setName(name(id));
+            item.setCategory(category(id));
+            item.setExpirationDate(expirationDate(id));
+            item.setQuantity(nextQuantity());
+            item.setPrice(price(id));
+            items.add(item);
+        }
+        return checked(productBatchService.updateProducts(items));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<BatchItemResultDTO> patchBatch() {
+        List<ProductBatchPatchDTO> items = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            ProductBatchPatchDTO item = new ProductBatchPatchDTO();
+            item.setId(nextId());
+            item.setQuantity(nextQuantity());
+            items.add(item);
+        }
+        return checked(productBatchService.patchProducts(items));
+    }
+
+    private static List<BatchItemResultDTO> checked(List<BatchItemResultDTO> results) {
+        for (BatchItemResultDTO result : results) {
+            if (!result.isSuccess()) {
+                throw new IllegalStateException("Row " + result.getIndex() + " failed: " + result.getError());
+            }
+        }
+        return results;
+    }
+}
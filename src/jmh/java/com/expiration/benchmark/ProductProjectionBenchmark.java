@@ -0,0 +1,121 @@
+package com.expiration.benchmark;
+
+import com.expiration.dto.ProductResponseDTO;
+import com.expiration.dto.ProductView;
+import com.expiration.entity.Product;
+import com.expiration.repository.ProductRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The product list reads, by default over 100k rows: "entity" loads managed {@link Product}s
+ * and copies them into {@link ProductResponseDTO}s, the way the endpoints used to;
+ * "projection" runs the {@link ProductView} constructor-expression queries they use now.
+ * Both run in a read-only transaction like the service. Run with {@code -prof gc} to
+ * compare allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ProductProjectionBenchmark {
+
+    private static final int INSERT_BATCH = 10_000;
+
+    @Param({"100000"})
+    int rows;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private LocalDate today;
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Product.class)
+    @EnableJpaRepositories(basePackageClasses = ProductRepository.class)
+    static class RepositoryContext {
+    }
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(RepositoryContext.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:projection",
+                     "--spring.jpa.show-sql=false",
+                     "--spring.jpa.properties.jakarta.persistence.validation.mode=none",
+                     "--logging.level.root=WARN",
+                     "--logging.level.com.expiration=WARN");
+        productRepository = context.getBean(ProductRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        today = LocalDate.now();
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (long id = 1; id <= rows; id++) {
+            String[] seeded = BenchmarkData.SEEDED_PRODUCTS[(int) (id % BenchmarkData.SEEDED_PRODUCTS.length)];
+            batch.add(new Object[]{id, seeded[0] + " " + id, seeded[1],
+                    Date.valueOf(today.plusDays(BenchmarkData.dayOffset(id))), (int) (1 + id % 50),
+                    BigDecimal.valueOf(199 + id % 1000, 2), Product.DEFAULT_STORE, createdAt});
+            if (batch.size() == INSERT_BATCH || id == rows) {
+                jdbcTemplate.batchUpdate("INSERT INTO products (id, name, category, expiration_date, quantity, price, store_id, "
+                                         + "created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.execute("ANALYZE TABLE products");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> listAllEntity() {
+        return readOnlyTransaction.execute(status -> productRepository.findAll().stream()
+                .map(ProductResponseDTO::new)
+                .toList());
+    }
+
+    @Benchmark
+    public List<ProductView> listAllProjection() {
+        return readOnlyTransaction.execute(status -> productRepository.findAllViews(LocalDate.now()));
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> expiringWithinWeekEntity() {
+        return readOnlyTransaction.execute(status -> productRepository.findProductsExpiringWithinDays(today, today.plusDays(7))
+                .stream()
+                .map(ProductResponseDTO::new)
+                .toList());
+    }
+
+    @Benchmark
+    public List<ProductView> expiringWithinWeekProjection() {
+        return readOnlyTransaction.execute(status ->
+                productRepository.findViewsExpiringBetween(today, today.plusDays(7), LocalDate.now()));
+    }
+}
@@ -0,0 +1,126 @@
+package com.expiration.benchmark;
+
+import com.expiration.config.RepositoryMetricsConfig;
+import com.expiration.entity.Product;
+import com.expiration.repository.ProductRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ProductRepository} expiry queries against an in-memory H2 products table.
+ * Only JPA and the repository are started: no web layer, schedulers or seed data.
+ * With metrics "on" the repository carries the query timer and row count advice
+ * the application uses; "off" leaves both out.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ProductRepositoryBenchmark {
+
+    private static final int INSERT_BATCH = 10_000;
+
+    @Param({"10000", "1000000"})
+    int rows;
+
+    @Param({"off", "on"})
+    String metrics;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private LocalDate today;
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Product.class)
+    @EnableJpaRepositories(basePackageClasses = ProductRepository.class)
+    static class RepositoryContext {
+    }
+
+    @Setup
+    public void setUp() {
+        boolean metricsOn = "on".equals(metrics);
+        context = new SpringApplicationBuilder(metricsOn
+                        ? new Class<?>[]{RepositoryContext.class, RepositoryMetricsConfig.class}
+                        : new Class<?>[]{RepositoryContext.class})
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark",
+                     "--spring.jpa.show-sql=false",
+                     "--spring.jpa.properties.jakarta.persistence.validation.mode=none",
+                     "--logging.level.root=WARN",
+                     "--logging.level.com.expiration=WARN",
+                     "--spring.autoconfigure.exclude=" + (metricsOn ? ""
+                             : "org.springframework.boot.actuate.autoconfigure.metrics.data.RepositoryMetricsAutoConfiguration"));
+        productRepository = context.getBean(ProductRepository.class);
+        today = LocalDate.now();
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (long id = 1; id <= rows; id++) {
+            String[] seeded = BenchmarkData.SEEDED_PRODUCTS[(int) (id % BenchmarkData.SEEDED_PRODUCTS.length)];
+            batch.add(new Object[]{id, seeded[0] + " " + id, seeded[1],
+                    Date.valueOf(today.plusDays(BenchmarkData.dayOffset(id))), (int) (1 + id % 50),
+                    BigDecimal.valueOf(199 + id % 1000, 2), Product.DEFAULT_STORE, createdAt});
+            if (batch.size() == INSERT_BATCH || id == rows) {
+                jdbcTemplate.batchUpdate("INSERT INTO products (id, name, category, expiration_date, quantity, price, store_id, "
+                                         + "created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.execute("ANALYZE TABLE products");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Product> findProductsExpiringTomorrow() {
+        return productRepository.findProductsExpiringTomorrow(today.plusDays(1));
+    }
+
+    @Benchmark
+    public List<Product> findProductsExpiringWithinWeek() {
+        return productRepository.findProductsExpiringWithinDays(today, today.plusDays(7));
+    }
+
+    @Benchmark
+    public List<Product> findExpiredProducts() {
+        return productRepository.findExpiredProducts(today);
+    }
+
+    @Benchmark
+    public Long countProductsExpiringWithinWeek() {
+        return productRepository.countProductsExpiringWithinDays(today, today.plusDays(7));
+    }
+
+    @Benchmark
+    public Double getTotalValueOfProductsExpiringWithinWeek() {
+        return productRepository.getTotalValueOfProductsExpiringWithinDays(today, today.plusDays(7));
+    }
+
+    @Benchmark
+    public List<Product> findProductsExpiringOnOrBeforeWeekEnd() {
+        return productRepository.findProductsExpiringOnOrBefore(today.plusDays(7));
+    }
+}
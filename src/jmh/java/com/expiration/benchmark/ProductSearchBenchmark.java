@@ -0,0 +1,131 @@
+package com.expiration.benchmark;
+
+import com.expiration.dto.ProductView;
+import com.expiration.entity.Product;
+import com.expiration.repository.ProductRepository;
+import com.expiration.service.ExpirationCalendarIndex;
+import com.expiration.service.ProductQueryCache;
+import com.expiration.service.ProductSearchIndex;
+import com.expiration.service.ProductService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Name search over 1M products: the in-memory {@link ProductSearchIndex} alone (the autocomplete
+ * path), the index plus loading the matching views (the search endpoint), and the
+ * {@code LIKE '%term%'} query it replaces. Queries cycle through whole words, misspellings
+ * and partly typed names; the LIKE query only finds the first kind. Sample time mode, so the
+ * report includes p99.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ProductSearchBenchmark {
+
+    private static final int INSERT_BATCH = 10_000;
+    private static final int LIMIT = 20;
+    private static final String[] QUERIES = {
+            "milk", "chedar", "chick", "whole wheat br", "yogrt", "salmon fil", "bananas 12", "tomatos"
+    };
+
+    @Param({"1000000"})
+    long rows;
+
+    private ConfigurableApplicationContext context;
+    private ProductSearchIndex searchIndex;
+    private ProductService productService;
+    private ProductRepository productRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private int next;
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Product.class)
+    @EnableJpaRepositories(basePackageClasses = ProductRepository.class)
+    @Import({ProductService.class, ProductQueryCache.class, ExpirationCalendarIndex.class, ProductSearchIndex.class})
+    static class SearchContext {
+    }
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SearchContext.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.jpa.show-sql=false",
+                     "--spring.jpa.properties.jakarta.persistence.validation.mode=none",
+                     "--logging.level.root=WARN");
+        searchIndex = context.getBean(ProductSearchIndex.class);
+        productService = context.getBean(ProductService.class);
+        productRepository = context.getBean(ProductRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        LocalDate today = LocalDate.now();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (long id = 1; id <= rows; id++) {
+            String[] seeded = BenchmarkData.SEEDED_PRODUCTS[(int) (id % BenchmarkData.SEEDED_PRODUCTS.length)];
+            batch.add(new Object[]{id, seeded[0] + " " + id, seeded[1],
+                    Date.valueOf(today.plusDays(BenchmarkData.dayOffset(id))), (int) (1 + id % 50),
+                    BigDecimal.valueOf(199 + id % 1000, 2), "store-" + id % 20, createdAt});
+            if (batch.size() == INSERT_BATCH || id == rows) {
+                jdbcTemplate.batchUpdate("INSERT INTO products (id, name, category, expiration_date, quantity, price, store_id, "
+                                         + "created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.execute("ANALYZE TABLE products");
+        // The index loaded when the context started, before the rows were inserted
+        searchIndex.rebuild();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private String nextQuery() {
+        return QUERIES[next++ % QUERIES.length];
+    }
+
+    @Benchmark
+    public List<ProductSearchIndex.Hit> index() {
+        return searchIndex.search(nextQuery(), null, LIMIT);
+    }
+
+    @Benchmark
+    public List<ProductView> indexWithViews() {
+        return productService.searchProductsByName(nextQuery(), null, LIMIT);
+    }
+
+    @Benchmark
+    public List<ProductView> like() {
+        String pattern = EscapeCharacter.DEFAULT.escape(nextQuery());
+        return readOnlyTransaction.execute(status ->
+                productRepository.findViewsByNameContaining(pattern, LocalDate.now(), Limit.of(LIMIT)));
+    }
+}
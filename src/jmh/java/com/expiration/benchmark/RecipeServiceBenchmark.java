@@ -0,0 +1,80 @@
+package com.expiration.benchmark;
+
+import com.expiration.dto.RecipeDTO;
+import com.expiration.service.RecipeService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RecipeService#getRecipesForProducts} for alert-sized product lists,
+ * with lookup timers recorded by a Prometheus registry or discarded ("off"),
+ * over the built-in recipes alone or with up to 100k additional random recipe keys
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RecipeServiceBenchmark {
+
+    @Param({"5", "50", "500"})
+    int productCount;
+
+    @Param({"seeded", "unmatched"})
+    String nameMix;
+
+    @Param({"off", "prometheus"})
+    String metrics;
+
+    @Param({"0", "10000", "100000"})
+    int extraRecipeKeys;
+
+    private RecipeService recipeService;
+    private List<String> productNames;
+
+    @Setup
+    public void setUp() {
+        recipeService = new RecipeService(meterRegistry(metrics), extraRecipes(extraRecipeKeys));
+        productNames = BenchmarkData.productNames(productCount, nameMix);
+    }
+
+    static MeterRegistry meterRegistry(String metrics) {
+        // A composite registry without children hands out no-op meters
+        return "prometheus".equals(metrics) ? new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)
+                                            : new CompositeMeterRegistry();
+    }
+
+    /**
+     * Random lowercase keys of 4-12 letters sharing one recipe; some occur inside the
+     * product names, as a large catalogue's keys would
+     */
+    private static Map<String, List<RecipeDTO>> extraRecipes(int count) {
+        List<RecipeDTO> templates = List.of(new RecipeDTO("House Special", "Store recipe",
+                                                          List.of("seasonal produce"), "20 minutes", "Easy"));
+        SplittableRandom random = new SplittableRandom(42);
+        Map<String, List<RecipeDTO>> recipes = new HashMap<>(count * 2);
+        while (recipes.size() < count) {
+            char[] key = new char[4 + random.nextInt(9)];
+            for (int i = 0; i < key.length; i++) {
+                key[i] = (char) ('a' + random.nextInt(26));
+            }
+            recipes.put(new String(key), templates);
+        }
+        return recipes;
+    }
+
+    @Benchmark
+    public List<RecipeDTO> getRecipesForProducts() {
+        return recipeService.getRecipesForProducts(productNames);
+    }
+}
@@ -0,0 +1,150 @@
+package com.expiration.benchmark;
+
+import com.expiration.dto.StockConsumptionDTO;
+import com.expiration.dto.StockLotCreateDTO;
+import com.expiration.entity.Product;
+import com.expiration.exception.InsufficientStockException;
+import com.expiration.repository.ProductRepository;
+import com.expiration.service.StockService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stress test of {@link StockService#consume}: 64 threads take 1-5 units at a time from one
+ * hot product or spread over 100, each product holding 40 lots that the sales run through.
+ * At the end of the trial it checks that no stock was lost or went negative. Every product's
+ * lots must add up to its quantity, no lot may be below zero, and the units still in stock
+ * plus the units reported as consumed must equal the units received. A violation fails the
+ * run. Sales refused for lack of stock are counted as rejected and take nothing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Threads(64)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class StockConsumeBenchmark {
+
+    private static final int LOTS_PER_PRODUCT = 40;
+    private static final int LOT_SIZE = 100_000;
+
+    @Param({"1", "100"})
+    int products;
+
+    private ConfigurableApplicationContext context;
+    private StockService stockService;
+    private JdbcTemplate jdbcTemplate;
+    private final AtomicLong consumedUnits = new AtomicLong();
+    private final AtomicLong threadSeeds = new AtomicLong();
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Product.class)
+    @EnableJpaRepositories(basePackageClasses = ProductRepository.class)
+    @Import(StockService.class)
+    static class StockContext {
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Sales {
+        public long consumed;
+        public long rejected;
+        SplittableRandom random;
+
+        @Setup
+        public void setUp(StockConsumeBenchmark benchmark) {
+            random = new SplittableRandom(benchmark.threadSeeds.incrementAndGet());
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(StockContext.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:stock-" + products + ";LOCK_TIMEOUT=10000",
+                     "--spring.datasource.hikari.maximum-pool-size=32",
+                     "--spring.jpa.show-sql=false",
+                     "--spring.jpa.properties.jakarta.persistence.validation.mode=none",
+                     "--logging.level.root=WARN");
+        stockService = context.getBean(StockService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        LocalDate today = LocalDate.now();
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(products);
+        for (long id = 1; id <= products; id++) {
+            String[] seeded = BenchmarkData.SEEDED_PRODUCTS[(int) (id % BenchmarkData.SEEDED_PRODUCTS.length)];
+            rows.add(new Object[]{id, seeded[0] + " " + id, seeded[1], Date.valueOf(today.plusDays(1)), 0,
+                    BigDecimal.valueOf(199 + id % 1000, 2), Product.DEFAULT_STORE, createdAt});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO products (id, name, category, expiration_date, quantity, price, store_id, "
+                                 + "created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        for (long id = 1; id <= products; id++) {
+            // Received newest first, so FEFO order differs from receiving order
+            for (int lot = LOTS_PER_PRODUCT; lot >= 1; lot--) {
+                stockService.receiveLot(id, new StockLotCreateDTO("LOT-" + id + "-" + lot, today.plusDays(lot),
+                                                                  LOT_SIZE));
+            }
+        }
+    }
+
+    @TearDown
+    public void verifyAndClose() {
+        long received = (long) products * LOTS_PER_PRODUCT * LOT_SIZE;
+        long inStock = 0;
+        for (Map<String, Object> row : jdbcTemplate.queryForList(
+                "SELECT p.id, p.quantity, COALESCE(SUM(l.quantity), 0) AS lots, COALESCE(MIN(l.quantity), 0) AS smallest "
+                + "FROM products p LEFT JOIN stock_lots l ON l.product_id = p.id GROUP BY p.id, p.quantity")) {
+            long quantity = ((Number) row.get("QUANTITY")).longValue();
+            long lots = ((Number) row.get("LOTS")).longValue();
+            long smallest = ((Number) row.get("SMALLEST")).longValue();
+            if (quantity != lots || quantity < 0 || smallest < 0) {
+                throw new IllegalStateException("Product " + row.get("ID") + " has quantity " + quantity
+                                                + ", lots totalling " + lots + ", smallest lot " + smallest);
+            }
+            inStock += quantity;
+        }
+        context.close();
+        if (inStock + consumedUnits.get() != received) {
+            throw new IllegalStateException("Lost stock: received " + received + ", consumed " + consumedUnits.get()
+                                            + ", in stock " + inStock);
+        }
+    }
+
+    @Benchmark
+    public StockConsumptionDTO consume(Sales sales) {
+        long productId = 1 + sales.random.nextInt(products);
+        int quantity = 1 + sales.random.nextInt(5);
+        try {
+            StockConsumptionDTO consumption = stockService.consume(productId, quantity);
+            consumedUnits.addAndGet(quantity);
+            sales.consumed += quantity;
+            return consumption;
+        } catch (InsufficientStockException e) {
+            sales.rejected++;
+            return null;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.expiration.benchmark;
+
+import com.expiration.entity.Product;
+import com.expiration.event.ProductChangedEvent;
+import com.expiration.repository.ProductRepository;
+import com.expiration.service.InventorySnapshot;
+import com.expiration.service.InventorySnapshotService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The scheduler's week scan over a multi-store inventory, by default 500 stores of 20k SKUs
+ * (10M rows). "globalScan" is the single query the jobs ran before inventory was partitioned
+ * by store; "partitionedScan" rebuilds every store's snapshot through
+ * {@link InventorySnapshotService#scanStores}; "singleStoreScan" rebuilds one store's.
+ * The table lives in a file-backed H2 database in a temporary directory, since 10M rows
+ * do not fit an in-memory one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class StoreScanBenchmark {
+
+    private static final int INSERT_BATCH = 10_000;
+
+    @Param({"500"})
+    int stores;
+
+    @Param({"20000"})
+    int skusPerStore;
+
+    @Param({"0"})
+    int scanThreads;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private InventorySnapshotService snapshotService;
+    private List<String> storeIds;
+    private int nextStore;
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Product.class)
+    @EnableJpaRepositories(basePackageClasses = ProductRepository.class)
+    static class RepositoryContext {
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("store-scan-benchmark");
+        context = new SpringApplicationBuilder(RepositoryContext.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:file:" + directory.resolve("products").toAbsolutePath(),
+                     "--spring.jpa.show-sql=false",
+                     "--spring.jpa.properties.jakarta.persistence.validation.mode=none",
+                     "--logging.level.root=WARN",
+                     "--logging.level.com.expiration=WARN");
+        productRepository = context.getBean(ProductRepository.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        LocalDate today = LocalDate.now();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        long rows = (long) stores * skusPerStore;
+        for (long id = 1; id <= rows; id++) {
+            String[] seeded = BenchmarkData.SEEDED_PRODUCTS[(int) (id % BenchmarkData.SEEDED_PRODUCTS.length)];
+            String storeId = storeId((int) ((id - 1) / skusPerStore));
+            batch.add(new Object[]{id, seeded[0] + " " + id, seeded[1],
+                    Date.valueOf(today.plusDays(BenchmarkData.dayOffset(id))), (int) (1 + id % 50),
+                    BigDecimal.valueOf(199 + id % 1000, 2), storeId, createdAt});
+            if (batch.size() == INSERT_BATCH || id == rows) {
+                jdbcTemplate.batchUpdate("INSERT INTO products (id, name, category, expiration_date, quantity, price, store_id, "
+                                         + "created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.execute("ANALYZE TABLE products");
+
+        snapshotService = new InventorySnapshotService(productRepository, transactionManager, scanThreads);
+        storeIds = snapshotService.getStoreIds();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        snapshotService.stop();
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    private static String storeId(int store) {
+        return String.format("store-%03d", store);
+    }
+
+    // Drop cached snapshots the way a committed change to the store does
+    private void invalidate(String storeId) {
+        snapshotService.onProductChanged(ProductChangedEvent.deleted(0L, storeId));
+    }
+
+    @Benchmark
+    public int globalScan() {
+        LocalDate weekEnd = LocalDate.now().plusDays(InventorySnapshot.WEEK_DAYS);
+        return readOnlyTransaction.execute(status -> productRepository.findProductsExpiringOnOrBefore(weekEnd).size());
+    }
+
+    @Benchmark
+    public Map<String, List<Product>> partitionedScan() {
+        storeIds.forEach(this::invalidate);
+        return snapshotService.scanStores(InventorySnapshot::getWeekProducts);
+    }
+
+    @Benchmark
+    public InventorySnapshot singleStoreScan() {
+        String storeId = storeIds.get(nextStore++ % storeIds.size());
+        invalidate(storeId);
+        return snapshotService.getSnapshot(storeId);
+    }
+}
@@ -0,0 +1,119 @@
+package com.expiration.config;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.encoder.EncoderBase;
+import org.slf4j.event.KeyValuePair;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders a log event as one line of JSON: timestamp, level, logger, message and the event's
+ * key-value pairs as top-level fields. Numbers and booleans stay unquoted, collections become
+ * arrays and maps objects; anything else is written as a string.
+ *
+ * Used behind an async appender, so the rendering runs on the appender's worker thread.
+ */
+public class AlertJsonEncoder extends EncoderBase<ILoggingEvent> {
+
+    private static final byte[] NO_BYTES = new byte[0];
+
+    @Override
+    public byte[] headerBytes() {
+        return NO_BYTES;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"timestamp\":\"").append(Instant.ofEpochMilli(event.getTimeStamp())).append('"');
+        json.append(",\"level\":");
+        appendString(json, event.getLevel().toString());
+        json.append(",\"logger\":");
+        appendString(json, event.getLoggerName());
+        json.append(",\"message\":");
+        appendString(json, event.getFormattedMessage());
+        List<KeyValuePair> pairs = event.getKeyValuePairs();
+        if (pairs != null) {
+            for (KeyValuePair pair : pairs) {
+                json.append(',');
+                appendString(json, pair.key);
+                json.append(':');
+                appendValue(json, pair.value);
+            }
+        }
+        json.append("}\n");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return NO_BYTES;
+    }
+
+    private static void appendValue(StringBuilder json, Object value) {
+        if (value == null) {
+            json.append("null");
+        } else if (value instanceof BigDecimal decimal) {
+            json.append(decimal.toPlainString());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            json.append(value);
+        } else if (value instanceof Collection<?> values) {
+            json.append('[');
+            boolean first = true;
+            for (Object element : values) {
+                if (!first) {
+                    json.append(',');
+                }
+                appendValue(json, element);
+                first = false;
+            }
+            json.append(']');
+        } else if (value instanceof Map<?, ?> entries) {
+            json.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : entries.entrySet()) {
+                if (!first) {
+                    json.append(',');
+                }
+                appendString(json, String.valueOf(entry.getKey()));
+                json.append(':');
+                appendValue(json, entry.getValue());
+                first = false;
+            }
+            json.append('}');
+        } else {
+            appendString(json, value.toString());
+        }
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+}
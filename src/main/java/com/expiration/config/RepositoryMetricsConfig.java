@@ -0,0 +1,83 @@
+package com.expiration.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Records how many rows each repository method returns ({@code repository.query.rows}).
+ * Query timings come from Spring Boot's {@code spring.data.repository.invocations} timer;
+ * this advice is added through a repository factory customizer next to it.
+ */
+@Configuration
+public class RepositoryMetricsConfig {
+
+    @Bean
+    public static BeanPostProcessor repositoryRowCountPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, information) -> proxyFactory.addAdvice(new RowCountInterceptor(
+                                    meterRegistry.getObject(), information.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    static class RowCountInterceptor implements MethodInterceptor {
+
+        private final MeterRegistry meterRegistry;
+        private final String repository;
+        private final Map<Method, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+        RowCountInterceptor(MeterRegistry meterRegistry, String repository) {
+            this.meterRegistry = meterRegistry;
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Object result = invocation.proceed();
+            if (result instanceof Collection<?> rows) {
+                summary(invocation.getMethod()).record(rows.size());
+            } else if (result instanceof Slice<?> slice) {
+                summary(invocation.getMethod()).record(slice.getNumberOfElements());
+            } else if (result instanceof Optional<?> optional) {
+                summary(invocation.getMethod()).record(optional.isPresent() ? 1 : 0);
+            } else if (result instanceof Stream<?> stream) {
+                // Streams are counted as they are consumed and recorded when closed
+                DistributionSummary summary = summary(invocation.getMethod());
+                LongAdder rows = new LongAdder();
+                return stream.peek(row -> rows.increment()).onClose(() -> summary.record(rows.sum()));
+            }
+            return result;
+        }
+
+        private DistributionSummary summary(Method method) {
+            return summaries.computeIfAbsent(method, m -> DistributionSummary.builder("repository.query.rows")
+                    .description("Rows returned per repository method call")
+                    .baseUnit("rows")
+                    .tag("repository", repository)
+                    .tag("method", m.getName())
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -1,20 +1,60 @@
 package com.expiration.controller;
 
+import com.expiration.dto.AlertHistoryQuery;
+import com.expiration.dto.BatchItemResultDTO;
+import com.expiration.dto.ExportQuery;
+import com.expiration.dto.InventorySummaryDTO;
+import com.expiration.dto.ProductBatchPatchDTO;
+import com.expiration.dto.ProductBatchUpdateDTO;
 import com.expiration.dto.ProductCreateDTO;
+import com.expiration.dto.ProductCursor;
+import com.expiration.dto.ProductPageQuery;
+import com.expiration.dto.ProductPatchDTO;
 import com.expiration.dto.ProductResponseDTO;
+import com.expiration.dto.ProductView;
 import com.expiration.dto.RecipeDTO;
+import com.expiration.dto.StockConsumeDTO;
+import com.expiration.dto.StockConsumptionDTO;
+import com.expiration.dto.StockLotCreateDTO;
+import com.expiration.dto.StockLotView;
+import com.expiration.service.AlertDeliveryService;
 import com.expiration.service.AlertService;
+import com.expiration.service.CatalogVersion;
+import com.expiration.service.ChangeFeedService;
+import com.expiration.service.DeltaAlertService;
+import com.expiration.service.ExpirationCalendarIndex;
+import com.expiration.service.ExportService;
+import com.expiration.service.InventorySnapshot;
+import com.expiration.service.InventoryImportService;
+import com.expiration.service.InventorySnapshotService;
+import com.expiration.service.ProductBatchService;
+import com.expiration.service.ProductSearchIndex;
 import com.expiration.service.ProductService;
 import com.expiration.service.RecipeService;
+import com.expiration.service.StockService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api")
@@ -22,31 +62,201 @@ import java.util.Map;
 public class ProductController {
     
     private final ProductService productService;
+    private final ProductBatchService productBatchService;
+    private final StockService stockService;
     private final RecipeService recipeService;
     private final AlertService alertService;
+    private final AlertDeliveryService alertDeliveryService;
+    private final DeltaAlertService deltaAlertService;
+    private final ExpirationCalendarIndex expirationIndex;
+    private final ProductSearchIndex searchIndex;
+    private final InventorySnapshotService snapshotService;
+    private final ChangeFeedService changeFeedService;
+    private final CatalogVersion catalogVersion;
+    private final ExportService exportService;
+    private final InventoryImportService inventoryImportService;
+    private final ObjectMapper objectMapper;
     
     @Autowired
-    public ProductController(ProductService productService, RecipeService recipeService, AlertService alertService) {
+    public ProductController(ProductService productService, ProductBatchService productBatchService,
+                             StockService stockService,
+                             RecipeService recipeService, AlertService alertService,
+                             AlertDeliveryService alertDeliveryService, DeltaAlertService deltaAlertService, ExpirationCalendarIndex expirationIndex,
+                             ProductSearchIndex searchIndex, InventorySnapshotService snapshotService,
+                             ChangeFeedService changeFeedService, CatalogVersion catalogVersion, ExportService exportService,
+                             InventoryImportService inventoryImportService, ObjectMapper objectMapper) {
         this.productService = productService;
+        this.productBatchService = productBatchService;
+        this.stockService = stockService;
         this.recipeService = recipeService;
         this.alertService = alertService;
+        this.alertDeliveryService = alertDeliveryService;
+        this.deltaAlertService = deltaAlertService;
+        this.expirationIndex = expirationIndex;
+        this.searchIndex = searchIndex;
+        this.snapshotService = snapshotService;
+        this.changeFeedService = changeFeedService;
+        this.catalogVersion = catalogVersion;
+        this.exportService = exportService;
+        this.inventoryImportService = inventoryImportService;
+        this.objectMapper = objectMapper;
     }
     
     /**
-     * Get all products
+     * Get all products; 304 when the catalog has not changed since the client's copy
      */
     @GetMapping("/products")
-    public ResponseEntity<Map<String, Object>> getAllProducts() {
-        List<ProductResponseDTO> products = productService.getAllProducts();
+    public ResponseEntity<Map<String, Object>> getAllProducts(@RequestParam(required = false) String storeId,
+                                                              WebRequest request) {
+        if (isNotModified(request, catalogVersion.products())) {
+            return null;
+        }
+        List<ProductView> products = productService.getAllProducts(storeId);
         
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
         response.put("data", products);
         response.put("count", products.size());
         
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(response);
+    }
+    
+    /**
+     * Get one keyset page of products in expiration order.
+     * The page is streamed straight from the database and carries a nextCursor to follow.
+     */
+    @GetMapping(value = "/products", params = "limit")
+    public ResponseEntity<StreamingResponseBody> getProductPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String storeId,
+            WebRequest request) {
+        
+        ProductPageQuery query = ProductPageQuery.of(cursor, limit, category, status, storeId);
+        if (isNotModified(request, catalogVersion.products())) {
+            return null;
+        }
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                int[] count = {0};
+                generator.writeStartObject();
+                generator.writeBooleanField("success", true);
+                generator.writeArrayFieldStart("data");
+                ProductCursor next = productService.streamProducts(query, product -> {
+                    try {
+                        generator.writeObject(product);
+                        count[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+                generator.writeNumberField("count", count[0]);
+                generator.writeStringField("nextCursor", next != null ? next.encode() : null);
+                generator.writeEndObject();
+            }
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
+    
+    /**
+     * Export every product matching the filters as CSV or NDJSON, streamed in expiration order
+     */
+    @GetMapping("/export/products")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) String expiresFrom,
+            @RequestParam(required = false) String expiresTo,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String storeId) {
+        
+        ExportQuery query = ExportQuery.products(format, expiresFrom, expiresTo, category, storeId);
+        return export("products", query, out -> exportService.exportProducts(query, out));
+    }
+    
+    /**
+     * Export one row per alerted product as CSV or NDJSON, oldest alert first.
+     * from/to and type select alerts as for the history; the product filters select rows within them.
+     */
+    @GetMapping("/export/alerts")
+    public ResponseEntity<StreamingResponseBody> exportAlerts(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String expiresFrom,
+            @RequestParam(required = false) String expiresTo,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String storeId) {
+        
+        ExportQuery query = ExportQuery.alerts(format, expiresFrom, expiresTo, category, storeId, from, to, type);
+        return export("alerts", query, out -> exportService.exportAlerts(query, out));
+    }
+    
+    private static ResponseEntity<StreamingResponseBody> export(String name, ExportQuery query, StreamingResponseBody body) {
+        String filename = name + "-" + LocalDate.now() + "." + query.getFormat().getExtension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(query.getFormat().getMediaType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .cacheControl(CacheControl.noStore())
+                .body(body);
+    }
+    
+    /**
+     * Upload a CSV inventory file (header: name,category,expirationDate,quantity,price[,storeId])
+     * and import it in the background; poll the returned job for progress
+     */
+    @PostMapping(value = "/imports", consumes = {"text/csv", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<Map<String, Object>> startImport(InputStream csv) throws IOException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", inventoryImportService.startImport(csv));
+        
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+    
+    /**
+     * Progress of an import: lines, imported and rejected rows, chunks and rows per second
+     */
+    @GetMapping("/imports/{id}")
+    public ResponseEntity<Map<String, Object>> getImport(@PathVariable String id) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", inventoryImportService.getStatus(id));
+        
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Restart an import that failed or was interrupted; committed chunks are skipped
+     */
+    @PostMapping("/imports/{id}/resume")
+    public ResponseEntity<Map<String, Object>> resumeImport(@PathVariable String id) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", inventoryImportService.resumeImport(id));
+        
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+    
+    /**
+     * Rejected lines of an import as CSV (line, field, message), in line order
+     */
+    @GetMapping("/imports/{id}/errors")
+    public ResponseEntity<StreamingResponseBody> getImportErrors(@PathVariable String id) {
+        inventoryImportService.getStatus(id);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv;charset=UTF-8"))
+                .cacheControl(CacheControl.noStore())
+                .body(out -> inventoryImportService.writeErrorReport(id, out));
+    }
+    
     /**
      * Get product by ID
      */
@@ -94,6 +304,23 @@ public class ProductController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Partially update a product: only the fields present change. With a version, 409 when the
+     * product has changed since.
+     */
+    @PatchMapping("/products/{id}")
+    public ResponseEntity<Map<String, Object>> patchProduct(@PathVariable Long id,
+                                                            @Valid @RequestBody ProductPatchDTO patchDTO) {
+        ProductResponseDTO patchedProduct = productService.patchProduct(id, patchDTO);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", patchedProduct);
+        response.put("message", "Product updated successfully");
+        
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Delete product
      */
@@ -109,11 +336,123 @@ public class ProductController {
     }
     
     /**
-     * Search products by name
+     * Stock lots of a product, first-expiring first
+     */
+    @GetMapping("/products/{id}/lots")
+    public ResponseEntity<Map<String, Object>> getStockLots(@PathVariable Long id) {
+        List<StockLotView> lots = stockService.getLots(id);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", lots);
+        response.put("count", lots.size());
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Receive a lot into a product's stock
+     */
+    @PostMapping("/products/{id}/lots")
+    public ResponseEntity<Map<String, Object>> receiveStockLot(@PathVariable Long id,
+                                                               @Valid @RequestBody StockLotCreateDTO lotCreateDTO) {
+        StockLotView lot = stockService.receiveLot(id, lotCreateDTO);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", lot);
+        response.put("message", "Lot received successfully");
+        
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+    
+    /**
+     * Take units of a product from its lots, first-expiring first; 409 when it does not hold enough
+     */
+    @PostMapping("/products/{id}/consume")
+    public ResponseEntity<Map<String, Object>> consumeStock(@PathVariable Long id,
+                                                            @Valid @RequestBody StockConsumeDTO consumeDTO) {
+        StockConsumptionDTO consumption = stockService.consume(id, consumeDTO.getQuantity());
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", consumption);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Create products in bulk
+     */
+    @PostMapping("/products/batch")
+    public ResponseEntity<Map<String, Object>> createProducts(@RequestBody List<ProductCreateDTO> products) {
+        return batchResponse(productBatchService.createProducts(products));
+    }
+    
+    /**
+     * Update products in bulk
+     */
+    @PutMapping("/products/batch")
+    public ResponseEntity<Map<String, Object>> updateProducts(@RequestBody List<ProductBatchUpdateDTO> products) {
+        return batchResponse(productBatchService.updateProducts(products));
+    }
+    
+    /**
+     * Partially update products in bulk
+     */
+    @PatchMapping("/products/batch")
+    public ResponseEntity<Map<String, Object>> patchProducts(@RequestBody List<ProductBatchPatchDTO> products) {
+        return batchResponse(productBatchService.patchProducts(products));
+    }
+    
+    /**
+     * Delete products in bulk
+     */
+    @DeleteMapping("/products/batch")
+    public ResponseEntity<Map<String, Object>> deleteProducts(@RequestBody List<Long> ids) {
+        return batchResponse(productBatchService.deleteProducts(ids));
+    }
+    
+    private ResponseEntity<Map<String, Object>> batchResponse(List<BatchItemResultDTO> results) {
+        long succeeded = results.stream().filter(BatchItemResultDTO::isSuccess).count();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", results);
+        response.put("count", results.size());
+        response.put("succeeded", succeeded);
+        response.put("failed", results.size() - succeeded);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Get dashboard totals per category and expiry status
+     */
+    @GetMapping("/products/summary")
+    public ResponseEntity<Map<String, Object>> getProductSummary(@RequestParam(required = false) String storeId,
+                                                                 WebRequest request) {
+        if (isNotModified(request, catalogVersion.products())) {
+            return null;
+        }
+        InventorySummaryDTO summary = productService.getInventorySummary(storeId);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", summary);
+        response.put("count", summary.getTotal().getProducts());
+        
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(response);
+    }
+    
+    /**
+     * Search products by name, best matches first; tolerates typos and a partly typed last word
      */
     @GetMapping("/products/search")
-    public ResponseEntity<Map<String, Object>> searchProducts(@RequestParam String name) {
-        List<ProductResponseDTO> products = productService.searchProductsByName(name);
+    public ResponseEntity<Map<String, Object>> searchProducts(@RequestParam String name,
+                                                              @RequestParam(required = false) String storeId,
+                                                              @RequestParam(defaultValue = "50") int limit) {
+        List<ProductView> products = productService.searchProductsByName(name, storeId, limit);
         
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -124,12 +463,35 @@ public class ProductController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Product name suggestions for a partly typed query, served from the search index without a database read
+     */
+    @GetMapping("/products/autocomplete")
+    public ResponseEntity<Map<String, Object>> autocompleteProducts(@RequestParam String prefix,
+                                                                    @RequestParam(required = false) String storeId,
+                                                                    @RequestParam(defaultValue = "10") int limit) {
+        List<ProductSearchIndex.Hit> suggestions = productService.suggestProducts(prefix, storeId, limit);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", suggestions);
+        response.put("count", suggestions.size());
+        response.put("query", prefix);
+        
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Get products expiring within specified days
      */
     @GetMapping("/products/expiring-in-days/{days}")
-    public ResponseEntity<Map<String, Object>> getProductsExpiringInDays(@PathVariable int days) {
-        List<ProductResponseDTO> products = productService.getProductsExpiringWithinDaysAsDTO(days);
+    public ResponseEntity<Map<String, Object>> getProductsExpiringInDays(@PathVariable int days,
+                                                                         @RequestParam(required = false) String storeId,
+                                                                         WebRequest request) {
+        if (isNotModified(request, catalogVersion.products())) {
+            return null;
+        }
+        List<ProductView> products = productService.getProductsExpiringWithinDays(days, storeId);
         
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -137,18 +499,19 @@ public class ProductController {
         response.put("count", products.size());
         response.put("message", String.format("Products expiring within %d day(s)", days));
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(response);
     }
     
     /**
      * Get products expiring tomorrow
      */
     @GetMapping("/products/expiring-tomorrow")
-    public ResponseEntity<Map<String, Object>> getProductsExpiringTomorrow() {
-        List<ProductResponseDTO> products = productService.getProductsExpiringTomorrow()
-                .stream()
-                .map(ProductResponseDTO::new)
-                .toList();
+    public ResponseEntity<Map<String, Object>> getProductsExpiringTomorrow(@RequestParam(required = false) String storeId,
+                                                                           WebRequest request) {
+        if (isNotModified(request, catalogVersion.products())) {
+            return null;
+        }
+        List<ProductView> products = productService.getProductsExpiringTomorrow(storeId);
         
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -156,14 +519,20 @@ public class ProductController {
         response.put("count", products.size());
         response.put("message", "Products expiring tomorrow");
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(response);
     }
     
     /**
-     * Get recipe suggestions for a product
+     * Get recipe suggestions for a product.
+     * Suggestions only depend on the name and the recipe templates, so they are cacheable for a day
+     * and revalidate against the recipe database version.
      */
     @GetMapping("/recipes/{productName}")
-    public ResponseEntity<Map<String, Object>> getRecipesForProduct(@PathVariable String productName) {
+    public ResponseEntity<Map<String, Object>> getRecipesForProduct(@PathVariable String productName,
+                                                                    WebRequest request) {
+        if (request.checkNotModified("r-" + recipeService.getDatabaseVersion())) {
+            return null;
+        }
         List<RecipeDTO> recipes = recipeService.getRecipesForProduct(productName);
         
         Map<String, Object> response = new HashMap<>();
@@ -172,24 +541,32 @@ public class ProductController {
         response.put("count", recipes.size());
         response.put("product", productName);
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().cacheControl(CacheControl.maxAge(1, TimeUnit.DAYS).cachePublic()).body(response);
     }
     
     /**
-     * Get alert history
+     * Get the most recent alerts, optionally within [from, to) and of one type, oldest first
      */
     @GetMapping("/alerts/history")
     public ResponseEntity<Map<String, Object>> getAlertHistory(
-            @RequestParam(defaultValue = "10") int limit) {
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String type,
+            WebRequest request) {
         
-        var history = alertService.getAlertHistory(limit);
+        AlertHistoryQuery query = AlertHistoryQuery.of(limit, from, to, type);
+        if (isNotModified(request, catalogVersion.alerts())) {
+            return null;
+        }
+        var history = alertService.getAlertHistory(query);
         
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
         response.put("data", history);
         response.put("count", history.size());
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(response);
     }
     
     /**
@@ -203,40 +580,144 @@ public class ProductController {
         response.put("success", true);
         response.put("data", Map.of(
                 "totalAlerts", stats.getTotalAlerts(),
-                "totalValueAtRisk", stats.getTotalValueAtRisk()
+                "totalValueAtRisk", stats.getTotalValueAtRisk(),
+                "byType", stats.getByType(),
+                "lastHour", stats.getLastHour(),
+                "last24Hours", stats.getLast24Hours()
         ));
         
         return ResponseEntity.ok(response);
     }
     
     /**
-     * Trigger manual alert check
+     * Trigger manual alert check of one store, or of every store in parallel
      */
     @PostMapping("/alerts/check")
-    public ResponseEntity<Map<String, Object>> triggerManualAlertCheck() {
-        var tomorrowProducts = productService.getProductsExpiringTomorrow();
-        var weekProducts = productService.getProductsExpiringWithinDays(7);
+    public ResponseEntity<Map<String, Object>> triggerManualAlertCheck(@RequestParam(required = false) String storeId) {
+        Map<String, Integer> alertsByStore = storeId != null
+                ? Map.of(storeId, raiseAlerts(snapshotService.getSnapshot(storeId)))
+                : snapshotService.scanStores(this::raiseAlerts);
+        int totalAlerts = alertsByStore.values().stream().mapToInt(Integer::intValue).sum();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Manual alert check completed");
+        response.put("totalAlerts", totalAlerts);
+        response.put("data", alertsByStore);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    private int raiseAlerts(InventorySnapshot snapshot) {
+        var tomorrowProducts = snapshot.getTomorrowProducts();
+        var weekProducts = snapshot.getSevenDayAlertProducts();
         
-        int totalAlerts = 0;
+        int alerts = 0;
         
         if (!tomorrowProducts.isEmpty()) {
-            alertService.sendExpirationAlert(tomorrowProducts, "TOMORROW");
-            totalAlerts++;
+            alertService.sendExpirationAlert(snapshot.getStoreId(), tomorrowProducts, "TOMORROW");
+            alerts++;
         }
         
         if (!weekProducts.isEmpty()) {
-            alertService.sendExpirationAlert(weekProducts, "SEVEN_DAYS");
-            totalAlerts++;
+            alertService.sendExpirationAlert(snapshot.getStoreId(), weekProducts, "SEVEN_DAYS");
+            alerts++;
         }
+        return alerts;
+    }
+    
+    /**
+     * Stores with products
+     */
+    @GetMapping("/stores")
+    public ResponseEntity<Map<String, Object>> getStores() {
+        List<String> stores = snapshotService.getStoreIds();
         
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
-        response.put("message", "Manual alert check completed");
-        response.put("totalAlerts", totalAlerts);
+        response.put("data", stores);
+        response.put("count", stores.size());
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Delta alerting metrics: products evaluated versus alerted
+     */
+    @GetMapping("/alerts/delta")
+    public ResponseEntity<Map<String, Object>> getDeltaAlertMetrics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", deltaAlertService.getMetrics());
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Re-evaluate every product expiring this week against the alert watermarks
+     */
+    @PostMapping("/alerts/delta/reconcile")
+    public ResponseEntity<Map<String, Object>> reconcileDeltaAlerts() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", deltaAlertService.runFullReconcile());
+        response.put("message", "Full alert reconcile completed");
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Email delivery pipeline metrics
+     */
+    @GetMapping("/alerts/delivery")
+    public ResponseEntity<Map<String, Object>> getAlertDeliveryMetrics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", alertDeliveryService.getMetrics());
         
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Alert digests that exhausted their delivery attempts
+     */
+    @GetMapping("/alerts/delivery/dead-letters")
+    public ResponseEntity<Map<String, Object>> getDeadLetters() {
+        var deadLetters = alertDeliveryService.getDeadLetters();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", deadLetters);
+        response.put("count", deadLetters.size());
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Queue dead-lettered alerts for delivery again
+     */
+    @PostMapping("/alerts/delivery/dead-letters/retry")
+    public ResponseEntity<Map<String, Object>> retryDeadLetters() {
+        int requeued = alertDeliveryService.retryDeadLetters();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("count", requeued);
+        response.put("message", requeued + " alert(s) queued for delivery");
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Server-sent event stream of product changes and new alerts; 503 when the connection limit is reached
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges() {
+        return changeFeedService.subscribe()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+    
     /**
      * Health check endpoint
      */
@@ -249,4 +730,80 @@ public class ProductController {
         
         return ResponseEntity.ok(response);
     }
+    
+    /**
+     * Hit and miss counts of the product entity and list result caches
+     */
+    @GetMapping("/cache/products")
+    public ResponseEntity<Map<String, Object>> getProductCacheMetrics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", productService.getCacheMetrics());
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Verify the expiration calendar index against the products table
+     */
+    @GetMapping("/index/expiration/verify")
+    public ResponseEntity<Map<String, Object>> verifyExpirationIndex() {
+        ExpirationCalendarIndex.VerificationReport report = expirationIndex.verify();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", report);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Rebuild the expiration calendar index from the products table
+     */
+    @PostMapping("/index/expiration/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildExpirationIndex() {
+        int indexedProducts = expirationIndex.rebuild();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Expiration index rebuilt");
+        response.put("indexedProducts", indexedProducts);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Size of the product search index
+     */
+    @GetMapping("/index/search")
+    public ResponseEntity<Map<String, Object>> getSearchIndexStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", searchIndex.getStats());
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Rebuild the product search index from the products table
+     */
+    @PostMapping("/index/search/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildSearchIndex() {
+        int indexedProducts = searchIndex.rebuild();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Search index rebuilt");
+        response.put("indexedProducts", indexedProducts);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Answers 304 for a matching If-None-Match or If-Modified-Since before any query runs;
+     * otherwise adds the ETag and Last-Modified headers to the response
+     */
+    private static boolean isNotModified(WebRequest request, CatalogVersion.Stamp stamp) {
+        return request.checkNotModified(stamp.eTag(), stamp.lastModified());
+    }
 }
\ No newline at end of file
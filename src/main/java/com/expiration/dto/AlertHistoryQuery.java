@@ -0,0 +1,79 @@
+package com.expiration.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Validated parameters for an alert history read: the {@code limit} most recent alerts
+ * raised at or after {@code from} and before {@code to}, optionally of one alert type.
+ * Dates without a time cover whole days, so {@code to=2024-01-31} includes that day.
+ */
+public final class AlertHistoryQuery {
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 100;
+
+    private final int limit;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final String type;
+
+    private AlertHistoryQuery(int limit, LocalDateTime from, LocalDateTime to, String type) {
+        this.limit = limit;
+        this.from = from;
+        this.to = to;
+        this.type = type;
+    }
+
+    public static AlertHistoryQuery latest(int limit) {
+        return of(limit, null, null, null);
+    }
+
+    public static AlertHistoryQuery of(Integer limit, String from, String to, String type) {
+        int size = limit != null ? limit : DEFAULT_LIMIT;
+        if (size < 1 || size > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        LocalDateTime fromTime = parse("from", from, false);
+        LocalDateTime toTime = parse("to", to, true);
+        if (fromTime != null && toTime != null && !fromTime.isBefore(toTime)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        String typeFilter = type != null && !type.isBlank() ? type.trim().toUpperCase() : null;
+        return new AlertHistoryQuery(size, fromTime, toTime, typeFilter);
+    }
+
+    private static LocalDateTime parse(String name, String value, boolean endOfDay) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            if (value.length() == 10) {
+                LocalDate date = LocalDate.parse(value);
+                return endOfDay ? date.plusDays(1).atStartOfDay() : date.atStartOfDay();
+            }
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("'" + name + "' must be an ISO date or date-time: " + value);
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /** Inclusive lower bound, or null */
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    /** Exclusive upper bound, or null */
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public String getType() {
+        return type;
+    }
+}
@@ -0,0 +1,75 @@
+package com.expiration.dto;
+
+import java.util.Map;
+
+public class BatchItemResultDTO {
+    private int index;
+    private Long id;
+    private boolean success;
+    private String error;
+    private Map<String, String> validationErrors;
+    
+    // Constructors
+    public BatchItemResultDTO() {}
+    
+    public BatchItemResultDTO(int index, Long id, boolean success, String error, Map<String, String> validationErrors) {
+        this.index = index;
+        this.id = id;
+        this.success = success;
+        this.error = error;
+        this.validationErrors = validationErrors;
+    }
+    
+    public static BatchItemResultDTO succeeded(int index, Long id) {
+        return new BatchItemResultDTO(index, id, true, null, null);
+    }
+    
+    public static BatchItemResultDTO failed(int index, Long id, String error) {
+        return new BatchItemResultDTO(index, id, false, error, null);
+    }
+    
+    public static BatchItemResultDTO invalid(int index, Long id, Map<String, String> validationErrors) {
+        return new BatchItemResultDTO(index, id, false, "Validation failed", validationErrors);
+    }
+    
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+    
+    public void setIndex(int index) {
+        this.index = index;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public boolean isSuccess() {
+        return success;
+    }
+    
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+    
+    public Map<String, String> getValidationErrors() {
+        return validationErrors;
+    }
+    
+    public void setValidationErrors(Map<String, String> validationErrors) {
+        this.validationErrors = validationErrors;
+    }
+}
@@ -6,18 +6,26 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 public class ExpirationAlertDTO {
+    private String storeId;
     private String alertType;
     private LocalDateTime timestamp;
     private List<ProductAlertInfo> products;
     private List<RecipeDTO> suggestedRecipes;
     private BigDecimal totalValueAtRisk;
     private String message;
+    private List<PartitionSummary> partitions;
     
     // Constructors
     public ExpirationAlertDTO() {}
     
     public ExpirationAlertDTO(String alertType, List<ProductAlertInfo> products, 
                              List<RecipeDTO> suggestedRecipes, BigDecimal totalValueAtRisk) {
+        this(null, alertType, products, suggestedRecipes, totalValueAtRisk);
+    }
+    
+    public ExpirationAlertDTO(String storeId, String alertType, List<ProductAlertInfo> products,
+                             List<RecipeDTO> suggestedRecipes, BigDecimal totalValueAtRisk) {
+        this.storeId = storeId;
         this.alertType = alertType;
         this.timestamp = LocalDateTime.now();
         this.products = products;
@@ -28,14 +36,15 @@ public class ExpirationAlertDTO {
     
     private String generateMessage() {
         int productCount = products != null ? products.size() : 0;
+        String store = storeId != null ? " at store " + storeId : "";
         if ("TOMORROW".equals(alertType)) {
-            return String.format("🚨 URGENT: %d product(s) expiring tomorrow! Total value at risk: $%.2f", 
-                                productCount, totalValueAtRisk);
+            return String.format("🚨 URGENT: %d product(s) expiring tomorrow%s! Total value at risk: $%.2f", 
+                                productCount, store, totalValueAtRisk);
         } else if ("SEVEN_DAYS".equals(alertType)) {
-            return String.format("⚠️ WARNING: %d product(s) expiring within 7 days. Total value at risk: $%.2f", 
-                                productCount, totalValueAtRisk);
+            return String.format("⚠️ WARNING: %d product(s) expiring within 7 days%s. Total value at risk: $%.2f", 
+                                productCount, store, totalValueAtRisk);
         }
-        return String.format("📦 %d product(s) require attention", productCount);
+        return String.format("📦 %d product(s) require attention%s", productCount, store);
     }
     
     // Inner class for product alert information
@@ -78,7 +87,43 @@ public class ExpirationAlertDTO {
         public void setDaysUntilExpiration(Long daysUntilExpiration) { this.daysUntilExpiration = daysUntilExpiration; }
     }
     
+    // Inner class for the per-category share of an alert
+    public static class PartitionSummary {
+        private String category;
+        private Integer productCount;
+        private BigDecimal totalValueAtRisk;
+        private List<RecipeDTO> suggestedRecipes;
+        
+        public PartitionSummary() {}
+        
+        public PartitionSummary(String category, Integer productCount, BigDecimal totalValueAtRisk,
+                                List<RecipeDTO> suggestedRecipes) {
+            this.category = category;
+            this.productCount = productCount;
+            this.totalValueAtRisk = totalValueAtRisk;
+            this.suggestedRecipes = suggestedRecipes;
+        }
+        
+        // Getters and Setters
+        public String getCategory() { return category; }
+        public void setCategory(String category) { this.category = category; }
+        public Integer getProductCount() { return productCount; }
+        public void setProductCount(Integer productCount) { this.productCount = productCount; }
+        public BigDecimal getTotalValueAtRisk() { return totalValueAtRisk; }
+        public void setTotalValueAtRisk(BigDecimal totalValueAtRisk) { this.totalValueAtRisk = totalValueAtRisk; }
+        public List<RecipeDTO> getSuggestedRecipes() { return suggestedRecipes; }
+        public void setSuggestedRecipes(List<RecipeDTO> suggestedRecipes) { this.suggestedRecipes = suggestedRecipes; }
+    }
+    
     // Getters and Setters
+    public String getStoreId() {
+        return storeId;
+    }
+    
+    public void setStoreId(String storeId) {
+        this.storeId = storeId;
+    }
+    
     public String getAlertType() {
         return alertType;
     }
@@ -126,4 +171,12 @@ public class ExpirationAlertDTO {
     public void setMessage(String message) {
         this.message = message;
     }
+    
+    public List<PartitionSummary> getPartitions() {
+        return partitions;
+    }
+    
+    public void setPartitions(List<PartitionSummary> partitions) {
+        this.partitions = partitions;
+    }
 }
\ No newline at end of file
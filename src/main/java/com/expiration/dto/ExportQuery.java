@@ -0,0 +1,140 @@
+package com.expiration.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Validated parameters for a streamed product or alert export. Products are filtered on
+ * expiry range, category and store; alerts additionally on when they were raised and their
+ * type, and are exported one row per alerted product so the same product filters apply.
+ */
+public final class ExportQuery {
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private final Format format;
+    private final LocalDate expiresFrom;
+    private final LocalDate expiresTo;
+    private final String category;
+    private final String storeId;
+    private final LocalDateTime raisedFrom;
+    private final LocalDateTime raisedTo;
+    private final String type;
+
+    private ExportQuery(Format format, LocalDate expiresFrom, LocalDate expiresTo, String category, String storeId,
+                        LocalDateTime raisedFrom, LocalDateTime raisedTo, String type) {
+        this.format = format;
+        this.expiresFrom = expiresFrom;
+        this.expiresTo = expiresTo;
+        this.category = category;
+        this.storeId = storeId;
+        this.raisedFrom = raisedFrom;
+        this.raisedTo = raisedTo;
+        this.type = type;
+    }
+
+    public static ExportQuery products(String format, String expiresFrom, String expiresTo, String category,
+                                       String storeId) {
+        return alerts(format, expiresFrom, expiresTo, category, storeId, null, null, null);
+    }
+
+    public static ExportQuery alerts(String format, String expiresFrom, String expiresTo, String category,
+                                     String storeId, String from, String to, String type) {
+        Format exportFormat;
+        try {
+            exportFormat = format != null && !format.isBlank() ? Format.valueOf(format.trim().toUpperCase()) : Format.CSV;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Format must be csv or ndjson: " + format);
+        }
+
+        LocalDate fromDate = parseDate("expiresFrom", expiresFrom, ProductPageQuery.MIN_DATE);
+        LocalDate toDate = parseDate("expiresTo", expiresTo, ProductPageQuery.MAX_DATE);
+        if (fromDate.isAfter(toDate)) {
+            throw new IllegalArgumentException("'expiresFrom' must not be after 'expiresTo'");
+        }
+
+        // Raised-at bounds follow the alert history endpoint: whole days, 'to' inclusive
+        AlertHistoryQuery window = AlertHistoryQuery.of(null, from, to, type);
+
+        String categoryFilter = category != null && !category.isBlank() ? category : null;
+        String storeFilter = storeId != null && !storeId.isBlank() ? storeId : null;
+        return new ExportQuery(exportFormat, fromDate, toDate, categoryFilter, storeFilter,
+                               window.getFrom(), window.getTo(), window.getType());
+    }
+
+    private static LocalDate parseDate(String name, String value, LocalDate unbounded) {
+        if (value == null || value.isBlank()) {
+            return unbounded;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("'" + name + "' must be an ISO date: " + value);
+        }
+    }
+
+    /**
+     * Whether an alerted product passes the expiry, category and store filters
+     */
+    public boolean matches(String productStoreId, String productCategory, LocalDate expirationDate) {
+        return (storeId == null || storeId.equals(productStoreId))
+                && (category == null || category.equals(productCategory))
+                && expirationDate != null && !expirationDate.isBefore(expiresFrom) && !expirationDate.isAfter(expiresTo);
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /** Inclusive */
+    public LocalDate getExpiresFrom() {
+        return expiresFrom;
+    }
+
+    /** Inclusive */
+    public LocalDate getExpiresTo() {
+        return expiresTo;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getStoreId() {
+        return storeId;
+    }
+
+    /** Inclusive lower bound, or null */
+    public LocalDateTime getRaisedFrom() {
+        return raisedFrom;
+    }
+
+    /** Exclusive upper bound, or null */
+    public LocalDateTime getRaisedTo() {
+        return raisedTo;
+    }
+
+    public String getType() {
+        return type;
+    }
+}
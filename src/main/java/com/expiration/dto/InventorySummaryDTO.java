@@ -0,0 +1,103 @@
+package com.expiration.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dashboard totals per expiry status, overall and per category.
+ * Every status is always present, so the payload only grows with the number of categories.
+ */
+public class InventorySummaryDTO {
+
+    /** Statuses in display order, as computed by {@link ProductResponseDTO} */
+    public static final List<String> STATUSES =
+            List.of("EXPIRED", "EXPIRES_TODAY", "EXPIRES_TOMORROW", "EXPIRES_THIS_WEEK", "GOOD");
+
+    private LocalDate date;
+    private StatusTotals total = new StatusTotals();
+    private Map<String, StatusTotals> byStatus = emptyByStatus();
+    private Map<String, Map<String, StatusTotals>> byCategory = new LinkedHashMap<>();
+
+    // Constructors
+    public InventorySummaryDTO() {}
+
+    public InventorySummaryDTO(LocalDate date) {
+        this.date = date;
+    }
+
+    /**
+     * Add one (category, status) group
+     */
+    public void add(String category, String status, long products, long quantity, BigDecimal value) {
+        total.add(products, quantity, value);
+        byStatus.get(status).add(products, quantity, value);
+        byCategory.computeIfAbsent(category, c -> emptyByStatus()).get(status).add(products, quantity, value);
+    }
+
+    private static Map<String, StatusTotals> emptyByStatus() {
+        Map<String, StatusTotals> totals = new LinkedHashMap<>();
+        for (String status : STATUSES) {
+            totals.put(status, new StatusTotals());
+        }
+        return totals;
+    }
+
+    // Getters and Setters
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public StatusTotals getTotal() {
+        return total;
+    }
+
+    public void setTotal(StatusTotals total) {
+        this.total = total;
+    }
+
+    public Map<String, StatusTotals> getByStatus() {
+        return byStatus;
+    }
+
+    public void setByStatus(Map<String, StatusTotals> byStatus) {
+        this.byStatus = byStatus;
+    }
+
+    public Map<String, Map<String, StatusTotals>> getByCategory() {
+        return byCategory;
+    }
+
+    public void setByCategory(Map<String, Map<String, StatusTotals>> byCategory) {
+        this.byCategory = byCategory;
+    }
+
+    // Inner class for product count, units and value of one group
+    public static class StatusTotals {
+        private long products;
+        private long quantity;
+        private BigDecimal value = BigDecimal.ZERO;
+
+        public StatusTotals() {}
+
+        void add(long products, long quantity, BigDecimal value) {
+            this.products += products;
+            this.quantity += quantity;
+            this.value = this.value.add(value);
+        }
+
+        // Getters and Setters
+        public long getProducts() { return products; }
+        public void setProducts(long products) { this.products = products; }
+        public long getQuantity() { return quantity; }
+        public void setQuantity(long quantity) { this.quantity = quantity; }
+        public BigDecimal getValue() { return value; }
+        public void setValue(BigDecimal value) { this.value = value; }
+    }
+}
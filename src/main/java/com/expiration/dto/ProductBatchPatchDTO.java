@@ -0,0 +1,21 @@
+package com.expiration.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+public class ProductBatchPatchDTO extends ProductPatchDTO {
+    
+    @NotNull(message = "Product id is required")
+    private Long id;
+    
+    // Constructors
+    public ProductBatchPatchDTO() {}
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+}
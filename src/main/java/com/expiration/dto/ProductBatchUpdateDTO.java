@@ -0,0 +1,29 @@
+package com.expiration.dto;
+
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class ProductBatchUpdateDTO extends ProductCreateDTO {
+    
+    @NotNull(message = "Product id is required")
+    private Long id;
+    
+    // Constructors
+    public ProductBatchUpdateDTO() {}
+    
+    public ProductBatchUpdateDTO(Long id, String name, String category, LocalDate expirationDate,
+                                 Integer quantity, BigDecimal price) {
+        super(name, category, expirationDate, quantity, price);
+        this.id = id;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+}
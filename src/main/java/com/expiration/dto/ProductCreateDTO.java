@@ -26,6 +26,10 @@ public class ProductCreateDTO {
     @Digits(integer = 8, fraction = 2, message = "Price must have at most 8 integer digits and 2 decimal places")
     private BigDecimal price;
     
+    // Optional; new products without one go to the default store, updates without one keep theirs
+    @Size(min = 1, max = 32, message = "Store must be between 1 and 32 characters")
+    private String storeId;
+    
     // Constructors
     public ProductCreateDTO() {}
     
@@ -77,4 +81,12 @@ public class ProductCreateDTO {
     public void setPrice(BigDecimal price) {
         this.price = price;
     }
+    
+    public String getStoreId() {
+        return storeId;
+    }
+    
+    public void setStoreId(String storeId) {
+        this.storeId = storeId;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.expiration.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position in the (expirationDate, id) ordering of products.
+ * Encoded as URL-safe Base64 so clients treat it as a token, not a query.
+ */
+public final class ProductCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private final LocalDate expirationDate;
+    private final Long id;
+
+    public ProductCursor(LocalDate expirationDate, Long id) {
+        this.expirationDate = expirationDate;
+        this.id = id;
+    }
+
+    /**
+     * Decode a cursor previously returned as nextCursor
+     */
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            return new ProductCursor(LocalDate.parse(raw.substring(0, separator)),
+                                     Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    public String encode() {
+        String raw = expirationDate.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDate getExpirationDate() {
+        return expirationDate;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,96 @@
+package com.expiration.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Validated parameters for a keyset-paginated product listing.
+ * The status filter is resolved to an expiration date range relative to today,
+ * using the same buckets as {@link ProductResponseDTO#getStatus()}. A store filter
+ * keeps the scan inside that store's range of the store index.
+ */
+public final class ProductPageQuery {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    /** Bounds used when a status filter does not restrict one side of the range */
+    public static final LocalDate MIN_DATE = LocalDate.of(1, 1, 1);
+    public static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    private final ProductCursor after;
+    private final int limit;
+    private final String category;
+    private final String storeId;
+    private final LocalDate fromDate;
+    private final LocalDate toDate;
+
+    private ProductPageQuery(ProductCursor after, int limit, String category, String storeId, LocalDate fromDate,
+                             LocalDate toDate) {
+        this.after = after;
+        this.limit = limit;
+        this.category = category;
+        this.storeId = storeId;
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+    }
+
+    public static ProductPageQuery of(String cursor, Integer limit, String category, String status, String storeId) {
+        int pageSize = limit != null ? limit : DEFAULT_LIMIT;
+        if (pageSize < 1 || pageSize > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        ProductCursor after = cursor != null && !cursor.isBlank() ? ProductCursor.decode(cursor) : null;
+        String categoryFilter = category != null && !category.isBlank() ? category : null;
+        String storeFilter = storeId != null && !storeId.isBlank() ? storeId : null;
+
+        LocalDate today = LocalDate.now();
+        LocalDate fromDate = MIN_DATE;
+        LocalDate toDate = MAX_DATE;
+        if (status != null && !status.isBlank()) {
+            switch (status.toUpperCase()) {
+                case "EXPIRED" -> toDate = today.minusDays(1);
+                case "EXPIRES_TODAY" -> {
+                    fromDate = today;
+                    toDate = today;
+                }
+                case "EXPIRES_TOMORROW" -> {
+                    fromDate = today.plusDays(1);
+                    toDate = today.plusDays(1);
+                }
+                case "EXPIRES_THIS_WEEK" -> {
+                    fromDate = today.plusDays(2);
+                    toDate = today.plusDays(7);
+                }
+                case "GOOD" -> fromDate = today.plusDays(8);
+                default -> throw new IllegalArgumentException("Unknown status filter: " + status);
+            }
+        }
+
+        return new ProductPageQuery(after, pageSize, categoryFilter, storeFilter, fromDate, toDate);
+    }
+
+    public ProductCursor getAfter() {
+        return after;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getStoreId() {
+        return storeId;
+    }
+
+    public LocalDate getFromDate() {
+        return fromDate;
+    }
+
+    public LocalDate getToDate() {
+        return toDate;
+    }
+}
@@ -0,0 +1,103 @@
+package com.expiration.dto;
+
+import jakarta.validation.constraints.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Partial product update: only the fields that are present change. With a version, the
+ * update applies only if the product still has that version.
+ */
+public class ProductPatchDTO {
+    
+    @Size(min = 2, max = 100, message = "Product name must be between 2 and 100 characters")
+    @Pattern(regexp = "(?s).*\\S.*", message = "Product name must not be blank")
+    private String name;
+    
+    @Size(max = 50, message = "Category must not exceed 50 characters")
+    @Pattern(regexp = "(?s).*\\S.*", message = "Category must not be blank")
+    private String category;
+    
+    @Future(message = "Expiration date must be in the future")
+    private LocalDate expirationDate;
+    
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private Integer quantity;
+    
+    @DecimalMin(value = "0.0", inclusive = false, message = "Price must be greater than 0")
+    @Digits(integer = 8, fraction = 2, message = "Price must have at most 8 integer digits and 2 decimal places")
+    private BigDecimal price;
+    
+    @Size(min = 1, max = 32, message = "Store must be between 1 and 32 characters")
+    private String storeId;
+    
+    private Long version;
+    
+    // Constructors
+    public ProductPatchDTO() {}
+    
+    /**
+     * Whether the patch sets at least one field
+     */
+    public boolean hasChanges() {
+        return name != null || category != null || expirationDate != null || quantity != null || price != null
+               || storeId != null;
+    }
+    
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public String getCategory() {
+        return category;
+    }
+    
+    public void setCategory(String category) {
+        this.category = category;
+    }
+    
+    public LocalDate getExpirationDate() {
+        return expirationDate;
+    }
+    
+    public void setExpirationDate(LocalDate expirationDate) {
+        this.expirationDate = expirationDate;
+    }
+    
+    public Integer getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+    
+    public BigDecimal getPrice() {
+        return price;
+    }
+    
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+    
+    public String getStoreId() {
+        return storeId;
+    }
+    
+    public void setStoreId(String storeId) {
+        this.storeId = storeId;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
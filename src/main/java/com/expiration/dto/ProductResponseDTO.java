@@ -12,9 +12,12 @@ public class ProductResponseDTO {
     private LocalDate expirationDate;
     private Integer quantity;
     private BigDecimal price;
+    private String storeId;
     private LocalDateTime createdAt;
     private Long daysUntilExpiration;
     private String status;
+    // Pass back in a PATCH to apply it only if the product has not changed since
+    private Long version;
     
     // Constructors
     public ProductResponseDTO() {}
@@ -26,9 +29,11 @@ public class ProductResponseDTO {
         this.expirationDate = product.getExpirationDate();
         this.quantity = product.getQuantity();
         this.price = product.getPrice();
+        this.storeId = product.getStoreId();
         this.createdAt = product.getCreatedAt();
         this.daysUntilExpiration = calculateDaysUntilExpiration(product.getExpirationDate());
         this.status = determineStatus(this.daysUntilExpiration);
+        this.version = product.getVersion();
     }
     
     private Long calculateDaysUntilExpiration(LocalDate expirationDate) {
@@ -98,6 +103,14 @@ public class ProductResponseDTO {
         this.price = price;
     }
     
+    public String getStoreId() {
+        return storeId;
+    }
+    
+    public void setStoreId(String storeId) {
+        this.storeId = storeId;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -121,4 +134,12 @@ public class ProductResponseDTO {
     public void setStatus(String status) {
         this.status = status;
     }
-}
\ No newline at end of file
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,25 @@
+package com.expiration.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only product row for the list and search endpoints, built by JPQL constructor
+ * expressions in {@code ProductRepository} so no entity is hydrated or tracked.
+ * Days left and status are computed by the query and serialize exactly like
+ * {@link ProductResponseDTO}, version included, so a row from a list can be sent back in a
+ * conditional PATCH.
+ */
+public record ProductView(Long id,
+                          String name,
+                          String category,
+                          LocalDate expirationDate,
+                          Integer quantity,
+                          BigDecimal price,
+                          String storeId,
+                          LocalDateTime createdAt,
+                          Long daysUntilExpiration,
+                          String status,
+                          Long version) {
+}
@@ -0,0 +1,26 @@
+package com.expiration.dto;
+
+import jakarta.validation.constraints.*;
+
+public class StockConsumeDTO {
+    
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private Integer quantity;
+    
+    // Constructors
+    public StockConsumeDTO() {}
+    
+    public StockConsumeDTO(Integer quantity) {
+        this.quantity = quantity;
+    }
+    
+    // Getters and Setters
+    public Integer getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
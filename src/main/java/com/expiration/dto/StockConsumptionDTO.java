@@ -0,0 +1,17 @@
+package com.expiration.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Outcome of consuming stock: what was taken from each lot, first-expiring first,
+ * and what the product has left
+ */
+public record StockConsumptionDTO(Long productId,
+                                  int consumed,
+                                  int remaining,
+                                  LocalDate expirationDate,
+                                  List<LotTaken> lots) {
+
+    public record LotTaken(Long lotId, String lotCode, LocalDate expirationDate, int quantity, int remaining) {}
+}
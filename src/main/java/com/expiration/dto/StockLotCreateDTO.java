@@ -0,0 +1,52 @@
+package com.expiration.dto;
+
+import jakarta.validation.constraints.*;
+import java.time.LocalDate;
+
+public class StockLotCreateDTO {
+    
+    // Optional supplier lot or batch number
+    @Size(max = 50, message = "Lot code must not exceed 50 characters")
+    private String lotCode;
+    
+    @NotNull(message = "Expiration date is required")
+    private LocalDate expirationDate;
+    
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private Integer quantity;
+    
+    // Constructors
+    public StockLotCreateDTO() {}
+    
+    public StockLotCreateDTO(String lotCode, LocalDate expirationDate, Integer quantity) {
+        this.lotCode = lotCode;
+        this.expirationDate = expirationDate;
+        this.quantity = quantity;
+    }
+    
+    // Getters and Setters
+    public String getLotCode() {
+        return lotCode;
+    }
+    
+    public void setLotCode(String lotCode) {
+        this.lotCode = lotCode;
+    }
+    
+    public LocalDate getExpirationDate() {
+        return expirationDate;
+    }
+    
+    public void setExpirationDate(LocalDate expirationDate) {
+        this.expirationDate = expirationDate;
+    }
+    
+    public Integer getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
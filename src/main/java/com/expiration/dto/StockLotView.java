@@ -0,0 +1,15 @@
+package com.expiration.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only stock lot row, built by a JPQL constructor expression in {@code StockLotRepository}
+ */
+public record StockLotView(Long id,
+                           Long productId,
+                           String lotCode,
+                           LocalDate expirationDate,
+                           int quantity,
+                           LocalDateTime receivedAt) {
+}
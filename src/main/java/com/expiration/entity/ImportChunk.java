@@ -0,0 +1,109 @@
+package com.expiration.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint of one committed chunk of an inventory import. It is written in the same
+ * transaction as the chunk's products, so a resumed import skips exactly the chunks whose
+ * products are already in the table. The chunk size and byte range are recorded so a resume
+ * splits the file the same way, even if chunk-lines has since changed, and can tell when the
+ * file no longer matches its checkpoints.
+ */
+@Entity
+@Table(name = "import_chunks", indexes = {
+        @Index(name = "idx_import_chunks_job", columnList = "job_id, chunk_index")
+})
+public class ImportChunk {
+
+    // "<job id>/<chunk index>"
+    @Id
+    @Column(length = 80)
+    private String id;
+
+    @Column(name = "job_id", nullable = false, length = 64)
+    private String jobId;
+
+    @Column(name = "chunk_index", nullable = false)
+    private int chunkIndex;
+
+    @Column(name = "chunk_lines", nullable = false)
+    private int chunkLines;
+
+    // Byte range of the chunk in the spooled file, end exclusive
+    @Column(name = "start_offset", nullable = false)
+    private long startOffset;
+
+    @Column(name = "end_offset", nullable = false)
+    private long endOffset;
+
+    @Column(nullable = false)
+    private int lines;
+
+    @Column(nullable = false)
+    private int imported;
+
+    @Column(nullable = false)
+    private int rejected;
+
+    @Column(name = "committed_at", nullable = false)
+    private LocalDateTime committedAt;
+
+    // Constructors
+    public ImportChunk() {}
+
+    public ImportChunk(String jobId, int chunkIndex, int chunkLines, long startOffset, long endOffset,
+                       int lines, int imported, int rejected) {
+        this.id = jobId + "/" + chunkIndex;
+        this.jobId = jobId;
+        this.chunkIndex = chunkIndex;
+        this.chunkLines = chunkLines;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.lines = lines;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.committedAt = LocalDateTime.now();
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public int getChunkIndex() {
+        return chunkIndex;
+    }
+
+    public int getChunkLines() {
+        return chunkLines;
+    }
+
+    public long getStartOffset() {
+        return startOffset;
+    }
+
+    public long getEndOffset() {
+        return endOffset;
+    }
+
+    public int getLines() {
+        return lines;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public LocalDateTime getCommittedAt() {
+        return committedAt;
+    }
+}
@@ -2,16 +2,41 @@ package com.expiration.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+/**
+ * Indexes back the expiry scans (date range, keyset order), the per-category listings
+ * and the count/value aggregates, which read only the covering index. The store index
+ * gives every per-store scan its own range, so a store's scan never reads other stores' rows.
+ * Loads by id are served from the "products" second-level cache region, which Hibernate
+ * updates or evicts as each change commits. The version makes an update written from a
+ * stale read fail instead of overwriting a stock change committed in between.
+ */
 @Entity
-@Table(name = "products")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Product.CACHE_REGION)
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_expiration", columnList = "expiration_date, id"),
+        @Index(name = "idx_products_category_expiration", columnList = "category, expiration_date, id"),
+        @Index(name = "idx_products_expiration_value", columnList = "expiration_date, price, quantity"),
+        @Index(name = "idx_products_store_expiration", columnList = "store_id, expiration_date, id")
+})
 public class Product {
     
+    // Store of products created without one, which covers single-store deployments
+    public static final String DEFAULT_STORE = "main";
+    
+    public static final String CACHE_REGION = "products";
+    
+    // Pooled sequence so ids are allocated in blocks and inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Product name is required")
@@ -40,9 +65,20 @@ public class Product {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal price;
     
+    @NotBlank(message = "Store is required")
+    @Size(max = 32, message = "Store must not exceed 32 characters")
+    @Column(name = "store_id", nullable = false, length = 32)
+    private String storeId = DEFAULT_STORE;
+    
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
+    // Defaults to 0 for rows inserted without going through Hibernate
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -59,6 +95,12 @@ public class Product {
         this.price = price;
     }
     
+    public Product(String storeId, String name, String category, LocalDate expirationDate, Integer quantity,
+                   BigDecimal price) {
+        this(name, category, expirationDate, quantity, price);
+        this.storeId = storeId;
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -108,6 +150,14 @@ public class Product {
         this.price = price;
     }
     
+    public String getStoreId() {
+        return storeId;
+    }
+    
+    public void setStoreId(String storeId) {
+        this.storeId = storeId;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -116,6 +166,10 @@ public class Product {
         this.createdAt = createdAt;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
     @Override
     public String toString() {
         return "Product{" +
@@ -125,6 +179,7 @@ public class Product {
                 ", expirationDate=" + expirationDate +
                 ", quantity=" + quantity +
                 ", price=" + price +
+                ", storeId='" + storeId + '\'' +
                 ", createdAt=" + createdAt +
                 '}';
     }
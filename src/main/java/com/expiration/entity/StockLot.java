@@ -0,0 +1,80 @@
+package com.expiration.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One received lot of a product's stock. Once a product has lots, its quantity is the sum of
+ * their quantities and its expiration date is that of the first lot still in stock. Sales
+ * take from lots in first-expiring-first-out order. Empty lots are kept as the receiving record.
+ */
+@Entity
+@Table(name = "stock_lots", indexes = {
+        @Index(name = "idx_stock_lots_product_expiration", columnList = "product_id, expiration_date, id")
+})
+public class StockLot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_lots_seq")
+    @SequenceGenerator(name = "stock_lots_seq", sequenceName = "stock_lots_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    // Read-only side of product_id, mapped so the schema gets the foreign key that keeps lots from outliving their product
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "product_id", insertable = false, updatable = false,
+                foreignKey = @ForeignKey(name = "fk_stock_lots_product"))
+    private Product product;
+
+    // Supplier lot or batch number; null for the opening lot of stock held before lots were used
+    @Column(name = "lot_code", length = 50)
+    private String lotCode;
+
+    @Column(name = "expiration_date", nullable = false)
+    private LocalDate expirationDate;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(name = "received_at", nullable = false, updatable = false)
+    private LocalDateTime receivedAt;
+
+    // Constructors
+    public StockLot() {}
+
+    public StockLot(Long productId, String lotCode, LocalDate expirationDate, int quantity) {
+        this.productId = productId;
+        this.lotCode = lotCode;
+        this.expirationDate = expirationDate;
+        this.quantity = quantity;
+        this.receivedAt = LocalDateTime.now();
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getLotCode() {
+        return lotCode;
+    }
+
+    public LocalDate getExpirationDate() {
+        return expirationDate;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public LocalDateTime getReceivedAt() {
+        return receivedAt;
+    }
+}
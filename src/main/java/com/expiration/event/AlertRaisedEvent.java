@@ -0,0 +1,19 @@
+package com.expiration.event;
+
+import com.expiration.dto.ExpirationAlertDTO;
+
+/**
+ * Published by {@code AlertService} after an expiration alert has been raised and recorded
+ */
+public class AlertRaisedEvent {
+
+    private final ExpirationAlertDTO alert;
+
+    public AlertRaisedEvent(ExpirationAlertDTO alert) {
+        this.alert = alert;
+    }
+
+    public ExpirationAlertDTO getAlert() {
+        return alert;
+    }
+}
@@ -0,0 +1,73 @@
+package com.expiration.event;
+
+import com.expiration.dto.ProductResponseDTO;
+
+/**
+ * Published by the service layer whenever a product is created, updated or deleted.
+ * Listeners that keep derived state should use {@code @TransactionalEventListener}
+ * so they only see changes that actually committed.
+ */
+public class ProductChangedEvent {
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final ChangeType changeType;
+    private final Long productId;
+    private final ProductResponseDTO product;
+    private final String storeId;
+    private final String previousStoreId;
+
+    private ProductChangedEvent(ChangeType changeType, Long productId, ProductResponseDTO product, String storeId,
+                                String previousStoreId) {
+        this.changeType = changeType;
+        this.productId = productId;
+        this.product = product;
+        this.storeId = storeId;
+        this.previousStoreId = previousStoreId;
+    }
+
+    public static ProductChangedEvent created(ProductResponseDTO product) {
+        return new ProductChangedEvent(ChangeType.CREATED, product.getId(), product, product.getStoreId(),
+                                       product.getStoreId());
+    }
+
+    public static ProductChangedEvent updated(ProductResponseDTO product, String previousStoreId) {
+        return new ProductChangedEvent(ChangeType.UPDATED, product.getId(), product, product.getStoreId(),
+                                       previousStoreId);
+    }
+
+    public static ProductChangedEvent deleted(Long productId, String storeId) {
+        return new ProductChangedEvent(ChangeType.DELETED, productId, null, storeId, storeId);
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    /**
+     * State of the product after the change, or null for deletions
+     */
+    public ProductResponseDTO getProduct() {
+        return product;
+    }
+
+    /**
+     * Store of the product after the change, or of the deleted product
+     */
+    public String getStoreId() {
+        return storeId;
+    }
+
+    /**
+     * Store before the change; differs from {@link #getStoreId()} only when an update moved the product
+     */
+    public String getPreviousStoreId() {
+        return previousStoreId;
+    }
+}
@@ -0,0 +1,21 @@
+package com.expiration.exception;
+
+public class InsufficientStockException extends RuntimeException {
+    
+    private final int requested;
+    private final int available;
+    
+    public InsufficientStockException(Long productId, int requested, int available) {
+        super("Insufficient stock for product " + productId + ": requested " + requested + ", available " + available);
+        this.requested = requested;
+        this.available = available;
+    }
+    
+    public int getRequested() {
+        return requested;
+    }
+    
+    public int getAvailable() {
+        return available;
+    }
+}
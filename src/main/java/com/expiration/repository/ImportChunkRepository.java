@@ -0,0 +1,26 @@
+package com.expiration.repository;
+
+import com.expiration.entity.ImportChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ImportChunkRepository extends JpaRepository<ImportChunk, String> {
+
+    /**
+     * Checkpoints of the chunks of a job that have committed
+     */
+    @Query("SELECT c FROM ImportChunk c WHERE c.jobId = :jobId")
+    List<ImportChunk> findByJobId(@Param("jobId") String jobId);
+
+    /**
+     * (chunks, lines, imported, rejected) summed over the committed chunks of a job
+     */
+    @Query("SELECT COUNT(c), COALESCE(SUM(c.lines), 0), COALESCE(SUM(c.imported), 0), COALESCE(SUM(c.rejected), 0) " +
+           "FROM ImportChunk c WHERE c.jobId = :jobId")
+    List<Object[]> summarizeJob(@Param("jobId") String jobId);
+}
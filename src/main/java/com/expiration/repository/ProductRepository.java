@@ -1,17 +1,45 @@
 package com.expiration.repository;
 
+import com.expiration.dto.ProductView;
 import com.expiration.entity.Product;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     
+    /**
+     * Days from :today to the expiration date, computed by the database
+     */
+    String DAYS_LEFT = "CAST((p.expirationDate - CAST(:today AS LocalDate)) BY DAY AS Long)";
+    
+    /**
+     * Select clause of the {@link ProductView} projections. Statuses match {@code ProductResponseDTO}:
+     * EXPIRED, EXPIRES_TODAY, EXPIRES_TOMORROW, EXPIRES_THIS_WEEK, GOOD.
+     */
+    String SELECT_VIEW = "SELECT new com.expiration.dto.ProductView(p.id, p.name, p.category, p.expirationDate, " +
+            "p.quantity, p.price, p.storeId, p.createdAt, " + DAYS_LEFT + ", " +
+            "CASE WHEN " + DAYS_LEFT + " < 0 THEN 'EXPIRED' " +
+            "WHEN " + DAYS_LEFT + " = 0 THEN 'EXPIRES_TODAY' " +
+            "WHEN " + DAYS_LEFT + " = 1 THEN 'EXPIRES_TOMORROW' " +
+            "WHEN " + DAYS_LEFT + " <= 7 THEN 'EXPIRES_THIS_WEEK' " +
+            "ELSE 'GOOD' END, p.version) FROM Product p ";
+    
     /**
      * Find products expiring on a specific date
      */
@@ -33,9 +61,68 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByCategory(String category);
     
     /**
-     * Find products by name containing (case-insensitive)
+     * Load a product and hold its row lock until the transaction ends, which queues other stock changes to it
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
+    
+    /**
+     * Add delta (negative to take stock) to a product's quantity and set its expiration date, in one
+     * conditional UPDATE that also bumps the version; 0 when the product does not hold -delta units.
+     * Native and declared to touch only stock_lots, whose entity is not cached, so Hibernate does not
+     * clear the whole products cache region; the caller evicts the one product after commit.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "stock_lots"))
+    @Query(value = "UPDATE products SET quantity = quantity + :delta, expiration_date = :expirationDate, " +
+                   "version = version + 1 WHERE id = :id AND quantity + :delta >= 0", nativeQuery = true)
+    int adjustStock(@Param("id") Long id, @Param("delta") int delta, @Param("expirationDate") LocalDate expirationDate);
+    
+    /**
+     * Every product as a view
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(SELECT_VIEW)
+    List<ProductView> findAllViews(@Param("today") LocalDate today);
+    
+    /**
+     * One store's products as views
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(SELECT_VIEW + "WHERE p.storeId = :storeId")
+    List<ProductView> findViewsByStoreId(@Param("storeId") String storeId, @Param("today") LocalDate today);
+    
+    /**
+     * One category's products as views
      */
-    List<Product> findByNameContainingIgnoreCase(String name);
+    @Query(SELECT_VIEW + "WHERE p.category = :category")
+    List<ProductView> findViewsByCategory(@Param("category") String category, @Param("today") LocalDate today);
+    
+    /**
+     * Views of products whose name contains an already escaped pattern (case-insensitive)
+     */
+    @Query(SELECT_VIEW + "WHERE UPPER(p.name) LIKE UPPER(CONCAT('%', :name, '%')) ESCAPE '\\'")
+    List<ProductView> findViewsByNameContaining(@Param("name") String name, @Param("today") LocalDate today, Limit limit);
+    
+    /**
+     * Same as {@link #findViewsByNameContaining} within one store
+     */
+    @Query(SELECT_VIEW + "WHERE p.storeId = :storeId AND UPPER(p.name) LIKE UPPER(CONCAT('%', :name, '%')) ESCAPE '\\'")
+    List<ProductView> findViewsInStoreByNameContaining(@Param("storeId") String storeId, @Param("name") String name,
+                                                       @Param("today") LocalDate today, Limit limit);
+    
+    /**
+     * Views of the given ids, in no particular order
+     */
+    @Query(SELECT_VIEW + "WHERE p.id IN :ids")
+    List<ProductView> findViewsByIdIn(@Param("ids") Collection<Long> ids, @Param("today") LocalDate today);
+    
+    /**
+     * Every store that has products; reads only the store index
+     */
+    @Query("SELECT DISTINCT p.storeId FROM Product p ORDER BY p.storeId ASC")
+    List<String> findStoreIds();
     
     /**
      * Find products expiring tomorrow
@@ -55,6 +142,51 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.expirationDate < :today")
     List<Product> findExpiredProducts(@Param("today") LocalDate today);
     
+    /**
+     * Find products expiring on or before a date, in (expirationDate, id) order.
+     * Bulk scans read the second-level cache but do not fill it.
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "GET")})
+    @Query("SELECT p FROM Product p WHERE p.expirationDate <= :date ORDER BY p.expirationDate ASC, p.id ASC")
+    List<Product> findProductsExpiringOnOrBefore(@Param("date") LocalDate date);
+    
+    /**
+     * Same as {@link #findProductsExpiringOnOrBefore} for one store, the per-store snapshot scan.
+     * Ordering by store first lets the (store_id, expiration_date, id) index return rows presorted.
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "GET")})
+    @Query("SELECT p FROM Product p WHERE p.storeId = :storeId AND p.expirationDate <= :date " +
+           "ORDER BY p.storeId ASC, p.expirationDate ASC, p.id ASC")
+    List<Product> findProductsInStoreExpiringOnOrBefore(@Param("storeId") String storeId, @Param("date") LocalDate date);
+    
+    /**
+     * Views of products expiring between two dates (inclusive), in (expirationDate, id) order
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(SELECT_VIEW + "WHERE p.expirationDate BETWEEN :fromDate AND :toDate ORDER BY p.expirationDate ASC, p.id ASC")
+    List<ProductView> findViewsExpiringBetween(@Param("fromDate") LocalDate fromDate,
+                                               @Param("toDate") LocalDate toDate,
+                                               @Param("today") LocalDate today);
+    
+    /**
+     * Same as {@link #findViewsExpiringBetween} for one store, read from its range of the store index
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(SELECT_VIEW + "WHERE p.storeId = :storeId AND p.expirationDate BETWEEN :fromDate AND :toDate " +
+           "ORDER BY p.storeId ASC, p.expirationDate ASC, p.id ASC")
+    List<ProductView> findViewsInStoreExpiringBetween(@Param("storeId") String storeId,
+                                                      @Param("fromDate") LocalDate fromDate,
+                                                      @Param("toDate") LocalDate toDate,
+                                                      @Param("today") LocalDate today);
+    
+    /**
+     * Views of expired products, in (expirationDate, id) order
+     */
+    @Query(SELECT_VIEW + "WHERE p.expirationDate < :today ORDER BY p.expirationDate ASC, p.id ASC")
+    List<ProductView> findExpiredViews(@Param("today") LocalDate today);
+    
     /**
      * Count products expiring within N days
      */
@@ -66,4 +198,118 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      */
     @Query("SELECT COALESCE(SUM(p.price * p.quantity), 0) FROM Product p WHERE p.expirationDate BETWEEN :today AND :futureDate")
     Double getTotalValueOfProductsExpiringWithinDays(@Param("today") LocalDate today, @Param("futureDate") LocalDate futureDate);
+    
+    /**
+     * (category, status, products, quantity, value) per category and expiry status, in one grouped scan.
+     * Statuses match {@code ProductResponseDTO}: EXPIRED, EXPIRES_TODAY, EXPIRES_TOMORROW, EXPIRES_THIS_WEEK, GOOD.
+     */
+    @Query("SELECT s.category, s.status, COUNT(*), COALESCE(SUM(s.quantity), 0), COALESCE(SUM(s.stockValue), 0) FROM (" +
+           "SELECT p.category AS category, p.quantity AS quantity, p.price * p.quantity AS stockValue, " +
+           "CASE WHEN p.expirationDate < :today THEN 'EXPIRED' " +
+           "WHEN p.expirationDate = :today THEN 'EXPIRES_TODAY' " +
+           "WHEN p.expirationDate = :tomorrow THEN 'EXPIRES_TOMORROW' " +
+           "WHEN p.expirationDate <= :weekEnd THEN 'EXPIRES_THIS_WEEK' " +
+           "ELSE 'GOOD' END AS status FROM Product p) s " +
+           "GROUP BY s.category, s.status")
+    List<Object[]> summarizeByCategoryAndStatus(@Param("today") LocalDate today,
+                                                @Param("tomorrow") LocalDate tomorrow,
+                                                @Param("weekEnd") LocalDate weekEnd);
+    
+    /**
+     * Same as {@link #summarizeByCategoryAndStatus} for one store, reading only that store's index range
+     */
+    @Query("SELECT s.category, s.status, COUNT(*), COALESCE(SUM(s.quantity), 0), COALESCE(SUM(s.stockValue), 0) FROM (" +
+           "SELECT p.category AS category, p.quantity AS quantity, p.price * p.quantity AS stockValue, " +
+           "CASE WHEN p.expirationDate < :today THEN 'EXPIRED' " +
+           "WHEN p.expirationDate = :today THEN 'EXPIRES_TODAY' " +
+           "WHEN p.expirationDate = :tomorrow THEN 'EXPIRES_TOMORROW' " +
+           "WHEN p.expirationDate <= :weekEnd THEN 'EXPIRES_THIS_WEEK' " +
+           "ELSE 'GOOD' END AS status FROM Product p WHERE p.storeId = :storeId) s " +
+           "GROUP BY s.category, s.status")
+    List<Object[]> summarizeStoreByCategoryAndStatus(@Param("storeId") String storeId,
+                                                     @Param("today") LocalDate today,
+                                                     @Param("tomorrow") LocalDate tomorrow,
+                                                     @Param("weekEnd") LocalDate weekEnd);
+    
+    /**
+     * (id, storeId) of those of the given ids that exist
+     */
+    @Query("SELECT p.id, p.storeId FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findExistingIdsAndStores(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * (id, storeId) of those of the given ids that exist, locking their rows until the transaction
+     * ends as {@link #findByIdForUpdate} does; locks are taken in id order so batches cannot deadlock
+     */
+    @Query(value = "SELECT id, store_id FROM products WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockExistingIdsAndStores(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Stream (id, expirationDate, price, quantity) for every product
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.id, p.expirationDate, p.price, p.quantity FROM Product p")
+    Stream<Object[]> streamExpirationEntries();
+    
+    /**
+     * Stream (id, name, storeId) for every product
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.id, p.name, p.storeId FROM Product p")
+    Stream<Object[]> streamSearchEntries();
+    
+    /**
+     * Stream views after a keyset position in (expirationDate, id) order.
+     * Callers pass fromDate no lower than afterDate so the range alone bounds the index scan.
+     * Must be consumed inside a transaction and closed by the caller.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_VIEW +
+           "WHERE p.expirationDate BETWEEN :fromDate AND :toDate " +
+           "AND (p.expirationDate > :afterDate OR (p.expirationDate = :afterDate AND p.id > :afterId)) " +
+           "ORDER BY p.expirationDate ASC, p.id ASC")
+    Stream<ProductView> streamViewsAfter(@Param("fromDate") LocalDate fromDate,
+                                         @Param("toDate") LocalDate toDate,
+                                         @Param("afterDate") LocalDate afterDate,
+                                         @Param("afterId") Long afterId,
+                                         @Param("today") LocalDate today,
+                                         Limit limit);
+    
+    /**
+     * Same as {@link #streamViewsAfter} restricted to one category.
+     * Ordering by category first lets the (category, expiration_date, id) index return rows presorted.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_VIEW +
+           "WHERE p.category = :category " +
+           "AND p.expirationDate BETWEEN :fromDate AND :toDate " +
+           "AND (p.expirationDate > :afterDate OR (p.expirationDate = :afterDate AND p.id > :afterId)) " +
+           "ORDER BY p.category ASC, p.expirationDate ASC, p.id ASC")
+    Stream<ProductView> streamViewsInCategoryAfter(@Param("category") String category,
+                                                   @Param("fromDate") LocalDate fromDate,
+                                                   @Param("toDate") LocalDate toDate,
+                                                   @Param("afterDate") LocalDate afterDate,
+                                                   @Param("afterId") Long afterId,
+                                                   @Param("today") LocalDate today,
+                                                   Limit limit);
+    
+    /**
+     * Same as {@link #streamViewsAfter} restricted to one store and, when given, one category
+     * within it; the (store_id, expiration_date, id) index bounds the scan to the store.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_VIEW +
+           "WHERE p.storeId = :storeId " +
+           "AND (:category IS NULL OR p.category = :category) " +
+           "AND p.expirationDate BETWEEN :fromDate AND :toDate " +
+           "AND (p.expirationDate > :afterDate OR (p.expirationDate = :afterDate AND p.id > :afterId)) " +
+           "ORDER BY p.storeId ASC, p.expirationDate ASC, p.id ASC")
+    Stream<ProductView> streamViewsInStoreAfter(@Param("storeId") String storeId,
+                                                @Param("category") String category,
+                                                @Param("fromDate") LocalDate fromDate,
+                                                @Param("toDate") LocalDate toDate,
+                                                @Param("afterDate") LocalDate afterDate,
+                                                @Param("afterId") Long afterId,
+                                                @Param("today") LocalDate today,
+                                                Limit limit);
 }
\ No newline at end of file
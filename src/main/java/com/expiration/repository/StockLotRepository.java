@@ -0,0 +1,49 @@
+package com.expiration.repository;
+
+import com.expiration.dto.StockLotView;
+import com.expiration.entity.StockLot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockLotRepository extends JpaRepository<StockLot, Long> {
+
+    /**
+     * Every lot of a product as a view, first-expiring first
+     */
+    @Query("SELECT new com.expiration.dto.StockLotView(l.id, l.productId, l.lotCode, l.expirationDate, l.quantity, " +
+           "l.receivedAt) FROM StockLot l WHERE l.productId = :productId ORDER BY l.expirationDate ASC, l.id ASC")
+    List<StockLotView> findViewsByProductId(@Param("productId") Long productId);
+
+    /**
+     * Lots of a product that still hold stock, in the order sales take from them
+     */
+    @Query("SELECT l FROM StockLot l WHERE l.productId = :productId AND l.quantity > 0 " +
+           "ORDER BY l.expirationDate ASC, l.id ASC")
+    List<StockLot> findStockedLots(@Param("productId") Long productId);
+
+    boolean existsByProductId(Long productId);
+
+    /**
+     * Those of the given products that have lots
+     */
+    @Query("SELECT DISTINCT l.productId FROM StockLot l WHERE l.productId IN :productIds")
+    List<Long> findProductIdsWithLots(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Take units from a lot in one conditional UPDATE; 0 when the lot no longer holds that many
+     */
+    @Modifying
+    @Query("UPDATE StockLot l SET l.quantity = l.quantity - :quantity WHERE l.id = :id AND l.quantity >= :quantity")
+    int take(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("DELETE FROM StockLot l WHERE l.productId IN :productIds")
+    int deleteByProductIdIn(@Param("productIds") Collection<Long> productIds);
+}
@@ -1,28 +1,44 @@
 package com.expiration.scheduler;
 
+import com.expiration.dto.ExpirationAlertDTO;
 import com.expiration.entity.Product;
 import com.expiration.service.AlertService;
-import com.expiration.service.ProductService;
+import com.expiration.service.DeltaAlertService;
+import com.expiration.service.InventorySnapshot;
+import com.expiration.service.InventorySnapshotService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 
+/**
+ * Scheduled inventory jobs. Each job scans the stores in parallel, one store's partition of
+ * the inventory at a time, and raises its alerts per store.
+ */
 @Component
 public class ExpirationScheduler {
     
     private static final Logger logger = LoggerFactory.getLogger(ExpirationScheduler.class);
     
-    private final ProductService productService;
+    private final InventorySnapshotService snapshotService;
     private final AlertService alertService;
+    private final DeltaAlertService deltaAlertService;
+    private final JobMonitor jobMonitor;
     
     @Autowired
-    public ExpirationScheduler(ProductService productService, AlertService alertService) {
-        this.productService = productService;
+    public ExpirationScheduler(InventorySnapshotService snapshotService, AlertService alertService,
+                               DeltaAlertService deltaAlertService, JobMonitor jobMonitor) {
+        this.snapshotService = snapshotService;
         this.alertService = alertService;
+        this.deltaAlertService = deltaAlertService;
+        this.jobMonitor = jobMonitor;
     }
     
     /**
@@ -31,17 +47,30 @@ public class ExpirationScheduler {
      */
     @Scheduled(cron = "0 0 8 * * ?")
     public void morningHealthCheck() {
+        jobMonitor.run("morningHealthCheck", this::runMorningHealthCheck);
+    }
+    
+    private void runMorningHealthCheck() {
         logger.info("🌅 Running morning inventory health check...");
         try {
-            List<Product> tomorrowProducts = productService.getProductsExpiringTomorrow();
-            List<Product> weekProducts = productService.getProductsExpiringWithinDays(7);
-            List<Product> expiredProducts = productService.getExpiredProducts();
+            Map<String, InventorySnapshot> stores = snapshotService.scanStores(Function.identity());
+            InventorySnapshot snapshot = snapshotService.getSnapshot();
             
             logger.info("📊 DAILY INVENTORY HEALTH REPORT");
             logger.info("=" .repeat(60));
-            logger.info("🔴 Products expiring tomorrow: {}", tomorrowProducts.size());
-            logger.info("🟡 Products expiring this week: {}", weekProducts.size());
-            logger.info("💀 Already expired products: {}", expiredProducts.size());
+            logger.info("🏬 Stores: {}", stores.size());
+            logger.info("🔴 Products expiring tomorrow: {} (${})", snapshot.getTomorrowProducts().size(),
+                        snapshot.getValue(InventorySnapshot.Bucket.TOMORROW));
+            logger.info("🟡 Products expiring this week: {} (${})", snapshot.getWeekProducts().size(),
+                        snapshot.getWeekValue());
+            logger.info("💀 Already expired products: {} (${})", snapshot.getExpiredProducts().size(),
+                        snapshot.getValue(InventorySnapshot.Bucket.EXPIRED));
+            for (Map.Entry<String, Map<InventorySnapshot.Bucket, Long>> category : snapshot.getCategoryCounts().entrySet()) {
+                logger.info("   {}: {}", category.getKey(), category.getValue());
+            }
+            stores.forEach((storeId, store) -> logger.debug("   Store {}: {} tomorrow, {} this week, {} expired",
+                    storeId, store.getTomorrowProducts().size(), store.getWeekProducts().size(),
+                    store.getExpiredProducts().size()));
             logger.info("✅ Morning health check completed");
             logger.info("=" .repeat(60));
             
@@ -56,11 +85,16 @@ public class ExpirationScheduler {
      */
     @Scheduled(cron = "0 0 9 * * ?")
     public void checkSevenDayExpiration() {
+        jobMonitor.run("checkSevenDayExpiration", this::runCheckSevenDayExpiration);
+    }
+    
+    private void runCheckSevenDayExpiration() {
         logger.info("🕘 Running scheduled 7-day expiration check...");
         try {
-            List<Product> products = productService.getProductsExpiringWithinDays(7);
-            alertService.sendExpirationAlert(products, "SEVEN_DAYS");
-            logger.info("✅ 7-day expiration check completed - {} products processed", products.size());
+            Map<String, ExpirationAlertDTO> alerts = snapshotService.scanStores(snapshot ->
+                    alertService.sendExpirationAlert(snapshot.getStoreId(), snapshot.getWeekProducts(), "SEVEN_DAYS"));
+            logger.info("✅ 7-day expiration check completed - {} products processed, {} of {} stores alerted",
+                        alertedProducts(alerts), alertedStores(alerts), alerts.size());
         } catch (Exception e) {
             logger.error("❌ Error in 7-day expiration check: {}", e.getMessage(), e);
         }
@@ -72,11 +106,16 @@ public class ExpirationScheduler {
      */
     @Scheduled(cron = "0 0 18 * * ?")
     public void checkTomorrowExpiration() {
+        jobMonitor.run("checkTomorrowExpiration", this::runCheckTomorrowExpiration);
+    }
+    
+    private void runCheckTomorrowExpiration() {
         logger.info("🕕 Running scheduled tomorrow expiration check...");
         try {
-            List<Product> products = productService.getProductsExpiringTomorrow();
-            alertService.sendExpirationAlert(products, "TOMORROW");
-            logger.info("✅ Tomorrow expiration check completed - {} products processed", products.size());
+            Map<String, ExpirationAlertDTO> alerts = snapshotService.scanStores(snapshot ->
+                    alertService.sendExpirationAlert(snapshot.getStoreId(), snapshot.getTomorrowProducts(), "TOMORROW"));
+            logger.info("✅ Tomorrow expiration check completed - {} products processed, {} of {} stores alerted",
+                        alertedProducts(alerts), alertedStores(alerts), alerts.size());
         } catch (Exception e) {
             logger.error("❌ Error in tomorrow expiration check: {}", e.getMessage(), e);
         }
@@ -88,20 +127,31 @@ public class ExpirationScheduler {
      */
     @Scheduled(cron = "0 0 19 * * ?")
     public void eveningMealPlanning() {
+        jobMonitor.run("eveningMealPlanning", this::runEveningMealPlanning);
+    }
+    
+    private void runEveningMealPlanning() {
         logger.info("🍽️ Running evening meal planning session...");
         try {
-            List<Product> weekProducts = productService.getProductsExpiringWithinDays(7);
+            Map<String, InventorySnapshot> stores = snapshotService.scanStores(Function.identity());
+            int weekProducts = stores.values().stream().mapToInt(store -> store.getWeekProducts().size()).sum();
             
-            if (!weekProducts.isEmpty()) {
+            if (weekProducts > 0) {
                 logger.info("📅 WEEKLY MEAL PLANNING SUGGESTIONS");
                 logger.info("=" .repeat(60));
-                logger.info("🥘 Products to use this week: {}", weekProducts.size());
+                logger.info("🥘 Products to use this week: {} across {} store(s)", weekProducts, stores.size());
                 
-                // Group products by days until expiration
-                weekProducts.forEach(product -> {
-                    long daysLeft = java.time.temporal.ChronoUnit.DAYS.between(
-                            java.time.LocalDate.now(), product.getExpirationDate());
-                    logger.info("   Day {}: Use {} ({})", daysLeft + 1, product.getName(), product.getCategory());
+                // Per store, products by days until expiration; the product lines are detail
+                stores.forEach((storeId, store) -> {
+                    List<Product> products = store.getWeekProducts();
+                    if (products.isEmpty()) {
+                        return;
+                    }
+                    logger.info("   🏬 Store {}: {} product(s)", storeId, products.size());
+                    products.forEach(product -> {
+                        long daysLeft = ChronoUnit.DAYS.between(store.getDate(), product.getExpirationDate());
+                        logger.debug("      Day {}: Use {} ({})", daysLeft + 1, product.getName(), product.getCategory());
+                    });
                 });
                 
                 logger.info("💡 Consider batch cooking and meal prep for efficiency");
@@ -115,26 +165,30 @@ public class ExpirationScheduler {
         }
     }
     
+    private static int alertedProducts(Map<String, ExpirationAlertDTO> alerts) {
+        return alerts.values().stream().filter(Objects::nonNull).mapToInt(alert -> alert.getProducts().size()).sum();
+    }
+    
+    private static long alertedStores(Map<String, ExpirationAlertDTO> alerts) {
+        return alerts.values().stream().filter(Objects::nonNull).count();
+    }
+    
     /**
      * Test scheduler - Every 2 minutes for demonstration
+     * Only alerts on products that changed or crossed into a new tier since the last run
      * Remove or adjust for production use
      */
     @Scheduled(fixedRate = 120000) // 2 minutes
     public void testExpirationCheck() {
+        jobMonitor.run("testExpirationCheck", this::runTestExpirationCheck);
+    }
+    
+    private void runTestExpirationCheck() {
         logger.debug("🔄 Running test expiration checks with recipe suggestions...");
         try {
-            List<Product> tomorrowProducts = productService.getProductsExpiringTomorrow();
-            List<Product> weekProducts = productService.getProductsExpiringWithinDays(7);
-            
-            if (!tomorrowProducts.isEmpty() || !weekProducts.isEmpty()) {
-                if (!tomorrowProducts.isEmpty()) {
-                    alertService.sendExpirationAlert(tomorrowProducts, "TOMORROW");
-                }
-                if (!weekProducts.isEmpty()) {
-                    alertService.sendExpirationAlert(weekProducts, "SEVEN_DAYS");
-                }
-            } else {
-                logger.debug("ℹ️  No products expiring soon - all inventory is healthy! ✅");
+            DeltaAlertService.RunResult result = deltaAlertService.runDelta();
+            if (result.getAlerted() == 0) {
+                logger.debug("ℹ️  No new expiring products since the last check ✅");
             }
         } catch (Exception e) {
             logger.error("❌ Error in test expiration check: {}", e.getMessage(), e);
@@ -0,0 +1,57 @@
+package com.expiration.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Times scheduler jobs and counts runs that start while another job is still running
+ */
+@Component
+public class JobMonitor {
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger activeJobs;
+    private final Map<String, JobMeters> jobMeters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public JobMonitor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.activeJobs = meterRegistry.gauge("expiration.scheduler.jobs.active", new AtomicInteger());
+    }
+
+    public void run(String job, Runnable body) {
+        JobMeters meters = jobMeters.computeIfAbsent(job, this::registerJobMeters);
+        if (activeJobs.getAndIncrement() > 0) {
+            meters.overlaps.increment();
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            body.run();
+        } finally {
+            sample.stop(meters.duration);
+            activeJobs.decrementAndGet();
+        }
+    }
+
+    private JobMeters registerJobMeters(String job) {
+        return new JobMeters(
+                Timer.builder("expiration.scheduler.job")
+                        .description("Scheduler job duration")
+                        .tag("job", job)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry),
+                Counter.builder("expiration.scheduler.job.overlaps")
+                        .description("Job runs started while another scheduler job was running")
+                        .tag("job", job)
+                        .register(meterRegistry));
+    }
+
+    private record JobMeters(Timer duration, Counter overlaps) {}
+}
@@ -0,0 +1,484 @@
+package com.expiration.service;
+
+import com.expiration.dto.ExpirationAlertDTO;
+import com.expiration.dto.RecipeDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers expiration alerts by email off the caller's thread.
+ *
+ * Alerts go into a bounded queue; a dispatcher thread groups them into one digest per
+ * recipient per time window and hands digests to a small sender pool. Failed sends are
+ * retried with exponential backoff and end up as dead letters after the last attempt.
+ * The number of digests in flight is capped, so a slow SMTP server fills the queue and
+ * new alerts are rejected instead of blocking the scheduler.
+ * Without a configured mail server ({@code spring.mail.host}) digests are only logged.
+ */
+@Service
+public class AlertDeliveryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertDeliveryService.class);
+
+    private final ObjectProvider<JavaMailSender> mailSenderProvider;
+    private final boolean enabled;
+    private final String from;
+    private final List<String> recipients;
+    private final int queueCapacity;
+    private final Duration digestWindow;
+    private final int maxDigestSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final int deadLetterCapacity;
+
+    private final BlockingQueue<QueuedAlert> queue;
+    private final Semaphore inFlight;
+    private final ScheduledExecutorService senders;
+    private final Thread dispatcher;
+    private final Deque<DeadLetter> deadLetters = new ArrayDeque<>();
+    private volatile boolean running = true;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder digestsSent = new LongAdder();
+    private final LongAdder alertsDelivered = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    @Autowired
+    public AlertDeliveryService(ObjectProvider<JavaMailSender> mailSenderProvider,
+                                @Value("${alert.email.enabled:false}") boolean enabled,
+                                @Value("${alert.email.from:noreply@company.com}") String from,
+                                @Value("${alert.email.to:}") List<String> recipients,
+                                @Value("${alert.delivery.queue-capacity:10000}") int queueCapacity,
+                                @Value("${alert.delivery.digest-window:PT5S}") Duration digestWindow,
+                                @Value("${alert.delivery.max-digest-size:500}") int maxDigestSize,
+                                @Value("${alert.delivery.senders:2}") int senderThreads,
+                                @Value("${alert.delivery.max-in-flight:8}") int maxInFlight,
+                                @Value("${alert.delivery.max-attempts:5}") int maxAttempts,
+                                @Value("${alert.delivery.initial-backoff:PT1S}") Duration initialBackoff,
+                                @Value("${alert.delivery.max-backoff:PT1M}") Duration maxBackoff,
+                                @Value("${alert.delivery.dead-letter-capacity:100}") int deadLetterCapacity) {
+        this.mailSenderProvider = mailSenderProvider;
+        this.enabled = enabled;
+        this.from = from;
+        this.recipients = recipients.stream().map(String::trim).filter(r -> !r.isEmpty()).toList();
+        this.queueCapacity = queueCapacity;
+        this.digestWindow = digestWindow;
+        this.maxDigestSize = maxDigestSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.deadLetterCapacity = deadLetterCapacity;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.inFlight = new Semaphore(maxInFlight);
+        this.senders = Executors.newScheduledThreadPool(senderThreads, daemonThreads("alert-mail-sender-"));
+        this.dispatcher = daemonThreads("alert-mail-dispatcher-").newThread(this::dispatch);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            dispatcher.start();
+            logger.info("📧 Alert email delivery enabled for {} recipient(s) via {}",
+                        recipients.size(), mailSenderProvider.getIfAvailable() != null ? "SMTP" : "log only");
+        }
+    }
+
+    /**
+     * Flush open digests and give in-flight sends a moment to finish
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (dispatcher.isAlive()) {
+            dispatcher.join(digestWindow.toMillis() + 5_000);
+        }
+        senders.shutdown();
+        senders.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queue an alert for delivery to every recipient without blocking.
+     * Returns false if delivery is disabled or the queue is full.
+     */
+    public boolean submit(ExpirationAlertDTO alert) {
+        if (!enabled || recipients.isEmpty()) {
+            return false;
+        }
+        if (!queue.offer(new QueuedAlert(alert, null, System.nanoTime()))) {
+            rejected.increment();
+            if (rejected.sum() % 1000 == 1) {
+                logger.warn("📧 Alert delivery queue full ({} alerts), rejected {} so far", queueCapacity, rejected.sum());
+            }
+            return false;
+        }
+        enqueued.increment();
+        return true;
+    }
+
+    /**
+     * Queue the alerts of every dead letter again for its recipient
+     */
+    public int retryDeadLetters() {
+        List<DeadLetter> letters;
+        synchronized (deadLetters) {
+            letters = new ArrayList<>(deadLetters);
+            deadLetters.clear();
+        }
+        int requeued = 0;
+        for (DeadLetter letter : letters) {
+            for (ExpirationAlertDTO alert : letter.alerts) {
+                if (queue.offer(new QueuedAlert(alert, letter.getRecipient(), System.nanoTime()))) {
+                    requeued++;
+                } else {
+                    rejected.increment();
+                }
+            }
+        }
+        return requeued;
+    }
+
+    public List<DeadLetter> getDeadLetters() {
+        synchronized (deadLetters) {
+            return new ArrayList<>(deadLetters);
+        }
+    }
+
+    public DeliveryMetrics getMetrics() {
+        long delivered = alertsDelivered.sum();
+        return new DeliveryMetrics(enabled, mailSenderProvider.getIfAvailable() != null ? "smtp" : "log",
+                                   queue.size(), queueCapacity, inFlight.availablePermits(),
+                                   enqueued.sum(), rejected.sum(), digestsSent.sum(), delivered,
+                                   retries.sum(), deadLettered.sum(),
+                                   delivered == 0 ? 0 : totalLatencyNanos.sum() / delivered / 1_000_000,
+                                   maxLatencyNanos.get() / 1_000_000);
+    }
+
+    private void dispatch() {
+        Map<String, Digest> open = new LinkedHashMap<>();
+        List<QueuedAlert> drained = new ArrayList<>();
+        while (running || !queue.isEmpty() || !open.isEmpty()) {
+            try {
+                long waitNanos = open.isEmpty() ? TimeUnit.SECONDS.toNanos(1)
+                        : Math.max(0, open.values().iterator().next().deadline - System.nanoTime());
+                QueuedAlert first = queue.poll(waitNanos, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    drained.add(first);
+                    queue.drainTo(drained, maxDigestSize);
+                }
+
+                long now = System.nanoTime();
+                for (QueuedAlert queued : drained) {
+                    for (String recipient : queued.recipient != null ? List.of(queued.recipient) : recipients) {
+                        Digest digest = open.computeIfAbsent(recipient,
+                                r -> new Digest(r, now + digestWindow.toNanos()));
+                        digest.alerts.add(queued);
+                        if (digest.alerts.size() >= maxDigestSize) {
+                            open.remove(recipient);
+                            send(digest);
+                        }
+                    }
+                }
+                drained.clear();
+
+                // Digests are opened in deadline order, so only the head can be due
+                for (Iterator<Digest> it = open.values().iterator(); it.hasNext(); ) {
+                    Digest digest = it.next();
+                    if (running && digest.deadline > now) {
+                        break;
+                    }
+                    it.remove();
+                    send(digest);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void send(Digest digest) throws InterruptedException {
+        // Blocks the dispatcher, not the producers, while too many digests are in flight
+        inFlight.acquire();
+        try {
+            senders.execute(() -> attempt(digest, 1));
+        } catch (RejectedExecutionException e) {
+            // The sender pool is shutting down; keep the alerts and free the slot
+            logger.error("📧 Alert digest to {} dead-lettered: sender pool is shut down", digest.recipient);
+            deadLetter(digest, 0, "Sender pool is shut down");
+            inFlight.release();
+        }
+    }
+
+    private void attempt(Digest digest, int attempt) {
+        try {
+            deliver(digest);
+            long now = System.nanoTime();
+            for (QueuedAlert queued : digest.alerts) {
+                long latency = now - queued.enqueuedAt;
+                totalLatencyNanos.add(latency);
+                maxLatencyNanos.accumulateAndGet(latency, Math::max);
+            }
+            digestsSent.increment();
+            alertsDelivered.add(digest.alerts.size());
+            inFlight.release();
+        } catch (RuntimeException e) {
+            if (attempt < maxAttempts && retryLater(digest, attempt, e)) {
+                return;
+            }
+            logger.error("📧 Alert digest to {} dead-lettered after {} attempt(s): {}",
+                         digest.recipient, attempt, e.getMessage());
+            deadLetter(digest, attempt, e.getMessage());
+            inFlight.release();
+        }
+    }
+
+    /**
+     * Schedule the next attempt after its backoff; false once the sender pool is shutting
+     * down, so the digest keeps its in-flight slot only while a retry is really pending
+     */
+    private boolean retryLater(Digest digest, int attempt, RuntimeException e) {
+        long backoff = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        try {
+            senders.schedule(() -> attempt(digest, attempt + 1), backoff, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException rejectedRetry) {
+            return false;
+        }
+        retries.increment();
+        logger.warn("📧 Alert digest to {} failed (attempt {}/{}), retrying in {} ms: {}",
+                    digest.recipient, attempt, maxAttempts, backoff, e.getMessage());
+        return true;
+    }
+
+    private void deliver(Digest digest) {
+        String subject = subjectOf(digest);
+        JavaMailSender mailSender = mailSenderProvider.getIfAvailable();
+        if (mailSender == null) {
+            logger.info("📧 Email (log only) to {}: {}", digest.recipient, subject);
+            return;
+        }
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(from);
+        message.setTo(digest.recipient);
+        message.setSubject(subject);
+        message.setText(bodyOf(digest));
+        mailSender.send(message);
+    }
+
+    private void deadLetter(Digest digest, int attempts, String error) {
+        deadLettered.increment();
+        List<ExpirationAlertDTO> alerts = digest.alerts.stream().map(QueuedAlert::alert).toList();
+        synchronized (deadLetters) {
+            if (deadLetters.size() >= deadLetterCapacity) {
+                deadLetters.removeFirst();
+            }
+            deadLetters.addLast(new DeadLetter(digest.recipient, alerts, attempts, error, LocalDateTime.now()));
+        }
+    }
+
+    private static String subjectOf(Digest digest) {
+        int products = 0;
+        BigDecimal value = BigDecimal.ZERO;
+        for (QueuedAlert queued : digest.alerts) {
+            products += queued.alert.getProducts().size();
+            value = value.add(queued.alert.getTotalValueAtRisk());
+        }
+        return String.format("[Expiration Monitor] %d alert(s): %d product(s), $%s at risk",
+                             digest.alerts.size(), products, value);
+    }
+
+    private static String bodyOf(Digest digest) {
+        StringBuilder body = new StringBuilder();
+        for (QueuedAlert queued : digest.alerts) {
+            ExpirationAlertDTO alert = queued.alert;
+            if (alert.getStoreId() != null) {
+                body.append("Store ").append(alert.getStoreId()).append(": ");
+            }
+            body.append(alert.getAlertType()).append(" alert at ").append(alert.getTimestamp())
+                .append(" - $").append(alert.getTotalValueAtRisk()).append(" at risk\n");
+            for (ExpirationAlertDTO.ProductAlertInfo product : alert.getProducts()) {
+                body.append("  - ").append(product.getName()).append(" (").append(product.getCategory())
+                    .append(") expires ").append(product.getExpirationDate())
+                    .append(", ").append(product.getQuantity()).append(" x $").append(product.getPrice()).append('\n');
+            }
+            if (alert.getSuggestedRecipes() != null && !alert.getSuggestedRecipes().isEmpty()) {
+                body.append("  Recipes: ");
+                StringJoiner names = new StringJoiner(", ");
+                for (RecipeDTO recipe : alert.getSuggestedRecipes()) {
+                    names.add(recipe.getName());
+                }
+                body.append(names).append('\n');
+            }
+            body.append('\n');
+        }
+        return body.toString();
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicLong counter = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record QueuedAlert(ExpirationAlertDTO alert, String recipient, long enqueuedAt) {}
+
+    private static final class Digest {
+        private final String recipient;
+        private final long deadline;
+        private final List<QueuedAlert> alerts = new ArrayList<>();
+
+        Digest(String recipient, long deadline) {
+            this.recipient = recipient;
+            this.deadline = deadline;
+        }
+    }
+
+    // Inner class for a digest that exhausted its delivery attempts
+    public static class DeadLetter {
+        private final String recipient;
+        private final List<ExpirationAlertDTO> alerts;
+        private final int attempts;
+        private final String error;
+        private final LocalDateTime failedAt;
+
+        public DeadLetter(String recipient, List<ExpirationAlertDTO> alerts, int attempts, String error,
+                          LocalDateTime failedAt) {
+            this.recipient = recipient;
+            this.alerts = alerts;
+            this.attempts = attempts;
+            this.error = error;
+            this.failedAt = failedAt;
+        }
+
+        public String getRecipient() {
+            return recipient;
+        }
+
+        public int getAlertCount() {
+            return alerts.size();
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public LocalDateTime getFailedAt() {
+            return failedAt;
+        }
+    }
+
+    // Inner class for delivery pipeline metrics
+    public static class DeliveryMetrics {
+        private final boolean enabled;
+        private final String transport;
+        private final int queueDepth;
+        private final int queueCapacity;
+        private final int availableSendSlots;
+        private final long enqueued;
+        private final long rejected;
+        private final long digestsSent;
+        private final long alertsDelivered;
+        private final long retries;
+        private final long deadLettered;
+        private final long averageLatencyMillis;
+        private final long maxLatencyMillis;
+
+        public DeliveryMetrics(boolean enabled, String transport, int queueDepth, int queueCapacity,
+                               int availableSendSlots, long enqueued, long rejected, long digestsSent,
+                               long alertsDelivered, long retries, long deadLettered,
+                               long averageLatencyMillis, long maxLatencyMillis) {
+            this.enabled = enabled;
+            this.transport = transport;
+            this.queueDepth = queueDepth;
+            this.queueCapacity = queueCapacity;
+            this.availableSendSlots = availableSendSlots;
+            this.enqueued = enqueued;
+            this.rejected = rejected;
+            this.digestsSent = digestsSent;
+            this.alertsDelivered = alertsDelivered;
+            this.retries = retries;
+            this.deadLettered = deadLettered;
+            this.averageLatencyMillis = averageLatencyMillis;
+            this.maxLatencyMillis = maxLatencyMillis;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public String getTransport() {
+            return transport;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public int getAvailableSendSlots() {
+            return availableSendSlots;
+        }
+
+        public long getEnqueued() {
+            return enqueued;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getDigestsSent() {
+            return digestsSent;
+        }
+
+        public long getAlertsDelivered() {
+            return alertsDelivered;
+        }
+
+        public long getRetries() {
+            return retries;
+        }
+
+        public long getDeadLettered() {
+            return deadLettered;
+        }
+
+        public long getAverageLatencyMillis() {
+            return averageLatencyMillis;
+        }
+
+        public long getMaxLatencyMillis() {
+            return maxLatencyMillis;
+        }
+    }
+}
@@ -0,0 +1,505 @@
+package com.expiration.service;
+
+import com.expiration.dto.AlertHistoryQuery;
+import com.expiration.dto.ExpirationAlertDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Durable alert history: an append-only log split into segment files.
+ *
+ * Each record is framed as [length][crc32][body][length]; the trailing length lets reads walk
+ * backwards from the newest alert. Bodies are encoded by {@link AlertRecordCodec}. The active
+ * segment rolls once it reaches the segment size, and whole segments are deleted once their
+ * newest alert is older than the retention or the log is larger than its maximum size.
+ *
+ * Reads go through read-only memory mappings and only decode the alerts they return, so heap
+ * use does not grow with the history. Each segment keeps a sparse (time, position) index with
+ * one entry per index interval, used to skip the part of a segment newer than a query's upper
+ * bound, and per-type totals for statistics. Both are rebuilt from the files on startup;
+ * a torn write at the end of a segment is truncated.
+ */
+@Component
+public class AlertHistoryStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertHistoryStore.class);
+
+    private static final String SUFFIX = ".alerts";
+    // Length and CRC before the body, length again after it
+    private static final int FRAMING = 12;
+    // Time, cents and the length of the alert type
+    private static final int MIN_BODY = 17;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int indexIntervalBytes;
+    private final Duration retention;
+    private final long maxBytes;
+    private final boolean sync;
+
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    // Record times never go backwards, so every segment and the sparse index stay sorted by time
+    private long lastTime = Long.MIN_VALUE;
+    private long nextSegmentNumber;
+
+    @Autowired
+    public AlertHistoryStore(MeterRegistry meterRegistry,
+                             @Value("${alert.history.dir:data/alert-history}") String directory,
+                             @Value("${alert.history.segment-size:16MB}") DataSize segmentSize,
+                             @Value("${alert.history.index-interval:4KB}") DataSize indexInterval,
+                             @Value("${alert.history.retention:P30D}") Duration retention,
+                             @Value("${alert.history.max-size:1GB}") DataSize maxSize,
+                             @Value("${alert.history.sync:true}") boolean sync) {
+        if (segmentSize.toBytes() < 1024 || segmentSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("alert.history.segment-size must be between 1KB and 2GB");
+        }
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentSize.toBytes();
+        this.indexIntervalBytes = (int) Math.max(1, Math.min(indexInterval.toBytes(), segmentBytes));
+        this.retention = retention;
+        this.maxBytes = maxSize.toBytes();
+        this.sync = sync;
+        try {
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open alert history in " + this.directory.toAbsolutePath(), e);
+        }
+        Gauge.builder("alert.history.bytes", this, AlertHistoryStore::sizeBytes)
+                .description("Size of the alert history log")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("alert.history.segments", segments, List::size)
+                .description("Segment files in the alert history log")
+                .register(meterRegistry);
+    }
+
+    private synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().matches("\\d+\\" + SUFFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            Segment segment = load(file);
+            segments.add(segment);
+            lastTime = Math.max(lastTime, segment.lastTime);
+            nextSegmentNumber = segment.number + 1;
+        }
+        if (segments.isEmpty()) {
+            roll();
+        }
+        applyRetention(AlertRecordCodec.toMillis(LocalDateTime.now()));
+        logger.info("📚 Alert history: {} alert(s) in {} segment(s) under {}",
+                    segments.stream().mapToLong(segment -> segment.records).sum(), segments.size(),
+                    directory.toAbsolutePath());
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            try {
+                segment.channel.force(true);
+                segment.channel.close();
+            } catch (IOException e) {
+                logger.warn("Could not close alert history segment {}: {}", segment.path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Append an alert. Times are made non-decreasing, so an alert stamped before the previous
+     * one is filed at the previous one's time.
+     */
+    public synchronized void append(ExpirationAlertDTO alert) {
+        long time = Math.max(AlertRecordCodec.toMillis(alert.getTimestamp()), lastTime);
+        byte[] body = AlertRecordCodec.encode(time, alert);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ByteBuffer record = ByteBuffer.allocate(FRAMING + body.length);
+        record.putInt(body.length).putInt((int) crc.getValue()).put(body).putInt(body.length).flip();
+
+        Segment active = segments.get(segments.size() - 1);
+        int position = active.size;
+        try {
+            if (position > 0 && position + (long) record.limit() > segmentBytes) {
+                active = roll();
+                position = 0;
+            }
+            while (record.hasRemaining()) {
+                active.channel.write(record, position + record.position());
+            }
+            if (sync) {
+                active.channel.force(false);
+            }
+        } catch (IOException e) {
+            try {
+                active.channel.truncate(position);
+            } catch (IOException ignored) {
+                // The torn record is dropped on the next startup
+            }
+            throw new UncheckedIOException("Could not append alert to " + active.path, e);
+        }
+        active.appended(position, record.limit(), time, alert.getAlertType(),
+                        AlertRecordCodec.toCents(alert.getTotalValueAtRisk()));
+        lastTime = time;
+        applyRetention(AlertRecordCodec.toMillis(LocalDateTime.now()));
+    }
+
+    /**
+     * The query's most recent matching alerts, oldest first
+     */
+    public List<ExpirationAlertDTO> query(AlertHistoryQuery query) {
+        long from = query.getFrom() != null ? AlertRecordCodec.toMillis(query.getFrom()) : Long.MIN_VALUE;
+        long to = query.getTo() != null ? AlertRecordCodec.toMillis(query.getTo()) : Long.MAX_VALUE;
+        String type = query.getType();
+        List<ExpirationAlertDTO> alerts = new ArrayList<>();
+        walkBackwards(from, to, (buffer, body, length) -> {
+            if (type == null || type.equals(AlertRecordCodec.readType(buffer, body))) {
+                alerts.add(AlertRecordCodec.decode(buffer, body, length));
+            }
+            return alerts.size() < query.getLimit();
+        });
+        Collections.reverse(alerts);
+        return alerts;
+    }
+
+    /**
+     * Visit the alerts raised at or after {@code from} and before {@code to} (either may be null),
+     * oldest first. Alerts are decoded one at a time, so heap use does not grow with the range.
+     */
+    public void forEach(LocalDateTime from, LocalDateTime to, String type, Consumer<ExpirationAlertDTO> consumer) {
+        long fromTime = from != null ? AlertRecordCodec.toMillis(from) : Long.MIN_VALUE;
+        long toTime = to != null ? AlertRecordCodec.toMillis(to) : Long.MAX_VALUE;
+        for (Segment segment : List.copyOf(segments)) {
+            int size = segment.size;
+            if (size == 0 || segment.lastTime < fromTime) {
+                continue;
+            }
+            if (segment.firstTime >= toTime) {
+                return;
+            }
+            ByteBuffer buffer;
+            try {
+                buffer = segment.view(size);
+            } catch (IOException e) {
+                // Deleted by retention after the snapshot was taken
+                logger.debug("Skipping alert history segment {}: {}", segment.path, e.getMessage());
+                continue;
+            }
+            int position = fromTime == Long.MIN_VALUE ? 0 : segment.indexedPositionBefore(fromTime);
+            while (position < size) {
+                int bodyLength = buffer.getInt(position);
+                int body = position + 8;
+                long time = AlertRecordCodec.readTime(buffer, body);
+                if (time >= toTime) {
+                    return;
+                }
+                if (time >= fromTime && (type == null || type.equals(AlertRecordCodec.readType(buffer, body)))) {
+                    consumer.accept(AlertRecordCodec.decode(buffer, body, bodyLength));
+                }
+                position += FRAMING + bodyLength;
+            }
+        }
+    }
+
+    /**
+     * Count and value of all retained alerts, per alert type
+     */
+    public Map<String, AlertService.AlertBreakdown> retainedByType() {
+        Map<String, long[]> totals = new TreeMap<>();
+        for (Segment segment : segments) {
+            segment.totals.forEach((type, typeTotals) -> {
+                long[] sum = totals.computeIfAbsent(type, t -> new long[2]);
+                sum[0] += typeTotals.count.sum();
+                sum[1] += typeTotals.cents.sum();
+            });
+        }
+        return toBreakdowns(totals);
+    }
+
+    /**
+     * Count and value of alerts raised in the last {@code minutes} minutes, per alert type.
+     * Reads only record headers.
+     */
+    public Map<String, AlertService.AlertBreakdown> recentByType(int minutes) {
+        long from = AlertRecordCodec.toMillis(LocalDateTime.now().minusMinutes(minutes));
+        Map<String, long[]> totals = new TreeMap<>();
+        walkBackwards(from, Long.MAX_VALUE, (buffer, body, length) -> {
+            long[] sum = totals.computeIfAbsent(AlertRecordCodec.readType(buffer, body), t -> new long[2]);
+            sum[0]++;
+            sum[1] += AlertRecordCodec.readCents(buffer, body);
+            return true;
+        });
+        return toBreakdowns(totals);
+    }
+
+    public long sizeBytes() {
+        return segments.stream().mapToLong(segment -> segment.size).sum();
+    }
+
+    private static Map<String, AlertService.AlertBreakdown> toBreakdowns(Map<String, long[]> totals) {
+        Map<String, AlertService.AlertBreakdown> result = new TreeMap<>();
+        totals.forEach((type, sum) -> {
+            if (sum[0] > 0) {
+                result.put(type, new AlertService.AlertBreakdown(sum[0], BigDecimal.valueOf(sum[1], 2)));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Visit records with from <= time < to, newest first, until the visitor returns false
+     */
+    private void walkBackwards(long from, long to, RecordVisitor visitor) {
+        List<Segment> snapshot = List.copyOf(segments);
+        for (int s = snapshot.size() - 1; s >= 0; s--) {
+            Segment segment = snapshot.get(s);
+            int size = segment.size;
+            if (size == 0 || segment.firstTime >= to) {
+                continue;
+            }
+            if (segment.lastTime < from) {
+                return;
+            }
+            ByteBuffer buffer;
+            try {
+                buffer = segment.view(size);
+            } catch (IOException e) {
+                // Deleted by retention after the snapshot was taken
+                logger.debug("Skipping alert history segment {}: {}", segment.path, e.getMessage());
+                continue;
+            }
+            int position = to == Long.MAX_VALUE ? size : segment.indexedPositionAtOrAfter(to, size);
+            while (position > 0) {
+                int bodyLength = buffer.getInt(position - 4);
+                int start = position - FRAMING - bodyLength;
+                int body = start + 8;
+                long time = AlertRecordCodec.readTime(buffer, body);
+                if (time < from) {
+                    return;
+                }
+                if (time < to && !visitor.visit(buffer, body, bodyLength)) {
+                    return;
+                }
+                position = start;
+            }
+        }
+    }
+
+    private interface RecordVisitor {
+        boolean visit(ByteBuffer buffer, int body, int length);
+    }
+
+    private Segment roll() throws IOException {
+        if (!segments.isEmpty()) {
+            segments.get(segments.size() - 1).channel.force(true);
+        }
+        long number = nextSegmentNumber++;
+        Path path = directory.resolve(String.format("%019d%s", number, SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        Segment segment = new Segment(number, path, channel);
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * Delete the oldest segments while they are past retention or the log is over its size.
+     * The active segment is never deleted.
+     */
+    private void applyRetention(long now) {
+        long cutoff = now - retention.toMillis();
+        long bytes = sizeBytes();
+        while (segments.size() > 1) {
+            Segment oldest = segments.get(0);
+            if (oldest.lastTime >= cutoff && bytes <= maxBytes) {
+                return;
+            }
+            segments.remove(0);
+            bytes -= oldest.size;
+            try {
+                oldest.channel.close();
+                Files.deleteIfExists(oldest.path);
+                logger.info("📚 Alert history: deleted segment {} ({} alert(s))", oldest.path.getFileName(), oldest.records);
+            } catch (IOException e) {
+                logger.warn("Could not delete alert history segment {}: {}", oldest.path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Rebuild a segment's index and totals from its file, truncating anything after the last whole record
+     */
+    private Segment load(Path path) throws IOException {
+        long number = Long.parseLong(path.getFileName().toString().replace(SUFFIX, ""));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Segment segment = new Segment(number, path, channel);
+        long fileSize = channel.size();
+        if (fileSize > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("Alert history segment " + path + " is larger than 2GB");
+        }
+        ByteBuffer buffer = fileSize > 0 ? channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize) : ByteBuffer.allocate(0);
+        int position = 0;
+        CRC32 crc = new CRC32();
+        while (position + FRAMING + MIN_BODY <= fileSize) {
+            int bodyLength = buffer.getInt(position);
+            long end = (long) position + FRAMING + bodyLength;
+            if (bodyLength < MIN_BODY || end > fileSize || buffer.getInt((int) end - 4) != bodyLength) {
+                break;
+            }
+            int body = position + 8;
+            crc.reset();
+            crc.update(buffer.slice(body, bodyLength));
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            segment.appended(position, FRAMING + bodyLength, AlertRecordCodec.readTime(buffer, body),
+                             AlertRecordCodec.readType(buffer, body), AlertRecordCodec.readCents(buffer, body));
+            position = (int) end;
+        }
+        if (position < fileSize) {
+            logger.warn("Alert history segment {}: dropping {} byte(s) of incomplete data at offset {}",
+                        path.getFileName(), fileSize - position, position);
+            channel.truncate(position);
+        }
+        return segment;
+    }
+
+    // One segment file; written under the store's lock, read without it
+    private final class Segment {
+        private final long number;
+        private final Path path;
+        private final FileChannel channel;
+        private final Map<String, Totals> totals = new ConcurrentHashMap<>();
+        private volatile int size;
+        private volatile int records;
+        private volatile long firstTime = Long.MAX_VALUE;
+        private volatile long lastTime = Long.MIN_VALUE;
+        private volatile MappedByteBuffer mapped;
+
+        // Sparse index; the arrays are replaced before indexCount is published
+        private long[] indexTimes = new long[16];
+        private int[] indexPositions = new int[16];
+        private volatile int indexCount;
+        private int lastIndexedPosition = -1;
+
+        Segment(long number, Path path, FileChannel channel) {
+            this.number = number;
+            this.path = path;
+            this.channel = channel;
+        }
+
+        void appended(int position, int length, long time, String type, long cents) {
+            if (lastIndexedPosition < 0 || position - lastIndexedPosition >= indexIntervalBytes) {
+                int count = indexCount;
+                if (count == indexTimes.length) {
+                    indexTimes = Arrays.copyOf(indexTimes, count * 2);
+                    indexPositions = Arrays.copyOf(indexPositions, count * 2);
+                }
+                indexTimes[count] = time;
+                indexPositions[count] = position;
+                indexCount = count + 1;
+                lastIndexedPosition = position;
+            }
+            if (firstTime == Long.MAX_VALUE) {
+                firstTime = time;
+            }
+            lastTime = time;
+            totals.computeIfAbsent(type, t -> new Totals()).add(cents);
+            records++;
+            size = position + length;
+        }
+
+        /**
+         * Position of the first indexed record at or after {@code time}; every record from there on is at least as new
+         */
+        int indexedPositionAtOrAfter(long time, int limit) {
+            int count = indexCount;
+            long[] times = indexTimes;
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (times[mid] < time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low < count ? Math.min(indexPositions[low], limit) : limit;
+        }
+
+        /**
+         * Position of the last indexed record older than {@code time}, or 0; every record before it is older too
+         */
+        int indexedPositionBefore(long time) {
+            int count = indexCount;
+            long[] times = indexTimes;
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (times[mid] < time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low > 0 ? indexPositions[low - 1] : 0;
+        }
+
+        /**
+         * A read-only mapping covering at least {@code limit} bytes; only absolute reads are used on it
+         */
+        ByteBuffer view(int limit) throws IOException {
+            MappedByteBuffer current = mapped;
+            if (current == null || current.capacity() < limit) {
+                synchronized (this) {
+                    current = mapped;
+                    if (current == null || current.capacity() < limit) {
+                        current = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                        mapped = current;
+                    }
+                }
+            }
+            return current;
+        }
+    }
+
+    private static final class Totals {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder cents = new LongAdder();
+
+        void add(long alertCents) {
+            count.increment();
+            cents.add(alertCents);
+        }
+    }
+}
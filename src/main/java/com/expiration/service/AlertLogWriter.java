@@ -0,0 +1,211 @@
+package com.expiration.service;
+
+import com.expiration.dto.ExpirationAlertDTO;
+import com.expiration.dto.RecipeDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes expiration alerts to the log.
+ *
+ * The "json" format logs one event per alert on {@value #ALERT_LOGGER} and one per product on
+ * {@value #PRODUCT_LOGGER}, carrying their fields as key-value pairs; logback-spring.xml renders
+ * both as JSON on async appenders, so the calling thread only hands the values over. Product
+ * lines are capped per alert and by a per-minute budget shared by all alerts; the alert event
+ * records how many were left out. The "text" format is the previous multi-line console block,
+ * written synchronously.
+ */
+@Component
+public class AlertLogWriter {
+
+    public static final String ALERT_LOGGER = "com.expiration.alerts";
+    public static final String PRODUCT_LOGGER = "com.expiration.alerts.products";
+
+    private static final Logger alertLogger = LoggerFactory.getLogger(ALERT_LOGGER);
+    private static final Logger productLogger = LoggerFactory.getLogger(PRODUCT_LOGGER);
+    private static final Logger textLogger = LoggerFactory.getLogger(AlertService.class);
+
+    private final boolean text;
+    private final int maxProductLinesPerAlert;
+    private final int productLinesPerMinute;
+
+    // Token bucket of product lines, refilled continuously up to one minute's worth
+    private double productLineTokens;
+    private long refilledAt = System.nanoTime();
+
+    @Autowired
+    public AlertLogWriter(@Value("${alert.log.format:json}") String format,
+                          @Value("${alert.log.max-product-lines:200}") int maxProductLinesPerAlert,
+                          @Value("${alert.log.product-lines-per-minute:1000}") int productLinesPerMinute) {
+        if (!"json".equals(format) && !"text".equals(format)) {
+            throw new IllegalArgumentException("alert.log.format must be json or text, was: " + format);
+        }
+        this.text = "text".equals(format);
+        this.maxProductLinesPerAlert = maxProductLinesPerAlert;
+        this.productLinesPerMinute = productLinesPerMinute;
+        this.productLineTokens = productLinesPerMinute;
+    }
+
+    public void write(ExpirationAlertDTO alert) {
+        int productLines = acquireProductLines(Math.min(alert.getProducts().size(), maxProductLinesPerAlert));
+        if (text) {
+            writeText(alert, productLines);
+        } else {
+            writeJson(alert, productLines);
+        }
+    }
+
+    /**
+     * Up to {@code wanted} product lines from the budget; 0 or less per minute means no budget
+     */
+    private synchronized int acquireProductLines(int wanted) {
+        if (productLinesPerMinute <= 0) {
+            return wanted;
+        }
+        long now = System.nanoTime();
+        productLineTokens = Math.min(productLinesPerMinute,
+                                     productLineTokens + (now - refilledAt) * productLinesPerMinute / 60e9);
+        refilledAt = now;
+        int granted = (int) Math.min(wanted, productLineTokens);
+        productLineTokens -= granted;
+        return granted;
+    }
+
+    private void writeJson(ExpirationAlertDTO alert, int productLines) {
+        List<ExpirationAlertDTO.ProductAlertInfo> products = alert.getProducts();
+        if (alertLogger.isWarnEnabled()) {
+            Map<String, Integer> categories = new LinkedHashMap<>();
+            if (alert.getPartitions() != null) {
+                for (ExpirationAlertDTO.PartitionSummary partition : alert.getPartitions()) {
+                    categories.put(partition.getCategory(), partition.getProductCount());
+                }
+            }
+            List<String> recipes = new ArrayList<>(alert.getSuggestedRecipes().size());
+            for (RecipeDTO recipe : alert.getSuggestedRecipes()) {
+                recipes.add(recipe.getName());
+            }
+            alertLogger.atWarn()
+                    .setMessage(alert.getMessage())
+                    .addKeyValue("storeId", alert.getStoreId())
+                    .addKeyValue("alertType", alert.getAlertType())
+                    .addKeyValue("severity", alertLevel(alert.getAlertType()))
+                    .addKeyValue("alertedAt", alert.getTimestamp())
+                    .addKeyValue("productCount", products.size())
+                    .addKeyValue("totalValueAtRisk", alert.getTotalValueAtRisk())
+                    .addKeyValue("categories", categories)
+                    .addKeyValue("recipes", recipes)
+                    .addKeyValue("productLines", productLines)
+                    .addKeyValue("productLinesSuppressed", products.size() - productLines)
+                    .log();
+        }
+        if (productLines > 0 && productLogger.isInfoEnabled()) {
+            for (int i = 0; i < productLines; i++) {
+                ExpirationAlertDTO.ProductAlertInfo product = products.get(i);
+                productLogger.atInfo()
+                        .setMessage("expiring product")
+                        .addKeyValue("storeId", alert.getStoreId())
+                        .addKeyValue("alertType", alert.getAlertType())
+                        .addKeyValue("alertedAt", alert.getTimestamp())
+                        .addKeyValue("id", product.getId())
+                        .addKeyValue("name", product.getName())
+                        .addKeyValue("category", product.getCategory())
+                        .addKeyValue("expirationDate", product.getExpirationDate())
+                        .addKeyValue("daysLeft", product.getDaysUntilExpiration())
+                        .addKeyValue("quantity", product.getQuantity())
+                        .addKeyValue("price", product.getPrice())
+                        .log();
+            }
+        }
+    }
+
+    private static String alertLevel(String alertType) {
+        return "TOMORROW".equals(alertType) ? "URGENT" : "WARNING";
+    }
+
+    private void writeText(ExpirationAlertDTO alert, int productLines) {
+        if (!textLogger.isWarnEnabled()) {
+            return;
+        }
+        String alertType = alert.getAlertType();
+        List<ExpirationAlertDTO.ProductAlertInfo> products = alert.getProducts();
+        List<RecipeDTO> recipes = alert.getSuggestedRecipes();
+        String alertEmoji = "TOMORROW".equals(alertType) ? "🚨" : "⚠️";
+
+        textLogger.warn("\n{} {} EXPIRATION ALERT", alertEmoji, alertLevel(alertType));
+        textLogger.warn("=".repeat(80));
+        if (alert.getStoreId() != null) {
+            textLogger.warn("🏬 Store: {}", alert.getStoreId());
+        }
+        textLogger.warn("📊 Found {} product(s) {}", products.size(),
+                        "TOMORROW".equals(alertType) ? "expiring tomorrow" : "expiring within 7 days");
+        textLogger.warn("💰 Total value at risk: ${}", alert.getTotalValueAtRisk());
+        textLogger.warn("📧 Alert sent at: {}", alert.getTimestamp());
+        textLogger.warn("");
+
+        // Product details
+        textLogger.warn("📦 AFFECTED PRODUCTS:");
+        textLogger.warn("-".repeat(80));
+
+        for (int i = 0; i < productLines; i++) {
+            ExpirationAlertDTO.ProductAlertInfo product = products.get(i);
+            long daysLeft = product.getDaysUntilExpiration();
+            String statusEmoji = daysLeft < 0 ? "💀" : daysLeft == 0 ? "🔴" : daysLeft == 1 ? "🟠" : "🟡";
+            BigDecimal totalProductValue = product.getPrice().multiply(BigDecimal.valueOf(product.getQuantity()));
+
+            textLogger.warn("{}. {} {} ({})", i + 1, statusEmoji, product.getName(), product.getCategory());
+            textLogger.warn("   📅 Expires: {} ({} day{})", product.getExpirationDate(), daysLeft, daysLeft != 1 ? "s" : "");
+            textLogger.warn("   📦 Quantity: {} units | 💵 Value: ${}", product.getQuantity(), totalProductValue);
+            textLogger.warn("");
+        }
+        if (productLines < products.size()) {
+            textLogger.warn("   ... and {} more product(s)", products.size() - productLines);
+            textLogger.warn("");
+        }
+
+        // Recipe suggestions
+        if (!recipes.isEmpty()) {
+            textLogger.warn("🍳 RECIPE SUGGESTIONS:");
+            textLogger.warn("-".repeat(80));
+
+            for (int i = 0; i < recipes.size(); i++) {
+                RecipeDTO recipe = recipes.get(i);
+                textLogger.warn("{}. {} ({}) - {}", i + 1, recipe.getName(), recipe.getDifficulty(), recipe.getCookTime());
+                textLogger.warn("   📝 {}", recipe.getDescription());
+                if (recipe.getForProduct() != null) {
+                    textLogger.warn("   🥘 For: {}", recipe.getForProduct());
+                }
+                textLogger.warn("   🛒 Ingredients: {}", String.join(", ", recipe.getIngredients()));
+                textLogger.warn("");
+            }
+        }
+
+        // Action recommendations
+        textLogger.warn("💡 RECOMMENDED ACTIONS:");
+        textLogger.warn("-".repeat(80));
+        if ("TOMORROW".equals(alertType)) {
+            textLogger.warn("🔥 IMMEDIATE ACTION REQUIRED:");
+            textLogger.warn("   • Use products in today's meals");
+            textLogger.warn("   • Prepare recipes using these ingredients");
+            textLogger.warn("   • Consider donating if quantities are large");
+            textLogger.warn("   • Remove expired items from inventory");
+        } else {
+            textLogger.warn("📋 PLAN AHEAD:");
+            textLogger.warn("   • Schedule meals using these products");
+            textLogger.warn("   • Check if products can be frozen");
+            textLogger.warn("   • Consider bulk cooking and meal prep");
+            textLogger.warn("   • Review ordering patterns to reduce waste");
+        }
+
+        textLogger.warn("=".repeat(80));
+        textLogger.warn("");
+    }
+}
@@ -0,0 +1,319 @@
+package com.expiration.service;
+
+import com.expiration.dto.ExpirationAlertDTO;
+import com.expiration.dto.RecipeDTO;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary form of an alert in the alert history log.
+ *
+ * The body starts with a fixed header (time, value at risk in cents, alert type) that queries
+ * and statistics read without decoding the rest. Integers are varints, strings are UTF-8 with
+ * a varint length, and categories and recipes are written once per alert and referenced by
+ * index from the products and partitions.
+ *
+ * Times are the alert's local date-time read as if it were UTC, so filters given as local
+ * date-times compare directly and the encoding does not depend on the server's zone.
+ *
+ * Fields added later are appended after the partitions and read only when the body is long
+ * enough to hold them, so records written before they existed still decode.
+ */
+final class AlertRecordCodec {
+
+    private AlertRecordCodec() {}
+
+    static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static long toCents(BigDecimal value) {
+        return value == null ? 0 : value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    static byte[] encode(long time, ExpirationAlertDTO alert) {
+        Writer out = new Writer(256 + alert.getProducts().size() * 48);
+        out.putLong(time);
+        out.putLong(toCents(alert.getTotalValueAtRisk()));
+        out.putString(alert.getAlertType());
+
+        LocalDateTime timestamp = alert.getTimestamp();
+        out.putVarLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+        out.putVarLong(timestamp.getNano());
+        out.putString(alert.getMessage());
+        out.putDecimal(alert.getTotalValueAtRisk());
+
+        // Recipes are shared between the alert and its partitions
+        List<RecipeDTO> recipes = new ArrayList<>();
+        Map<RecipeDTO, Integer> recipeIndex = new HashMap<>();
+        List<ExpirationAlertDTO.PartitionSummary> partitions = alert.getPartitions() != null ? alert.getPartitions() : List.of();
+        collectRecipes(alert.getSuggestedRecipes(), recipes, recipeIndex);
+        for (ExpirationAlertDTO.PartitionSummary partition : partitions) {
+            collectRecipes(partition.getSuggestedRecipes(), recipes, recipeIndex);
+        }
+        out.putVarLong(recipes.size());
+        for (RecipeDTO recipe : recipes) {
+            out.putString(recipe.getName());
+            out.putString(recipe.getDescription());
+            List<String> ingredients = recipe.getIngredients() != null ? recipe.getIngredients() : List.of();
+            out.putVarLong(ingredients.size());
+            for (String ingredient : ingredients) {
+                out.putString(ingredient);
+            }
+            out.putString(recipe.getCookTime());
+            out.putString(recipe.getDifficulty());
+            out.putString(recipe.getForProduct());
+        }
+        putRecipeRefs(out, alert.getSuggestedRecipes(), recipeIndex);
+
+        List<String> categories = new ArrayList<>();
+        Map<String, Integer> categoryIndex = new HashMap<>();
+        for (ExpirationAlertDTO.ProductAlertInfo product : alert.getProducts()) {
+            categoryIndex.computeIfAbsent(product.getCategory(), category -> {
+                categories.add(category);
+                return categories.size() - 1;
+            });
+        }
+        out.putVarLong(categories.size());
+        for (String category : categories) {
+            out.putString(category);
+        }
+
+        out.putVarLong(alert.getProducts().size());
+        for (ExpirationAlertDTO.ProductAlertInfo product : alert.getProducts()) {
+            out.putVarLong(product.getId());
+            out.putString(product.getName());
+            out.putVarLong(categoryIndex.get(product.getCategory()));
+            out.putVarLong(product.getExpirationDate().toEpochDay());
+            out.putVarLong(product.getQuantity());
+            out.putDecimal(product.getPrice());
+            out.putVarLong(product.getDaysUntilExpiration());
+        }
+
+        // Count + 1, so an alert without partitions reads back as null
+        out.putVarLong(alert.getPartitions() != null ? partitions.size() + 1 : 0);
+        for (ExpirationAlertDTO.PartitionSummary partition : partitions) {
+            out.putString(partition.getCategory());
+            out.putVarLong(partition.getProductCount());
+            out.putDecimal(partition.getTotalValueAtRisk());
+            putRecipeRefs(out, partition.getSuggestedRecipes(), recipeIndex);
+        }
+        out.putString(alert.getStoreId());
+        return out.toByteArray();
+    }
+
+    /**
+     * Header time of the body starting at {@code offset}
+     */
+    static long readTime(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset);
+    }
+
+    /**
+     * Header value at risk, in cents, of the body starting at {@code offset}
+     */
+    static long readCents(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + 8);
+    }
+
+    /**
+     * Header alert type of the body starting at {@code offset}
+     */
+    static String readType(ByteBuffer buffer, int offset) {
+        return new Reader(buffer, offset + 16).getString();
+    }
+
+    static ExpirationAlertDTO decode(ByteBuffer buffer, int offset, int length) {
+        Reader in = new Reader(buffer, offset + 16);
+        ExpirationAlertDTO alert = new ExpirationAlertDTO();
+        alert.setAlertType(in.getString());
+        long epochSecond = in.getVarLong();
+        alert.setTimestamp(LocalDateTime.ofEpochSecond(epochSecond, (int) in.getVarLong(), ZoneOffset.UTC));
+        alert.setMessage(in.getString());
+        alert.setTotalValueAtRisk(in.getDecimal());
+
+        RecipeDTO[] recipes = new RecipeDTO[(int) in.getVarLong()];
+        for (int i = 0; i < recipes.length; i++) {
+            String name = in.getString();
+            String description = in.getString();
+            String[] ingredients = new String[(int) in.getVarLong()];
+            for (int j = 0; j < ingredients.length; j++) {
+                ingredients[j] = in.getString();
+            }
+            recipes[i] = new RecipeDTO(name, description, Arrays.asList(ingredients), in.getString(), in.getString(),
+                                       in.getString());
+        }
+        alert.setSuggestedRecipes(getRecipeRefs(in, recipes));
+
+        String[] categories = new String[(int) in.getVarLong()];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = in.getString();
+        }
+
+        ExpirationAlertDTO.ProductAlertInfo[] products = new ExpirationAlertDTO.ProductAlertInfo[(int) in.getVarLong()];
+        for (int i = 0; i < products.length; i++) {
+            long id = in.getVarLong();
+            String name = in.getString();
+            String category = categories[(int) in.getVarLong()];
+            LocalDate expirationDate = LocalDate.ofEpochDay(in.getVarLong());
+            int quantity = (int) in.getVarLong();
+            BigDecimal price = in.getDecimal();
+            products[i] = new ExpirationAlertDTO.ProductAlertInfo(id, name, category, expirationDate, quantity, price,
+                                                                  in.getVarLong());
+        }
+        alert.setProducts(Arrays.asList(products));
+
+        int partitionCount = (int) in.getVarLong() - 1;
+        if (partitionCount >= 0) {
+            List<ExpirationAlertDTO.PartitionSummary> partitions = new ArrayList<>(partitionCount);
+            for (int i = 0; i < partitionCount; i++) {
+                String category = in.getString();
+                int productCount = (int) in.getVarLong();
+                BigDecimal value = in.getDecimal();
+                partitions.add(new ExpirationAlertDTO.PartitionSummary(category, productCount, value,
+                                                                       getRecipeRefs(in, recipes)));
+            }
+            alert.setPartitions(partitions);
+        }
+        if (in.position < offset + length) {
+            alert.setStoreId(in.getString());
+        }
+        return alert;
+    }
+
+    private static void collectRecipes(List<RecipeDTO> source, List<RecipeDTO> recipes, Map<RecipeDTO, Integer> index) {
+        if (source == null) {
+            return;
+        }
+        for (RecipeDTO recipe : source) {
+            index.computeIfAbsent(recipe, r -> {
+                recipes.add(r);
+                return recipes.size() - 1;
+            });
+        }
+    }
+
+    private static void putRecipeRefs(Writer out, List<RecipeDTO> source, Map<RecipeDTO, Integer> index) {
+        List<RecipeDTO> refs = source != null ? source : List.of();
+        out.putVarLong(refs.size());
+        for (RecipeDTO recipe : refs) {
+            out.putVarLong(index.get(recipe));
+        }
+    }
+
+    private static List<RecipeDTO> getRecipeRefs(Reader in, RecipeDTO[] recipes) {
+        RecipeDTO[] refs = new RecipeDTO[(int) in.getVarLong()];
+        for (int i = 0; i < refs.length; i++) {
+            refs[i] = recipes[(int) in.getVarLong()];
+        }
+        return Arrays.asList(refs);
+    }
+
+    // Growable output buffer
+    private static final class Writer {
+        private byte[] bytes;
+        private int size;
+
+        Writer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        void putLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        // Zigzag varint, so small negative numbers stay short too
+        void putVarLong(long value) {
+            ensure(10);
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            bytes[size++] = (byte) zigzag;
+        }
+
+        // Length + 1, so null and "" differ
+        void putString(String value) {
+            if (value == null) {
+                putVarLong(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            putVarLong(utf8.length + 1L);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        void putDecimal(BigDecimal value) {
+            BigDecimal decimal = value != null ? value : BigDecimal.ZERO;
+            putVarLong(decimal.scale());
+            putVarLong(decimal.unscaledValue().longValueExact());
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+
+    // Reads from an absolute position without moving the buffer, so one mapping serves concurrent readers
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private int position;
+
+        Reader(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        long getVarLong() {
+            long zigzag = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get(position++);
+                zigzag |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        String getString() {
+            int length = (int) getVarLong() - 1;
+            if (length < 0) {
+                return null;
+            }
+            byte[] utf8 = new byte[length];
+            buffer.get(position, utf8);
+            position += length;
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        BigDecimal getDecimal() {
+            int scale = (int) getVarLong();
+            return new BigDecimal(BigInteger.valueOf(getVarLong()), scale);
+        }
+    }
+}
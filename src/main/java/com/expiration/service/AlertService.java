@@ -1,18 +1,39 @@
 package com.expiration.service;
 
+import com.expiration.dto.AlertHistoryQuery;
 import com.expiration.dto.ExpirationAlertDTO;
+import com.expiration.dto.ExportQuery;
 import com.expiration.dto.RecipeDTO;
 import com.expiration.entity.Product;
+import com.expiration.event.AlertRaisedEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.stereotype.Service;
 
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,165 +42,255 @@ public class AlertService {
     private static final Logger logger = LoggerFactory.getLogger(AlertService.class);
     
     private final RecipeService recipeService;
-    private final List<ExpirationAlertDTO> alertHistory;
+    private final AlertDeliveryService alertDelivery;
+    private final AlertLogWriter alertLog;
+    private final AlertHistoryStore alertHistory;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, AlertMeters> alertMeters = new ConcurrentHashMap<>();
+    
+    // Partitions of alerts with at least fanOutMinProducts products run in parallel
+    private final Executor fanOutExecutor;
+    private final int fanOutMinProducts;
     
     @Autowired
-    public AlertService(RecipeService recipeService) {
+    public AlertService(RecipeService recipeService, AlertDeliveryService alertDelivery, AlertLogWriter alertLog,
+                        AlertHistoryStore alertHistory, MeterRegistry meterRegistry,
+                        ApplicationEventPublisher eventPublisher,
+                        @Value("${alert.fan-out.threads:0}") int fanOutThreads,
+                        @Value("${alert.fan-out.min-products:1000}") int fanOutMinProducts,
+                        @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         this.recipeService = recipeService;
-        this.alertHistory = new ArrayList<>();
+        this.alertDelivery = alertDelivery;
+        this.alertLog = alertLog;
+        this.meterRegistry = meterRegistry;
+        this.eventPublisher = eventPublisher;
+        this.alertHistory = alertHistory;
+        this.fanOutMinProducts = fanOutMinProducts;
+        this.fanOutExecutor = createFanOutExecutor(fanOutThreads, virtualThreads);
+    }
+    
+    /**
+     * Virtual threads on Java 21+ when enabled, otherwise a bounded pool sized to the CPUs
+     */
+    private static Executor createFanOutExecutor(int threads, boolean virtualThreads) {
+        if (virtualThreads && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            return new VirtualThreadTaskExecutor("alert-fan-out-");
+        }
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "alert-fan-out-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (fanOutExecutor instanceof ExecutorService pool) {
+            pool.shutdown();
+        }
     }
     
     /**
-     * Send expiration alert with recipe suggestions
+     * Send one store's expiration alert with recipe suggestions.
+     * Products are partitioned by category; large alerts process the partitions in parallel
+     * and merge them into one alert that keeps the products in their original order.
      */
-    public ExpirationAlertDTO sendExpirationAlert(List<Product> products, String alertType) {
+    public ExpirationAlertDTO sendExpirationAlert(String storeId, List<Product> products, String alertType) {
         if (products.isEmpty()) {
-            logger.info("ℹ️  No products found for {} alert", alertType);
+            logger.debug("ℹ️  No products found for {} alert of store {}", alertType, storeId);
             return null;
         }
         
-        // Convert products to alert info
-        List<ExpirationAlertDTO.ProductAlertInfo> productAlertInfos = products.stream()
-                .map(this::convertToAlertInfo)
-                .collect(Collectors.toList());
+        // Each partition converts its products into their original slots, looks up recipes and sums its value
+        LocalDate today = LocalDate.now();
+        ExpirationAlertDTO.ProductAlertInfo[] productAlertInfos = new ExpirationAlertDTO.ProductAlertInfo[products.size()];
+        List<Partition> partitions = partition(products);
+        List<ExpirationAlertDTO.PartitionSummary> summaries = processPartitions(partitions, productAlertInfos, today);
         
-        // Get recipe suggestions
-        List<String> productNames = products.stream()
-                .map(Product::getName)
-                .collect(Collectors.toList());
-        List<RecipeDTO> recipes = recipeService.getRecipesForProducts(productNames);
-        
-        // Calculate total value at risk
-        BigDecimal totalValue = products.stream()
-                .map(p -> p.getPrice().multiply(BigDecimal.valueOf(p.getQuantity())))
+        // Merge partition results into the global alert
+        BigDecimal totalValue = summaries.stream()
+                .map(ExpirationAlertDTO.PartitionSummary::getTotalValueAtRisk)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
+        List<RecipeDTO> recipes = recipeService.mergeRecipes(summaries.stream()
+                .map(ExpirationAlertDTO.PartitionSummary::getSuggestedRecipes)
+                .collect(Collectors.toList()));
         
         // Create alert DTO
-        ExpirationAlertDTO alert = new ExpirationAlertDTO(alertType, productAlertInfos, recipes, totalValue);
-        
-        // Log detailed console alert
-        logDetailedAlert(products, alertType, recipes, totalValue);
+        ExpirationAlertDTO alert = new ExpirationAlertDTO(storeId, alertType, Arrays.asList(productAlertInfos), recipes,
+                                                          totalValue);
+        alert.setPartitions(summaries);
         
-        // Store in history
-        alertHistory.add(alert);
+        // One structured alert event; rendering and product detail lines are handled off this thread
+        alertLog.write(alert);
         
-        // Keep only last 100 alerts
-        if (alertHistory.size() > 100) {
-            alertHistory.remove(0);
+        // Append to the durable history; a failed write must not stop delivery
+        try {
+            alertHistory.append(alert);
+        } catch (UncheckedIOException e) {
+            logger.error("Could not record {} alert in history: {}", alertType, e.getMessage());
         }
+        AlertMeters meters = alertMeters.computeIfAbsent(alertType, this::registerAlertMeters);
+        meters.products.record(products.size());
+        meters.valueAtRisk.record(totalValue.doubleValue());
+        
+        // Hand off to the email pipeline and dashboards; neither blocks the calling scheduler thread
+        alertDelivery.submit(alert);
+        eventPublisher.publishEvent(new AlertRaisedEvent(alert));
         
         return alert;
     }
     
     /**
-     * Get alert history
+     * Get alert history matching the query, oldest first
      */
-    public List<ExpirationAlertDTO> getAlertHistory(int limit) {
-        return alertHistory.stream()
-                .skip(Math.max(0, alertHistory.size() - limit))
-                .collect(Collectors.toList());
+    public List<ExpirationAlertDTO> getAlertHistory(AlertHistoryQuery query) {
+        return alertHistory.query(query);
     }
     
     /**
-     * Get alert statistics
+     * Visit the retained alerts of the export's type raised within its window, oldest first
+     */
+    public void forEachAlert(ExportQuery query, Consumer<ExpirationAlertDTO> consumer) {
+        alertHistory.forEach(query.getRaisedFrom(), query.getRaisedTo(), query.getType(), consumer);
+    }
+    
+    /**
+     * Get alert statistics from the per-segment totals and the headers of recent alerts
      */
     public AlertStatistics getAlertStatistics() {
-        long totalAlerts = alertHistory.size();
-        BigDecimal totalValueAtRisk = alertHistory.stream()
-                .map(ExpirationAlertDTO::getTotalValueAtRisk)
+        Map<String, AlertBreakdown> byType = alertHistory.retainedByType();
+        long totalAlerts = byType.values().stream().mapToLong(AlertBreakdown::getCount).sum();
+        BigDecimal totalValueAtRisk = byType.values().stream()
+                .map(AlertBreakdown::getValueAtRisk)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
         
-        return new AlertStatistics(totalAlerts, totalValueAtRisk);
+        return new AlertStatistics(totalAlerts, totalValueAtRisk, byType,
+                                   alertHistory.recentByType(60),
+                                   alertHistory.recentByType(24 * 60));
     }
     
-    private ExpirationAlertDTO.ProductAlertInfo convertToAlertInfo(Product product) {
-        long daysUntilExpiration = ChronoUnit.DAYS.between(LocalDate.now(), product.getExpirationDate());
-        return new ExpirationAlertDTO.ProductAlertInfo(
-                product.getId(),
-                product.getName(),
-                product.getCategory(),
-                product.getExpirationDate(),
-                product.getQuantity(),
-                product.getPrice(),
-                daysUntilExpiration
-        );
+    private AlertMeters registerAlertMeters(String alertType) {
+        return new AlertMeters(
+                DistributionSummary.builder("expiration.alert.products")
+                        .description("Products per expiration alert")
+                        .baseUnit("products")
+                        .tag("type", alertType)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry),
+                DistributionSummary.builder("expiration.alert.value.at.risk")
+                        .description("Value at risk per expiration alert")
+                        .baseUnit("dollars")
+                        .tag("type", alertType)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
     }
     
-    private void logDetailedAlert(List<Product> products, String alertType, List<RecipeDTO> recipes, BigDecimal totalValue) {
-        String alertEmoji = "TOMORROW".equals(alertType) ? "🚨" : "⚠️";
-        String alertLevel = "TOMORROW".equals(alertType) ? "URGENT" : "WARNING";
-        
-        logger.warn("\n{} {} EXPIRATION ALERT", alertEmoji, alertLevel);
-        logger.warn("=" .repeat(80));
-        logger.warn("📊 Found {} product(s) {}", products.size(), 
-                   "TOMORROW".equals(alertType) ? "expiring tomorrow" : "expiring within 7 days");
-        logger.warn("💰 Total value at risk: ${}", totalValue);
-        logger.warn("📧 Alert sent at: {}", java.time.LocalDateTime.now());
-        logger.warn("");
-        
-        // Product details
-        logger.warn("📦 AFFECTED PRODUCTS:");
-        logger.warn("-" .repeat(80));
-        
+    private record AlertMeters(DistributionSummary products, DistributionSummary valueAtRisk) {}
+    
+    private static List<Partition> partition(List<Product> products) {
+        Map<String, Partition> partitions = new LinkedHashMap<>();
         for (int i = 0; i < products.size(); i++) {
             Product product = products.get(i);
-            long daysLeft = ChronoUnit.DAYS.between(LocalDate.now(), product.getExpirationDate());
-            String statusEmoji = daysLeft < 0 ? "💀" : daysLeft == 0 ? "🔴" : daysLeft == 1 ? "🟠" : "🟡";
-            BigDecimal totalProductValue = product.getPrice().multiply(BigDecimal.valueOf(product.getQuantity()));
-            
-            logger.warn("{}. {} {} ({})", i + 1, statusEmoji, product.getName(), product.getCategory());
-            logger.warn("   📅 Expires: {} ({} day{})", product.getExpirationDate(), daysLeft, daysLeft != 1 ? "s" : "");
-            logger.warn("   📦 Quantity: {} units | 💵 Value: ${}", product.getQuantity(), totalProductValue);
-            logger.warn("");
-        }
-        
-        // Recipe suggestions
-        if (!recipes.isEmpty()) {
-            logger.warn("🍳 RECIPE SUGGESTIONS:");
-            logger.warn("-" .repeat(80));
-            
-            for (int i = 0; i < recipes.size(); i++) {
-                RecipeDTO recipe = recipes.get(i);
-                logger.warn("{}. {} ({}) - {}", i + 1, recipe.getName(), recipe.getDifficulty(), recipe.getCookTime());
-                logger.warn("   📝 {}", recipe.getDescription());
-                if (recipe.getForProduct() != null) {
-                    logger.warn("   🥘 For: {}", recipe.getForProduct());
-                }
-                logger.warn("   🛒 Ingredients: {}", String.join(", ", recipe.getIngredients()));
-                logger.warn("");
+            partitions.computeIfAbsent(partitionKey(product), Partition::new).add(product, i);
+        }
+        return new ArrayList<>(partitions.values());
+    }
+    
+    private static String partitionKey(Product product) {
+        return product.getCategory() != null ? product.getCategory() : "Uncategorized";
+    }
+    
+    /**
+     * Runs every partition but the last on the fan-out executor and the last on the calling thread
+     */
+    private List<ExpirationAlertDTO.PartitionSummary> processPartitions(List<Partition> partitions,
+                                                                        ExpirationAlertDTO.ProductAlertInfo[] infos,
+                                                                        LocalDate today) {
+        List<ExpirationAlertDTO.PartitionSummary> summaries = new ArrayList<>(partitions.size());
+        if (partitions.size() == 1 || infos.length < fanOutMinProducts) {
+            for (Partition partition : partitions) {
+                summaries.add(processPartition(partition, infos, today));
             }
+            return summaries;
         }
         
-        // Action recommendations
-        logger.warn("💡 RECOMMENDED ACTIONS:");
-        logger.warn("-" .repeat(80));
-        if ("TOMORROW".equals(alertType)) {
-            logger.warn("🔥 IMMEDIATE ACTION REQUIRED:");
-            logger.warn("   • Use products in today's meals");
-            logger.warn("   • Prepare recipes using these ingredients");
-            logger.warn("   • Consider donating if quantities are large");
-            logger.warn("   • Remove expired items from inventory");
-        } else {
-            logger.warn("📋 PLAN AHEAD:");
-            logger.warn("   • Schedule meals using these products");
-            logger.warn("   • Check if products can be frozen");
-            logger.warn("   • Consider bulk cooking and meal prep");
-            logger.warn("   • Review ordering patterns to reduce waste");
+        List<CompletableFuture<ExpirationAlertDTO.PartitionSummary>> forked = new ArrayList<>(partitions.size() - 1);
+        for (Partition partition : partitions.subList(0, partitions.size() - 1)) {
+            forked.add(CompletableFuture.supplyAsync(() -> processPartition(partition, infos, today), fanOutExecutor));
+        }
+        ExpirationAlertDTO.PartitionSummary last = processPartition(partitions.get(partitions.size() - 1), infos, today);
+        for (CompletableFuture<ExpirationAlertDTO.PartitionSummary> future : forked) {
+            summaries.add(future.join());
+        }
+        summaries.add(last);
+        return summaries;
+    }
+    
+    private ExpirationAlertDTO.PartitionSummary processPartition(Partition partition,
+                                                                 ExpirationAlertDTO.ProductAlertInfo[] infos,
+                                                                 LocalDate today) {
+        List<String> productNames = new ArrayList<>(partition.products.size());
+        BigDecimal value = BigDecimal.ZERO;
+        for (int i = 0; i < partition.products.size(); i++) {
+            Product product = partition.products.get(i);
+            infos[partition.positions[i]] = convertToAlertInfo(product, today);
+            productNames.add(product.getName());
+            value = value.add(product.getPrice().multiply(BigDecimal.valueOf(product.getQuantity())));
+        }
+        return new ExpirationAlertDTO.PartitionSummary(partition.key, partition.products.size(), value,
+                                                       recipeService.getRecipesForProducts(productNames));
+    }
+    
+    // Products of one category and their positions in the alert's product list
+    private static final class Partition {
+        private final String key;
+        private final List<Product> products = new ArrayList<>();
+        private int[] positions = new int[16];
+        
+        Partition(String key) {
+            this.key = key;
         }
         
-        logger.warn("=" .repeat(80));
-        logger.warn("⏰ Alert generated at: {}", java.time.LocalDateTime.now());
-        logger.warn("");
+        void add(Product product, int position) {
+            if (products.size() == positions.length) {
+                positions = Arrays.copyOf(positions, positions.length * 2);
+            }
+            positions[products.size()] = position;
+            products.add(product);
+        }
+    }
+    
+    private ExpirationAlertDTO.ProductAlertInfo convertToAlertInfo(Product product, LocalDate today) {
+        long daysUntilExpiration = ChronoUnit.DAYS.between(today, product.getExpirationDate());
+        return new ExpirationAlertDTO.ProductAlertInfo(
+                product.getId(),
+                product.getName(),
+                product.getCategory(),
+                product.getExpirationDate(),
+                product.getQuantity(),
+                product.getPrice(),
+                daysUntilExpiration
+        );
     }
     
     // Inner class for alert statistics
     public static class AlertStatistics {
         private final long totalAlerts;
         private final BigDecimal totalValueAtRisk;
+        private final Map<String, AlertBreakdown> byType;
+        private final Map<String, AlertBreakdown> lastHour;
+        private final Map<String, AlertBreakdown> last24Hours;
         
-        public AlertStatistics(long totalAlerts, BigDecimal totalValueAtRisk) {
+        public AlertStatistics(long totalAlerts, BigDecimal totalValueAtRisk, Map<String, AlertBreakdown> byType,
+                               Map<String, AlertBreakdown> lastHour, Map<String, AlertBreakdown> last24Hours) {
             this.totalAlerts = totalAlerts;
             this.totalValueAtRisk = totalValueAtRisk;
+            this.byType = byType;
+            this.lastHour = lastHour;
+            this.last24Hours = last24Hours;
         }
         
         public long getTotalAlerts() {
@@ -189,5 +300,36 @@ public class AlertService {
         public BigDecimal getTotalValueAtRisk() {
             return totalValueAtRisk;
         }
+        
+        public Map<String, AlertBreakdown> getByType() {
+            return byType;
+        }
+        
+        public Map<String, AlertBreakdown> getLastHour() {
+            return lastHour;
+        }
+        
+        public Map<String, AlertBreakdown> getLast24Hours() {
+            return last24Hours;
+        }
+    }
+    
+    // Inner class for per-type alert counts
+    public static class AlertBreakdown {
+        private final long count;
+        private final BigDecimal valueAtRisk;
+        
+        public AlertBreakdown(long count, BigDecimal valueAtRisk) {
+            this.count = count;
+            this.valueAtRisk = valueAtRisk;
+        }
+        
+        public long getCount() {
+            return count;
+        }
+        
+        public BigDecimal getValueAtRisk() {
+            return valueAtRisk;
+        }
     }
 }
\ No newline at end of file
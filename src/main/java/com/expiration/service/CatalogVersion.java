@@ -0,0 +1,71 @@
+package com.expiration.service;
+
+import com.expiration.event.AlertRaisedEvent;
+import com.expiration.event.ProductChangedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic versions of the product catalog and the alert history, used as validators for
+ * conditional GETs. Product responses also depend on today's date (days left, status,
+ * expiring-* windows), so their tag includes it. The boot id keeps tags from an earlier
+ * run of the in-memory database from matching.
+ */
+@Component
+public class CatalogVersion {
+
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong productVersion = new AtomicLong();
+    private final AtomicLong alertVersion = new AtomicLong();
+    private volatile long productsModified = System.currentTimeMillis();
+    private volatile long alertsModified = System.currentTimeMillis();
+
+    /**
+     * Bumped after commit, so a tag never runs ahead of the data a reader can see
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        productVersion.incrementAndGet();
+        productsModified = System.currentTimeMillis();
+    }
+
+    /**
+     * Sample data is seeded without change events
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        productVersion.incrementAndGet();
+        productsModified = System.currentTimeMillis();
+    }
+
+    @EventListener
+    public void onAlertRaised(AlertRaisedEvent event) {
+        alertVersion.incrementAndGet();
+        alertsModified = System.currentTimeMillis();
+    }
+
+    /**
+     * Validators for product reads; read them before querying
+     */
+    public Stamp products() {
+        LocalDate today = LocalDate.now();
+        long startOfToday = today.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return new Stamp("p-" + bootId + "-" + productVersion.get() + "-" + today,
+                         Math.max(productsModified, startOfToday));
+    }
+
+    /**
+     * Validators for alert history reads
+     */
+    public Stamp alerts() {
+        return new Stamp("a-" + bootId + "-" + alertVersion.get(), alertsModified);
+    }
+
+    public record Stamp(String eTag, long lastModified) {}
+}
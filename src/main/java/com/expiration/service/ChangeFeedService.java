@@ -0,0 +1,292 @@
+package com.expiration.service;
+
+import com.expiration.dto.ExpirationAlertDTO;
+import com.expiration.event.AlertRaisedEvent;
+import com.expiration.event.ProductChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes product changes and new alerts to dashboard clients as server-sent events.
+ *
+ * Every connection has its own bounded buffer. Product changes are coalesced per product id,
+ * so a client that falls behind only receives the latest state of each product; a client whose
+ * buffer overflows is sent a single "resync" event instead and reloads. Buffers are flushed
+ * every flush interval, one send at a time per connection. Servlet writes block, so each send
+ * gets its own thread: a stalled client holds one thread until the write times out and cannot
+ * delay anyone else. Idle connections get a heartbeat comment, which also detects clients
+ * that went away.
+ */
+@Service
+public class ChangeFeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    // Alerts are not coalesced; a slow client only keeps the most recent ones
+    private static final int MAX_BUFFERED_ALERTS = 20;
+    private static final long RECONNECT_MILLIS = 3_000;
+
+    private final int bufferCapacity;
+    private final int maxSubscribers;
+    private final Duration connectionTimeout;
+    private final Duration flushInterval;
+    private final Duration heartbeatInterval;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService timer;
+    private final Executor senders;
+    private final Counter resyncs;
+    private final Counter coalesced;
+
+    @Autowired
+    public ChangeFeedService(MeterRegistry meterRegistry,
+                             @Value("${changefeed.buffer-capacity:1000}") int bufferCapacity,
+                             @Value("${changefeed.max-subscribers:500}") int maxSubscribers,
+                             @Value("${changefeed.connection-timeout:PT30M}") Duration connectionTimeout,
+                             @Value("${changefeed.flush-interval:PT0.25S}") Duration flushInterval,
+                             @Value("${changefeed.heartbeat-interval:PT15S}") Duration heartbeatInterval,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.bufferCapacity = bufferCapacity;
+        this.maxSubscribers = maxSubscribers;
+        this.connectionTimeout = connectionTimeout;
+        this.flushInterval = flushInterval;
+        this.heartbeatInterval = heartbeatInterval;
+        this.timer = Executors.newSingleThreadScheduledExecutor(daemonThreads("changefeed-timer-"));
+        this.senders = createSenders(maxSubscribers, virtualThreads);
+        Gauge.builder("changefeed.subscribers", subscribers, Set::size)
+                .description("Open change feed connections")
+                .register(meterRegistry);
+        this.resyncs = Counter.builder("changefeed.resyncs")
+                .description("Change feed buffers that overflowed and asked the client to reload")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("changefeed.changes.coalesced")
+                .description("Product changes replaced by a later change before they were sent")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Virtual threads on Java 21+ when enabled, otherwise threads created on demand up to one per subscriber
+     */
+    private static Executor createSenders(int maxSubscribers, boolean virtualThreads) {
+        if (virtualThreads && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            return new VirtualThreadTaskExecutor("changefeed-sender-");
+        }
+        return new ThreadPoolExecutor(0, maxSubscribers, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                                      daemonThreads("changefeed-sender-"));
+    }
+
+    @PostConstruct
+    public void start() {
+        timer.scheduleWithFixedDelay(this::flushAll, flushInterval.toMillis(), flushInterval.toMillis(),
+                                     TimeUnit.MILLISECONDS);
+        timer.scheduleWithFixedDelay(this::markHeartbeatsDue, heartbeatInterval.toMillis(),
+                                     heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        timer.shutdownNow();
+        if (senders instanceof ExecutorService pool) {
+            pool.shutdown();
+            pool.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    /**
+     * Open a connection; empty when the subscriber limit is reached.
+     * The first event, "ready", tells the client to load its snapshot; deltas follow it.
+     */
+    public Optional<SseEmitter> subscribe() {
+        if (subscribers.size() >= maxSubscribers) {
+            return Optional.empty();
+        }
+        SseEmitter emitter = new SseEmitter(connectionTimeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        try {
+            emitter.send(SseEmitter.event().name("ready").reconnectTime(RECONNECT_MILLIS).data(Map.of()));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return Optional.empty();
+        }
+        subscribers.add(subscriber);
+        return Optional.of(emitter);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offerProduct(event);
+        }
+    }
+
+    @EventListener
+    public void onAlertRaised(AlertRaisedEvent event) {
+        AlertNotice notice = AlertNotice.of(event.getAlert());
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offerAlert(notice);
+        }
+    }
+
+    private void flushAll() {
+        for (Subscriber subscriber : subscribers) {
+            Batch batch = subscriber.takeBatch();
+            if (batch != null) {
+                try {
+                    senders.execute(() -> send(subscriber, batch));
+                } catch (RejectedExecutionException e) {
+                    subscriber.sent();
+                }
+            }
+        }
+    }
+
+    private void markHeartbeatsDue() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatDue();
+        }
+    }
+
+    private void send(Subscriber subscriber, Batch batch) {
+        SseEmitter emitter = subscriber.emitter;
+        try {
+            if (batch.resync) {
+                emitter.send(SseEmitter.event().name("resync").data(Map.of()));
+            } else if (!batch.products.isEmpty()) {
+                emitter.send(SseEmitter.event().name("products").data(batch.products, MediaType.APPLICATION_JSON));
+            }
+            for (AlertNotice alert : batch.alerts) {
+                emitter.send(SseEmitter.event().name("alert").data(alert, MediaType.APPLICATION_JSON));
+            }
+            if (batch.isEmpty()) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; completing the emitter removes it through onCompletion
+            logger.debug("Change feed client disconnected: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            emitter.completeWithError(e);
+        } finally {
+            subscriber.sent();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Compact form of an alert for dashboards; the full alert stays in the alert history
+     */
+    public record AlertNotice(String storeId, String alertType, LocalDateTime timestamp, String message,
+                              int productCount, BigDecimal totalValueAtRisk) {
+
+        static AlertNotice of(ExpirationAlertDTO alert) {
+            return new AlertNotice(alert.getStoreId(), alert.getAlertType(), alert.getTimestamp(), alert.getMessage(),
+                                   alert.getProducts().size(), alert.getTotalValueAtRisk());
+        }
+    }
+
+    private record Batch(boolean resync, List<ProductChangedEvent> products, List<AlertNotice> alerts) {
+
+        boolean isEmpty() {
+            return !resync && products.isEmpty() && alerts.isEmpty();
+        }
+    }
+
+    // One connection and what is waiting to be sent to it
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final LinkedHashMap<Long, ProductChangedEvent> products = new LinkedHashMap<>();
+        private final ArrayDeque<AlertNotice> alerts = new ArrayDeque<>();
+        private boolean resync;
+        private boolean heartbeatDue;
+        private boolean sending;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        synchronized void offerProduct(ProductChangedEvent event) {
+            if (resync) {
+                return;
+            }
+            // Re-inserting moves the product to the end, so changes stay in order of their latest update
+            if (products.remove(event.getProductId()) != null) {
+                coalesced.increment();
+            } else if (products.size() >= bufferCapacity) {
+                products.clear();
+                resync = true;
+                resyncs.increment();
+                return;
+            }
+            products.put(event.getProductId(), event);
+        }
+
+        synchronized void offerAlert(AlertNotice alert) {
+            if (alerts.size() == MAX_BUFFERED_ALERTS) {
+                alerts.pollFirst();
+            }
+            alerts.addLast(alert);
+        }
+
+        synchronized void heartbeatDue() {
+            heartbeatDue = true;
+        }
+
+        /**
+         * Everything pending, or null if nothing is due or a send is still in progress
+         */
+        synchronized Batch takeBatch() {
+            if (sending || (!resync && products.isEmpty() && alerts.isEmpty() && !heartbeatDue)) {
+                return null;
+            }
+            Batch batch = new Batch(resync, new ArrayList<>(products.values()), new ArrayList<>(alerts));
+            products.clear();
+            alerts.clear();
+            resync = false;
+            heartbeatDue = false;
+            sending = true;
+            return batch;
+        }
+
+        synchronized void sent() {
+            sending = false;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.expiration.service;
+
+import com.expiration.entity.Product;
+import com.expiration.event.ProductChangedEvent;
+import com.expiration.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watermark-driven expiration alerting.
+ *
+ * Remembers, per product, the highest alert tier already sent. A delta run only evaluates
+ * products that changed since the last run and, after midnight, the products that just
+ * moved into tomorrow or into the 7-day window. A product is alerted again only when it
+ * reaches a higher tier or its expiration date or store changes, so the cost of a run
+ * follows the number of changes rather than the size of the inventory. A full reconcile
+ * over the current week is used at startup, after a missed day, when too many changes
+ * queue up, and on a fixed interval as a safety net; it scans the stores in parallel.
+ * Each run raises at most one alert per store and tier.
+ */
+@Service
+public class DeltaAlertService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeltaAlertService.class);
+
+    // Beyond this many pending changes a full reconcile is cheaper than the id lookups
+    private static final int MAX_PENDING_CHANGES = 10_000;
+
+    /**
+     * Alert tiers in escalation order
+     */
+    enum Tier {
+        NONE, SEVEN_DAYS, TOMORROW
+    }
+
+    private record Watermark(Tier tier, LocalDate expirationDate, String storeId) {}
+
+    private final ProductRepository productRepository;
+    private final ExpirationCalendarIndex expirationIndex;
+    private final InventorySnapshotService snapshotService;
+    private final AlertService alertService;
+    private final Duration fullReconcileInterval;
+
+    private final Map<Long, Watermark> watermarks = new ConcurrentHashMap<>();
+    private final Set<Long> pendingChanges = ConcurrentHashMap.newKeySet();
+    private volatile boolean fullReconcileRequested = true;
+    private LocalDate lastRunDate;
+    private long lastFullReconcileMillis;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong fullReconciles = new AtomicLong();
+    private final AtomicLong productsEvaluated = new AtomicLong();
+    private final AtomicLong productsAlerted = new AtomicLong();
+    private volatile RunResult lastRun;
+
+    @Autowired
+    public DeltaAlertService(ProductRepository productRepository, ExpirationCalendarIndex expirationIndex,
+                             InventorySnapshotService snapshotService, AlertService alertService,
+                             @Value("${alert.delta.full-reconcile-interval:PT6H}") Duration fullReconcileInterval) {
+        this.productRepository = productRepository;
+        this.expirationIndex = expirationIndex;
+        this.snapshotService = snapshotService;
+        this.alertService = alertService;
+        this.fullReconcileInterval = fullReconcileInterval;
+    }
+
+    /**
+     * Reconcile once startup data is loaded; seeding does not publish change events
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        fullReconcileRequested = true;
+    }
+
+    /**
+     * Queue a committed product change for the next run
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (pendingChanges.size() >= MAX_PENDING_CHANGES) {
+            fullReconcileRequested = true;
+            return;
+        }
+        pendingChanges.add(event.getProductId());
+    }
+
+    /**
+     * Alert on products that changed or crossed a tier since the last run
+     */
+    public RunResult runDelta() {
+        return run(false);
+    }
+
+    /**
+     * Re-evaluate the whole week against the watermarks
+     */
+    public RunResult runFullReconcile() {
+        return run(true);
+    }
+
+    public DeltaMetrics getMetrics() {
+        return new DeltaMetrics(runs.get(), fullReconciles.get(), productsEvaluated.get(), productsAlerted.get(),
+                                watermarks.size(), pendingChanges.size(), lastRun);
+    }
+
+    private synchronized RunResult run(boolean forceFull) {
+        long started = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+
+        boolean full = forceFull || fullReconcileRequested || lastRunDate == null
+                || today.isAfter(lastRunDate.plusDays(1))
+                || !expirationIndex.isReady()
+                || started - lastFullReconcileMillis >= fullReconcileInterval.toMillis();
+
+        // Products to alert on, per store
+        Map<String, List<Product>> tomorrowAlerts = new TreeMap<>();
+        Map<String, List<Product>> sevenDayAlerts = new TreeMap<>();
+        int evaluated;
+        if (full) {
+            fullReconcileRequested = false;
+            // Queued changes stay for the next delta run in case the snapshot predates them;
+            // the watermarks keep them from alerting twice
+            if (pendingChanges.size() >= MAX_PENDING_CHANGES) {
+                pendingChanges.clear();
+            }
+            evaluated = reconcileAll(today, tomorrowAlerts, sevenDayAlerts);
+            lastFullReconcileMillis = started;
+            fullReconciles.incrementAndGet();
+        } else {
+            evaluated = reconcileChanges(today, tomorrowAlerts, sevenDayAlerts);
+        }
+        lastRunDate = today;
+
+        int alerted = send(tomorrowAlerts, "TOMORROW") + send(sevenDayAlerts, "SEVEN_DAYS");
+        runs.incrementAndGet();
+        productsEvaluated.addAndGet(evaluated);
+        productsAlerted.addAndGet(alerted);
+        RunResult result = new RunResult(full, evaluated, alerted, System.currentTimeMillis() - started);
+        lastRun = result;
+        logger.debug("🔁 {} alert run: {} evaluated, {} alerted in {} ms",
+                     full ? "Full" : "Delta", evaluated, alerted, result.getDurationMillis());
+        return result;
+    }
+
+    /**
+     * One alert per store and type, products in expiration order; returns the products alerted
+     */
+    private int send(Map<String, List<Product>> alertsByStore, String alertType) {
+        Comparator<Product> byExpiration = Comparator.comparing(Product::getExpirationDate).thenComparing(Product::getId);
+        int alerted = 0;
+        for (Map.Entry<String, List<Product>> store : alertsByStore.entrySet()) {
+            List<Product> products = store.getValue();
+            products.sort(byExpiration);
+            alertService.sendExpirationAlert(store.getKey(), products, alertType);
+            alerted += products.size();
+        }
+        return alerted;
+    }
+
+    private int reconcileAll(LocalDate today, Map<String, List<Product>> tomorrowAlerts,
+                             Map<String, List<Product>> sevenDayAlerts) {
+        Map<String, List<Product>> weekByStore = snapshotService.scanStores(InventorySnapshot::getWeekProducts);
+        Set<Long> inWindow = new HashSet<>();
+        int evaluated = 0;
+        for (List<Product> weekProducts : weekByStore.values()) {
+            for (Product product : weekProducts) {
+                inWindow.add(product.getId());
+                evaluate(product, today, tomorrowAlerts, sevenDayAlerts);
+            }
+            evaluated += weekProducts.size();
+        }
+        // Only stores that were scanned; a store whose scan failed keeps its watermarks
+        watermarks.entrySet().removeIf(entry -> !inWindow.contains(entry.getKey())
+                && weekByStore.containsKey(entry.getValue().storeId()));
+        return evaluated;
+    }
+
+    private int reconcileChanges(LocalDate today, Map<String, List<Product>> tomorrowAlerts,
+                                 Map<String, List<Product>> sevenDayAlerts) {
+        Set<Long> candidates = new HashSet<>();
+        for (Iterator<Long> it = pendingChanges.iterator(); it.hasNext(); ) {
+            candidates.add(it.next());
+            it.remove();
+        }
+        if (today.isAfter(lastRunDate)) {
+            // Day rollover: only tomorrow and the new last day of the window change tier
+            candidates.addAll(expirationIndex.findIdsExpiringOn(today.plusDays(1)));
+            candidates.addAll(expirationIndex.findIdsExpiringOn(today.plusDays(InventorySnapshot.WEEK_DAYS)));
+            watermarks.values().removeIf(watermark -> watermark.expirationDate().isBefore(today));
+        }
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> missing = new HashSet<>(candidates);
+        for (Product product : productRepository.findAllById(candidates)) {
+            missing.remove(product.getId());
+            evaluate(product, today, tomorrowAlerts, sevenDayAlerts);
+        }
+        // Deleted products
+        watermarks.keySet().removeAll(missing);
+        return candidates.size();
+    }
+
+    private void evaluate(Product product, LocalDate today, Map<String, List<Product>> tomorrowAlerts,
+                          Map<String, List<Product>> sevenDayAlerts) {
+        Tier tier = tierOf(product.getExpirationDate(), today);
+        if (tier == Tier.NONE) {
+            watermarks.remove(product.getId());
+            return;
+        }
+        Watermark watermark = watermarks.get(product.getId());
+        // A new date or a move to another store is alerted like a new product
+        boolean changed = watermark != null && (!watermark.expirationDate().equals(product.getExpirationDate())
+                || !watermark.storeId().equals(product.getStoreId()));
+        if (watermark == null || changed || tier.compareTo(watermark.tier()) > 0) {
+            watermarks.put(product.getId(), new Watermark(tier, product.getExpirationDate(), product.getStoreId()));
+            (tier == Tier.TOMORROW ? tomorrowAlerts : sevenDayAlerts)
+                    .computeIfAbsent(product.getStoreId(), store -> new ArrayList<>())
+                    .add(product);
+        }
+    }
+
+    static Tier tierOf(LocalDate expirationDate, LocalDate today) {
+        long daysLeft = expirationDate.toEpochDay() - today.toEpochDay();
+        if (daysLeft == 1) {
+            return Tier.TOMORROW;
+        }
+        if (daysLeft >= 0 && daysLeft <= InventorySnapshot.WEEK_DAYS) {
+            return Tier.SEVEN_DAYS;
+        }
+        return Tier.NONE;
+    }
+
+    // Inner class for the outcome of one run
+    public static class RunResult {
+        private final boolean fullReconcile;
+        private final int evaluated;
+        private final int alerted;
+        private final long durationMillis;
+
+        public RunResult(boolean fullReconcile, int evaluated, int alerted, long durationMillis) {
+            this.fullReconcile = fullReconcile;
+            this.evaluated = evaluated;
+            this.alerted = alerted;
+            this.durationMillis = durationMillis;
+        }
+
+        public boolean isFullReconcile() {
+            return fullReconcile;
+        }
+
+        public int getEvaluated() {
+            return evaluated;
+        }
+
+        public int getAlerted() {
+            return alerted;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+    }
+
+    // Inner class for cumulative delta alerting metrics
+    public static class DeltaMetrics {
+        private final long runs;
+        private final long fullReconciles;
+        private final long productsEvaluated;
+        private final long productsAlerted;
+        private final int trackedProducts;
+        private final int pendingChanges;
+        private final RunResult lastRun;
+
+        public DeltaMetrics(long runs, long fullReconciles, long productsEvaluated, long productsAlerted,
+                            int trackedProducts, int pendingChanges, RunResult lastRun) {
+            this.runs = runs;
+            this.fullReconciles = fullReconciles;
+            this.productsEvaluated = productsEvaluated;
+            this.productsAlerted = productsAlerted;
+            this.trackedProducts = trackedProducts;
+            this.pendingChanges = pendingChanges;
+            this.lastRun = lastRun;
+        }
+
+        public long getRuns() {
+            return runs;
+        }
+
+        public long getFullReconciles() {
+            return fullReconciles;
+        }
+
+        public long getProductsEvaluated() {
+            return productsEvaluated;
+        }
+
+        public long getProductsAlerted() {
+            return productsAlerted;
+        }
+
+        public int getTrackedProducts() {
+            return trackedProducts;
+        }
+
+        public int getPendingChanges() {
+            return pendingChanges;
+        }
+
+        public RunResult getLastRun() {
+            return lastRun;
+        }
+    }
+}
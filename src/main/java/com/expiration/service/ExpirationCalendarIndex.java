@@ -0,0 +1,326 @@
+package com.expiration.service;
+
+import com.expiration.dto.ProductResponseDTO;
+import com.expiration.event.ProductChangedEvent;
+import com.expiration.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory calendar of product expirations keyed by epoch day.
+ * Each day bucket holds the product ids expiring that day plus the value at risk,
+ * so "expiring within N days" is a walk over N buckets instead of a table scan.
+ *
+ * The index is loaded once the application is ready and kept current from
+ * {@link ProductChangedEvent}s delivered after commit, so rolled-back changes
+ * never reach it. Until the first load completes {@link #isReady()} is false
+ * and callers should fall back to the database.
+ */
+@Service
+public class ExpirationCalendarIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpirationCalendarIndex.class);
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private NavigableMap<Long, DayBucket> buckets = new TreeMap<>();
+    private Map<Long, Entry> entries = new HashMap<>();
+    private List<ProductChangedEvent> pendingDuringRebuild;
+    private volatile boolean ready;
+
+    @Autowired
+    public ExpirationCalendarIndex(ProductRepository productRepository, PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Initial load, after the data initializer has populated the table
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Reload the whole index from the products table.
+     * Changes committed while the table is being scanned are replayed on top of the new state.
+     */
+    public int rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        NavigableMap<Long, DayBucket> newBuckets = new TreeMap<>();
+        Map<Long, Entry> newEntries = new HashMap<>();
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = productRepository.streamExpirationEntries()) {
+                    rows.forEach(row -> add(newBuckets, newEntries, (Long) row[0], toEntry(row)));
+                }
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            buckets = newBuckets;
+            entries = newEntries;
+            List<ProductChangedEvent> pending = pendingDuringRebuild;
+            pendingDuringRebuild = null;
+            pending.forEach(this::apply);
+            ready = true;
+            logger.info("📅 Expiration calendar index loaded: {} products across {} days", entries.size(), buckets.size());
+            return entries.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply a committed product change, ahead of the listeners that invalidate results read through the index
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event);
+            }
+            apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of products expiring on the given date, in id order
+     */
+    public List<Long> findIdsExpiringOn(LocalDate date) {
+        return findIdsExpiringBetween(date, date);
+    }
+
+    /**
+     * Ids of products expiring between two dates (inclusive), in (expirationDate, id) order
+     */
+    public List<Long> findIdsExpiringBetween(LocalDate startDate, LocalDate endDate) {
+        lock.readLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>();
+            buckets.subMap(startDate.toEpochDay(), true, endDate.toEpochDay(), true)
+                    .values()
+                    .forEach(bucket -> ids.addAll(bucket.ids));
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of products expiring strictly before the given date
+     */
+    public List<Long> findIdsExpiringBefore(LocalDate date) {
+        lock.readLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>();
+            buckets.headMap(date.toEpochDay(), false)
+                    .values()
+                    .forEach(bucket -> ids.addAll(bucket.ids));
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count products expiring between two dates (inclusive)
+     */
+    public long countExpiringBetween(LocalDate startDate, LocalDate endDate) {
+        lock.readLock().lock();
+        try {
+            long count = 0;
+            for (DayBucket bucket : buckets.subMap(startDate.toEpochDay(), true, endDate.toEpochDay(), true).values()) {
+                count += bucket.ids.size();
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Total value (price x quantity) of products expiring between two dates (inclusive)
+     */
+    public BigDecimal valueExpiringBetween(LocalDate startDate, LocalDate endDate) {
+        lock.readLock().lock();
+        try {
+            BigDecimal total = BigDecimal.ZERO;
+            for (DayBucket bucket : buckets.subMap(startDate.toEpochDay(), true, endDate.toEpochDay(), true).values()) {
+                total = total.add(bucket.value);
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compare the index against the products table without modifying it
+     */
+    public VerificationReport verify() {
+        Map<Long, Entry> snapshot;
+        lock.readLock().lock();
+        try {
+            snapshot = new HashMap<>(entries);
+        } finally {
+            lock.readLock().unlock();
+        }
+        int indexedCount = snapshot.size();
+
+        long[] tableCount = {0};
+        List<Long> missing = new ArrayList<>();
+        List<Long> mismatched = new ArrayList<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = productRepository.streamExpirationEntries()) {
+                rows.forEach(row -> {
+                    tableCount[0]++;
+                    Long id = (Long) row[0];
+                    Entry indexed = snapshot.remove(id);
+                    if (indexed == null) {
+                        missing.add(id);
+                    } else if (!indexed.matches(toEntry(row))) {
+                        mismatched.add(id);
+                    }
+                });
+            }
+        });
+        List<Long> stale = new ArrayList<>(snapshot.keySet());
+        Collections.sort(stale);
+
+        return new VerificationReport(tableCount[0], indexedCount, missing, stale, mismatched);
+    }
+
+    private static Entry toEntry(Object[] row) {
+        return new Entry(((LocalDate) row[1]).toEpochDay(),
+                         ((BigDecimal) row[2]).multiply(BigDecimal.valueOf((Integer) row[3])));
+    }
+
+    private void apply(ProductChangedEvent event) {
+        remove(buckets, entries, event.getProductId());
+        if (event.getChangeType() != ProductChangedEvent.ChangeType.DELETED) {
+            ProductResponseDTO product = event.getProduct();
+            Entry entry = new Entry(
+                    product.getExpirationDate().toEpochDay(),
+                    product.getPrice().multiply(BigDecimal.valueOf(product.getQuantity())));
+            add(buckets, entries, event.getProductId(), entry);
+        }
+    }
+
+    private static void add(NavigableMap<Long, DayBucket> buckets, Map<Long, Entry> entries, Long id, Entry entry) {
+        entries.put(id, entry);
+        DayBucket bucket = buckets.computeIfAbsent(entry.epochDay, day -> new DayBucket());
+        bucket.ids.add(id);
+        bucket.value = bucket.value.add(entry.value);
+    }
+
+    private static void remove(NavigableMap<Long, DayBucket> buckets, Map<Long, Entry> entries, Long id) {
+        Entry previous = entries.remove(id);
+        if (previous == null) {
+            return;
+        }
+        DayBucket bucket = buckets.get(previous.epochDay);
+        bucket.ids.remove(id);
+        bucket.value = bucket.value.subtract(previous.value);
+        if (bucket.ids.isEmpty()) {
+            buckets.remove(previous.epochDay);
+        }
+    }
+
+    private static final class DayBucket {
+        private final NavigableSet<Long> ids = new TreeSet<>();
+        private BigDecimal value = BigDecimal.ZERO;
+    }
+
+    private record Entry(long epochDay, BigDecimal value) {
+
+        boolean matches(Entry other) {
+            return epochDay == other.epochDay && value.compareTo(other.value) == 0;
+        }
+    }
+
+    // Result of comparing the index with the products table
+    public static class VerificationReport {
+        private final long tableProducts;
+        private final long indexedProducts;
+        private final List<Long> missingFromIndex;
+        private final List<Long> staleInIndex;
+        private final List<Long> mismatched;
+
+        public VerificationReport(long tableProducts, long indexedProducts, List<Long> missingFromIndex,
+                                  List<Long> staleInIndex, List<Long> mismatched) {
+            this.tableProducts = tableProducts;
+            this.indexedProducts = indexedProducts;
+            this.missingFromIndex = missingFromIndex;
+            this.staleInIndex = staleInIndex;
+            this.mismatched = mismatched;
+        }
+
+        public boolean isConsistent() {
+            return missingFromIndex.isEmpty() && staleInIndex.isEmpty() && mismatched.isEmpty();
+        }
+
+        public long getTableProducts() {
+            return tableProducts;
+        }
+
+        public long getIndexedProducts() {
+            return indexedProducts;
+        }
+
+        public List<Long> getMissingFromIndex() {
+            return missingFromIndex;
+        }
+
+        public List<Long> getStaleInIndex() {
+            return staleInIndex;
+        }
+
+        public List<Long> getMismatched() {
+            return mismatched;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.expiration.service;
+
+import com.expiration.dto.ExpirationAlertDTO;
+import com.expiration.dto.ExportQuery;
+import com.expiration.dto.ProductView;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Writes product and alert exports as CSV or NDJSON straight onto a response stream.
+ * Rows are written as the cursor yields them and the output is flushed every
+ * {@value #FLUSH_ROWS} rows, so the client receives a chunked stream and nothing is
+ * buffered beyond the writer's own buffer.
+ */
+@Service
+public class ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    private static final int FLUSH_ROWS = 1000;
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    private static final String[] PRODUCT_COLUMNS = {"id", "name", "category", "expirationDate", "quantity", "price",
+            "storeId", "createdAt", "daysUntilExpiration", "status"};
+    private static final String[] ALERT_COLUMNS = {"raisedAt", "alertType", "storeId", "productId", "name", "category",
+            "expirationDate", "quantity", "price", "daysUntilExpiration"};
+
+    private final ProductService productService;
+    private final AlertService alertService;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ExportService(ProductService productService, AlertService alertService, ObjectMapper objectMapper) {
+        this.productService = productService;
+        this.alertService = alertService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write every product matching the query; returns the number of rows written
+     */
+    public long exportProducts(ExportQuery query, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        try (RowWriter rows = new RowWriter(query.getFormat(), out, PRODUCT_COLUMNS)) {
+            productService.exportProducts(query, product -> rows.write(generator -> generator.writeObject(product),
+                    product.id(), product.name(), product.category(), product.expirationDate(), product.quantity(),
+                    product.price(), product.storeId(), product.createdAt(), product.daysUntilExpiration(),
+                    product.status()));
+            logger.info("📤 Exported {} product(s) as {} in {} ms", rows.count, query.getFormat(),
+                        System.currentTimeMillis() - start);
+            return rows.count;
+        }
+    }
+
+    /**
+     * Write one row per alerted product matching the query, oldest alert first; returns the number of rows written
+     */
+    public long exportAlerts(ExportQuery query, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        try (RowWriter rows = new RowWriter(query.getFormat(), out, ALERT_COLUMNS)) {
+            alertService.forEachAlert(query, alert -> {
+                if (alert.getProducts() == null) {
+                    return;
+                }
+                for (ExpirationAlertDTO.ProductAlertInfo product : alert.getProducts()) {
+                    if (query.matches(alert.getStoreId(), product.getCategory(), product.getExpirationDate())) {
+                        writeAlertRow(rows, alert, product);
+                    }
+                }
+            });
+            logger.info("📤 Exported {} alerted product row(s) as {} in {} ms", rows.count, query.getFormat(),
+                        System.currentTimeMillis() - start);
+            return rows.count;
+        }
+    }
+
+    private static void writeAlertRow(RowWriter rows, ExpirationAlertDTO alert, ExpirationAlertDTO.ProductAlertInfo product) {
+        rows.write(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("raisedAt", Objects.toString(alert.getTimestamp(), null));
+            generator.writeStringField("alertType", alert.getAlertType());
+            generator.writeStringField("storeId", alert.getStoreId());
+            generator.writeObjectField("productId", product.getId());
+            generator.writeStringField("name", product.getName());
+            generator.writeStringField("category", product.getCategory());
+            generator.writeStringField("expirationDate", Objects.toString(product.getExpirationDate(), null));
+            generator.writeObjectField("quantity", product.getQuantity());
+            generator.writeObjectField("price", product.getPrice());
+            generator.writeObjectField("daysUntilExpiration", product.getDaysUntilExpiration());
+            generator.writeEndObject();
+        }, alert.getTimestamp(), alert.getAlertType(), alert.getStoreId(), product.getId(), product.getName(),
+                product.getCategory(), product.getExpirationDate(), product.getQuantity(), product.getPrice(),
+                product.getDaysUntilExpiration());
+    }
+
+    private interface JsonRow {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * Writes rows in one format: CSV with a header line, or one JSON object per line
+     */
+    private final class RowWriter implements AutoCloseable {
+
+        private final ExportQuery.Format format;
+        private final Writer writer;
+        private final JsonGenerator generator;
+        private long count;
+
+        RowWriter(ExportQuery.Format format, OutputStream out, String[] columns) throws IOException {
+            this.format = format;
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_CHARS);
+            if (format == ExportQuery.Format.NDJSON) {
+                this.generator = objectMapper.getFactory().createGenerator(writer);
+                // Lines are separated explicitly below, not by the root separator
+                this.generator.setRootValueSeparator(null);
+            } else {
+                this.generator = null;
+                writeCsvLine((Object[]) columns);
+            }
+        }
+
+        /**
+         * Write one row; the JSON form is used for NDJSON and the values, in column order, for CSV
+         */
+        void write(JsonRow json, Object... values) {
+            try {
+                if (format == ExportQuery.Format.NDJSON) {
+                    json.write(generator);
+                    generator.writeRaw('\n');
+                } else {
+                    writeCsvLine(values);
+                }
+                if (++count % FLUSH_ROWS == 0) {
+                    flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeCsvLine(Object... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] != null) {
+                    writeCsvField(values[i].toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        /**
+         * RFC 4180: quote fields holding a separator, quote or line break, doubling embedded quotes
+         */
+        private void writeCsvField(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        private void flush() throws IOException {
+            if (generator != null) {
+                generator.flush();
+            } else {
+                writer.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (generator != null) {
+                generator.close();
+            }
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.expiration.service;
+
+import com.expiration.dto.ProductCreateDTO;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parses and validates the lines of one chunk of an inventory CSV into {@link ProductCreateDTO}s.
+ *
+ * Columns are matched by the header, case-insensitively and in any order: name, category,
+ * expirationDate (ISO date), quantity and price are required, storeId is optional. Fields may
+ * be quoted as in RFC 4180 but a record must not span lines, since chunks are split at line
+ * breaks. Each row is validated with the same Bean Validation constraints as the API, and
+ * every problem is reported against its line number. Instances are immutable and shared by
+ * the parse threads.
+ */
+final class InventoryCsvParser {
+
+    private static final String[] COLUMNS = {"name", "category", "expirationDate", "quantity", "price", "storeId"};
+    private static final int NAME = 0;
+    private static final int CATEGORY = 1;
+    private static final int EXPIRATION_DATE = 2;
+    private static final int QUANTITY = 3;
+    private static final int PRICE = 4;
+    private static final int STORE_ID = 5;
+
+    /** A line or field problem; field is "line" when the line could not be split */
+    record LineError(long line, String field, String message) {}
+
+    /** Lines [firstLine, firstLine + lines) of the file, stored in bytes [start, end) */
+    record Chunk(int index, long start, long end, long firstLine) {}
+
+    record ParsedChunk(Chunk chunk, int lines, List<ProductCreateDTO> products, List<LineError> errors) {
+
+        /** Lines with at least one error */
+        int rejected() {
+            int rejected = 0;
+            long previous = -1;
+            for (LineError error : errors) {
+                if (error.line() != previous) {
+                    rejected++;
+                    previous = error.line();
+                }
+            }
+            return rejected;
+        }
+    }
+
+    private final Validator validator;
+    // Position of each of COLUMNS in a line, -1 when the optional store column is absent
+    private final int[] positions;
+    private final int fieldCount;
+
+    private InventoryCsvParser(Validator validator, int[] positions, int fieldCount) {
+        this.validator = validator;
+        this.positions = positions;
+        this.fieldCount = fieldCount;
+    }
+
+    /**
+     * Parser for files with the given header line
+     */
+    static InventoryCsvParser forHeader(String header, Validator validator) {
+        List<String> fields = split(stripLineEnd(header.startsWith("\uFEFF") ? header.substring(1) : header));
+        if (fields == null) {
+            throw new IllegalArgumentException("CSV header has an unterminated quote");
+        }
+        int[] positions = new int[COLUMNS.length];
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < fields.size(); i++) {
+            String field = fields.get(i).trim().toLowerCase(Locale.ROOT);
+            for (int c = 0; c < COLUMNS.length; c++) {
+                if (COLUMNS[c].toLowerCase(Locale.ROOT).equals(field)) {
+                    if (positions[c] >= 0) {
+                        throw new IllegalArgumentException("CSV header repeats column " + COLUMNS[c]);
+                    }
+                    positions[c] = i;
+                }
+            }
+        }
+        for (int c = 0; c < STORE_ID; c++) {
+            if (positions[c] < 0) {
+                throw new IllegalArgumentException("CSV header is missing column " + COLUMNS[c]
+                                                   + " (required: name, category, expirationDate, quantity, price)");
+            }
+        }
+        return new InventoryCsvParser(validator, positions, fields.size());
+    }
+
+    /**
+     * Parse the chunk's bytes; blank lines are counted but produce neither a product nor an error
+     */
+    ParsedChunk parse(Chunk chunk, byte[] bytes) {
+        List<ProductCreateDTO> products = new ArrayList<>();
+        List<LineError> errors = new ArrayList<>();
+        long line = chunk.firstLine();
+        int lines = 0;
+        int start = 0;
+        while (start < bytes.length) {
+            int end = start;
+            while (end < bytes.length && bytes[end] != '\n') {
+                end++;
+            }
+            String text = stripLineEnd(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+            if (!text.isBlank()) {
+                ProductCreateDTO product = parseLine(line, text, errors);
+                if (product != null) {
+                    products.add(product);
+                }
+            }
+            lines++;
+            line++;
+            start = end + 1;
+        }
+        return new ParsedChunk(chunk, lines, products, errors);
+    }
+
+    private ProductCreateDTO parseLine(long line, String text, List<LineError> errors) {
+        List<String> fields = split(text);
+        if (fields == null) {
+            errors.add(new LineError(line, "line", "Unterminated quote"));
+            return null;
+        }
+        if (fields.size() != fieldCount) {
+            errors.add(new LineError(line, "line", "Expected " + fieldCount + " fields, found " + fields.size()));
+            return null;
+        }
+
+        int errorsBefore = errors.size();
+        ProductCreateDTO product = new ProductCreateDTO();
+        product.setName(field(fields, NAME));
+        product.setCategory(field(fields, CATEGORY));
+        String expirationDate = field(fields, EXPIRATION_DATE);
+        if (expirationDate != null) {
+            try {
+                product.setExpirationDate(LocalDate.parse(expirationDate));
+            } catch (DateTimeParseException e) {
+                errors.add(new LineError(line, COLUMNS[EXPIRATION_DATE], "Must be an ISO date (yyyy-MM-dd)"));
+            }
+        }
+        String quantity = field(fields, QUANTITY);
+        if (quantity != null) {
+            try {
+                product.setQuantity(Integer.valueOf(quantity));
+            } catch (NumberFormatException e) {
+                errors.add(new LineError(line, COLUMNS[QUANTITY], "Must be a whole number"));
+            }
+        }
+        String price = field(fields, PRICE);
+        if (price != null) {
+            try {
+                product.setPrice(new BigDecimal(price));
+            } catch (NumberFormatException e) {
+                errors.add(new LineError(line, COLUMNS[PRICE], "Must be a decimal number"));
+            }
+        }
+        product.setStoreId(field(fields, STORE_ID));
+
+        List<LineError> violations = new ArrayList<>();
+        for (ConstraintViolation<ProductCreateDTO> violation : validator.validate(product)) {
+            String property = violation.getPropertyPath().toString();
+            // A value that did not parse is already reported; its null must not also read as missing
+            if (errors.subList(errorsBefore, errors.size()).stream().noneMatch(e -> e.field().equals(property))) {
+                violations.add(new LineError(line, property, violation.getMessage()));
+            }
+        }
+        violations.sort(Comparator.comparing(LineError::field));
+        errors.addAll(violations);
+        return errors.size() == errorsBefore ? product : null;
+    }
+
+    /**
+     * The trimmed field for a column, or null when it is empty or the column is absent
+     */
+    private String field(List<String> fields, int column) {
+        int position = positions[column];
+        if (position < 0) {
+            return null;
+        }
+        String value = fields.get(position).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String stripLineEnd(String text) {
+        return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+    }
+
+    /**
+     * Split a line into fields, unquoting quoted ones; null when a quote is not closed
+     */
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
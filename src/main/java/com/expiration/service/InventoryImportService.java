@@ -0,0 +1,544 @@
+package com.expiration.service;
+
+import com.expiration.dto.ProductCreateDTO;
+import com.expiration.dto.ProductResponseDTO;
+import com.expiration.entity.ImportChunk;
+import com.expiration.entity.Product;
+import com.expiration.event.ProductChangedEvent;
+import com.expiration.exception.ImportNotFoundException;
+import com.expiration.repository.ImportChunkRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Imports supplier inventory CSV files of any size.
+ *
+ * An upload is spooled to the import directory and processed in the background. One pass
+ * over the file with positional NIO reads splits it into chunks of chunk-lines lines. The
+ * parse pool reads, parses and validates chunks in parallel ({@link InventoryCsvParser}).
+ * Parsed chunks pass through a bounded queue to the writers, so parsing can only run
+ * queue-capacity chunks ahead of the database. Each writer commits one chunk per
+ * transaction: its valid rows as JDBC-batched inserts, plus an {@link ImportChunk}
+ * checkpoint. Resuming a job re-reads the file with the chunk size its checkpoints recorded
+ * and skips every checkpointed chunk, after checking the chunk still covers the same bytes.
+ *
+ * Rejected lines go to a per-chunk error file, written before the chunk commits and
+ * overwritten if it is retried, so the error report has each line exactly once.
+ */
+@Service
+public class InventoryImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryImportService.class);
+
+    private static final Pattern JOB_ID = Pattern.compile("[0-9a-f]{32}");
+    private static final String SUFFIX = ".csv";
+    private static final int SCAN_BUFFER_BYTES = 1 << 20;
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private final ImportChunkRepository importChunkRepository;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Path directory;
+    private final int chunkLines;
+    private final int writers;
+    private final int queueCapacity;
+    private final ExecutorService parsePool;
+    private final ExecutorService jobPool;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public InventoryImportService(ImportChunkRepository importChunkRepository, EntityManager entityManager,
+                                  Validator validator, PlatformTransactionManager transactionManager,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${inventory.import.dir:data/imports}") String directory,
+                                  @Value("${inventory.import.chunk-lines:5000}") int chunkLines,
+                                  @Value("${inventory.import.parse-threads:0}") int parseThreads,
+                                  @Value("${inventory.import.writers:2}") int writers,
+                                  @Value("${inventory.import.queue-capacity:8}") int queueCapacity) throws IOException {
+        if (chunkLines < 1 || writers < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("inventory.import chunk-lines, writers and queue-capacity must be positive");
+        }
+        this.importChunkRepository = importChunkRepository;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.directory = Paths.get(directory);
+        this.chunkLines = chunkLines;
+        this.writers = writers;
+        this.queueCapacity = queueCapacity;
+        this.parsePool = newPool(parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors(),
+                                 "import-parse-");
+        // One coordinator and its writers per running job
+        this.jobPool = Executors.newCachedThreadPool(daemonThreads("import-job-"));
+        Files.createDirectories(this.directory);
+    }
+
+    private static ExecutorService newPool(int threads, String prefix) {
+        return Executors.newFixedThreadPool(threads, daemonThreads(prefix));
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void stop() {
+        jobs.values().forEach(job -> job.fail("Application shut down"));
+        jobPool.shutdownNow();
+        parsePool.shutdownNow();
+    }
+
+    /**
+     * Spool an uploaded CSV and start importing it; returns the new job's status
+     */
+    public Map<String, Object> startImport(InputStream csv) throws IOException {
+        String jobId = UUID.randomUUID().toString().replace("-", "");
+        Path file = directory.resolve(jobId + SUFFIX);
+        Path spooling = directory.resolve(jobId + SUFFIX + ".part");
+        Files.copy(csv, spooling);
+        Files.move(spooling, file, StandardCopyOption.ATOMIC_MOVE);
+        return launch(jobId, file).status();
+    }
+
+    /**
+     * Run a job again from its last committed chunks, e.g. after a failure or a restart
+     */
+    public synchronized Map<String, Object> resumeImport(String jobId) {
+        Path file = jobFile(jobId);
+        ImportJob current = jobs.get(jobId);
+        if (current != null && current.state == State.RUNNING) {
+            throw new IllegalArgumentException("Import " + jobId + " is still running");
+        }
+        return launch(jobId, file).status();
+    }
+
+    /**
+     * Progress of a job; jobs from before a restart report what their checkpoints recorded
+     */
+    public Map<String, Object> getStatus(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job != null) {
+            return job.status();
+        }
+        jobFile(jobId);
+        Object[] summary = importChunkRepository.summarizeJob(jobId).get(0);
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("id", jobId);
+        status.put("state", "INTERRUPTED");
+        status.put("chunksCommitted", ((Number) summary[0]).longValue());
+        status.put("lines", ((Number) summary[1]).longValue());
+        status.put("imported", ((Number) summary[2]).longValue());
+        status.put("rejected", ((Number) summary[3]).longValue());
+        return status;
+    }
+
+    /**
+     * Write the job's error report as CSV (line, field, message) in line order
+     */
+    public void writeErrorReport(String jobId, OutputStream out) throws IOException {
+        jobFile(jobId);
+        out.write("line,field,message\r\n".getBytes(StandardCharsets.UTF_8));
+        Path errors = errorDirectory(jobId);
+        if (!Files.isDirectory(errors)) {
+            return;
+        }
+        List<Path> chunkFiles;
+        try (Stream<Path> files = Files.list(errors)) {
+            // Zero-padded chunk numbers, so name order is line order
+            chunkFiles = files.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+        for (Path chunkFile : chunkFiles) {
+            Files.copy(chunkFile, out);
+        }
+    }
+
+    private Path jobFile(String jobId) {
+        Path file = JOB_ID.matcher(jobId).matches() ? directory.resolve(jobId + SUFFIX) : null;
+        if (file == null || !Files.isRegularFile(file)) {
+            throw new ImportNotFoundException("Unknown import: " + jobId);
+        }
+        return file;
+    }
+
+    private Path errorDirectory(String jobId) {
+        return directory.resolve(jobId + ".errors");
+    }
+
+    private ImportJob launch(String jobId, Path file) {
+        ImportJob job = new ImportJob(jobId);
+        jobs.put(jobId, job);
+        jobPool.execute(() -> run(job, file));
+        return job;
+    }
+
+    private void run(ImportJob job, Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Files.createDirectories(errorDirectory(job.id));
+            Map<Integer, ImportChunk> committed = new HashMap<>();
+            for (ImportChunk checkpoint : importChunkRepository.findByJobId(job.id)) {
+                committed.put(checkpoint.getChunkIndex(), checkpoint);
+            }
+            job.chunkLines = resumedChunkLines(job.id, committed.values());
+            BlockingQueue<Future<InventoryCsvParser.ParsedChunk>> handOff = new ArrayBlockingQueue<>(queueCapacity);
+            List<Future<?>> writerTasks = new ArrayList<>(writers);
+            for (int i = 0; i < writers; i++) {
+                writerTasks.add(jobPool.submit(() -> writeChunks(job, handOff)));
+            }
+
+            try {
+                split(job, channel, committed, handOff);
+            } catch (RuntimeException e) {
+                job.fail(e.getMessage());
+            } finally {
+                // Always end the writers, which drain without writing once the job has failed
+                for (int i = 0; i < writers; i++) {
+                    handOff.put(CompletableFuture.completedFuture(null));
+                }
+            }
+            for (Future<?> writerTask : writerTasks) {
+                writerTask.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("Interrupted");
+        } catch (ExecutionException e) {
+            job.fail(e.getCause().getMessage());
+        } catch (IOException | RuntimeException e) {
+            job.fail(e.getMessage());
+        }
+        job.finish();
+        logger.info("📥 Import {} {}: {} line(s), {} imported, {} rejected, {} skipped chunk(s), {} rows/s",
+                    job.id, job.state, job.lines.sum(), job.imported.sum(), job.rejected.sum(), job.chunksSkipped,
+                    job.rowsPerSecond());
+        if (job.state == State.FAILED) {
+            logger.warn("Import {} failed: {}", job.id, job.error.get());
+        }
+    }
+
+    /**
+     * Chunk size of a job's checkpoints, or the configured one for a job without any; a job keeps
+     * its chunk size for life, since chunk indexes only identify the same lines at the same size
+     */
+    private int resumedChunkLines(String jobId, Collection<ImportChunk> checkpoints) {
+        int recorded = -1;
+        for (ImportChunk checkpoint : checkpoints) {
+            if (recorded >= 0 && checkpoint.getChunkLines() != recorded) {
+                throw new IllegalStateException("Import " + jobId + " has checkpoints of " + recorded + " and "
+                                                + checkpoint.getChunkLines() + " lines per chunk");
+            }
+            recorded = checkpoint.getChunkLines();
+        }
+        if (recorded < 0) {
+            return chunkLines;
+        }
+        if (recorded != chunkLines) {
+            logger.info("📥 Resuming import {} with its original {} lines per chunk (configured: {})",
+                        jobId, recorded, chunkLines);
+        }
+        return recorded;
+    }
+
+    /**
+     * Scan the file once for line breaks and hand every uncommitted chunk to the parse pool.
+     * Blocks while the hand-off queue is full.
+     */
+    private void split(ImportJob job, FileChannel channel, Map<Integer, ImportChunk> committed,
+                       BlockingQueue<Future<InventoryCsvParser.ParsedChunk>> handOff) throws IOException, InterruptedException {
+        long size = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(SCAN_BUFFER_BYTES);
+        InventoryCsvParser parser = null;
+        long position = 0;
+        long chunkStart = -1;
+        long linesInChunk = 0;
+        // Line numbers count the header as line 1
+        long line = 2;
+        int chunkIndex = 0;
+
+        while (position < size && job.state == State.RUNNING) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) != '\n') {
+                    continue;
+                }
+                long lineEnd = position + i + 1;
+                if (parser == null) {
+                    parser = InventoryCsvParser.forHeader(readString(channel, 0, lineEnd), validator);
+                    chunkStart = lineEnd;
+                } else if (++linesInChunk == job.chunkLines) {
+                    submit(job, channel, parser, committed, handOff,
+                           new InventoryCsvParser.Chunk(chunkIndex++, chunkStart, lineEnd, line));
+                    line += linesInChunk;
+                    linesInChunk = 0;
+                    chunkStart = lineEnd;
+                }
+            }
+            position += read;
+        }
+
+        if (parser == null) {
+            // No line break: the file is at most a header
+            if (size == 0) {
+                throw new IllegalArgumentException("CSV file is empty");
+            }
+            InventoryCsvParser.forHeader(readString(channel, 0, size), validator);
+            job.chunksTotal = 0;
+            return;
+        }
+        if (chunkStart < size) {
+            submit(job, channel, parser, committed, handOff, new InventoryCsvParser.Chunk(chunkIndex++, chunkStart, size, line));
+        }
+        job.chunksTotal = chunkIndex;
+    }
+
+    private void submit(ImportJob job, FileChannel channel, InventoryCsvParser parser,
+                        Map<Integer, ImportChunk> committed, BlockingQueue<Future<InventoryCsvParser.ParsedChunk>> handOff,
+                        InventoryCsvParser.Chunk chunk) throws InterruptedException {
+        ImportChunk checkpoint = committed.get(chunk.index());
+        if (checkpoint != null) {
+            if (checkpoint.getStartOffset() != chunk.start() || checkpoint.getEndOffset() != chunk.end()) {
+                throw new IllegalStateException("Chunk " + chunk.index() + " was committed for bytes "
+                                                + checkpoint.getStartOffset() + "-" + checkpoint.getEndOffset()
+                                                + " but now spans " + chunk.start() + "-" + chunk.end()
+                                                + "; the import file has changed");
+            }
+            job.chunksSkipped++;
+            return;
+        }
+        Future<InventoryCsvParser.ParsedChunk> parsed = CompletableFuture.supplyAsync(
+                () -> parser.parse(chunk, readBytes(channel, chunk.start(), chunk.end())), parsePool);
+        // Wait for room, but give up once a writer has failed the job
+        while (!handOff.offer(parsed, 100, TimeUnit.MILLISECONDS)) {
+            if (job.state != State.RUNNING) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writer loop: take parsed chunks in submission order and commit each one; a completed null ends the loop
+     */
+    private void writeChunks(ImportJob job, BlockingQueue<Future<InventoryCsvParser.ParsedChunk>> handOff) {
+        while (true) {
+            InventoryCsvParser.ParsedChunk parsed;
+            try {
+                parsed = handOff.take().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                job.fail("Interrupted");
+                return;
+            } catch (ExecutionException e) {
+                job.fail(e.getCause().getMessage());
+                continue;
+            }
+            if (parsed == null) {
+                return;
+            }
+            if (job.state != State.RUNNING) {
+                // Drain without writing so the splitter is never left blocked
+                continue;
+            }
+            try {
+                commit(job, parsed);
+            } catch (RuntimeException e) {
+                job.fail("Chunk " + parsed.chunk().index() + " (lines from " + parsed.chunk().firstLine()
+                         + ") rolled back: " + e.getMessage());
+            }
+        }
+    }
+
+    private void commit(ImportJob job, InventoryCsvParser.ParsedChunk parsed) {
+        writeErrors(job.id, parsed);
+        int rejected = parsed.rejected();
+        List<Product> persisted = new ArrayList<>(parsed.products().size());
+        transactionTemplate.executeWithoutResult(status -> {
+            // Imported rows are not read back soon; keep them out of the second-level cache
+            entityManager.setProperty("jakarta.persistence.cache.storeMode", CacheStoreMode.BYPASS);
+            for (ProductCreateDTO item : parsed.products()) {
+                Product product = new Product(item.getStoreId() != null ? item.getStoreId() : Product.DEFAULT_STORE,
+                                              item.getName(), item.getCategory(), item.getExpirationDate(),
+                                              item.getQuantity(), item.getPrice());
+                entityManager.persist(product);
+                persisted.add(product);
+            }
+            InventoryCsvParser.Chunk chunk = parsed.chunk();
+            entityManager.persist(new ImportChunk(job.id, chunk.index(), job.chunkLines, chunk.start(), chunk.end(),
+                                                  parsed.lines(), persisted.size(), rejected));
+            entityManager.flush();
+            persisted.forEach(product -> eventPublisher.publishEvent(
+                    ProductChangedEvent.created(new ProductResponseDTO(product))));
+            entityManager.clear();
+        });
+        job.lines.add(parsed.lines());
+        job.imported.add(persisted.size());
+        job.rejected.add(rejected);
+        job.chunksCommitted.increment();
+    }
+
+    /**
+     * Replace the chunk's error file; written before the commit so a retried chunk rewrites rather than repeats it
+     */
+    private void writeErrors(String jobId, InventoryCsvParser.ParsedChunk parsed) {
+        Path chunkFile = errorDirectory(jobId).resolve(String.format("%010d%s", parsed.chunk().index(), SUFFIX));
+        try {
+            if (parsed.errors().isEmpty()) {
+                Files.deleteIfExists(chunkFile);
+                return;
+            }
+            Path temporary = chunkFile.resolveSibling(chunkFile.getFileName() + ".part");
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                for (InventoryCsvParser.LineError error : parsed.errors()) {
+                    writer.write(error.line() + "," + error.field() + "," + quote(error.message()) + "\r\n");
+                }
+            }
+            Files.move(temporary, chunkFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write import errors to " + chunkFile, e);
+        }
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static byte[] readBytes(FileChannel channel, long start, long end) {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(end - start));
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    throw new IOException("File ended before byte " + end);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.array();
+    }
+
+    private static String readString(FileChannel channel, long start, long end) {
+        return new String(readBytes(channel, start, end), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Progress of one run of a job
+     */
+    private static final class ImportJob {
+
+        private final String id;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final LongAdder lines = new LongAdder();
+        private final LongAdder imported = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder chunksCommitted = new LongAdder();
+        private final AtomicReference<String> error = new AtomicReference<>();
+        private volatile State state = State.RUNNING;
+        // Set before the writers start
+        private int chunkLines;
+        private volatile int chunksTotal = -1;
+        private volatile int chunksSkipped;
+        private volatile long finishNanos;
+
+        ImportJob(String id) {
+            this.id = id;
+        }
+
+        void fail(String message) {
+            error.compareAndSet(null, message);
+            state = State.FAILED;
+        }
+
+        void finish() {
+            finishNanos = System.nanoTime();
+            if (state == State.RUNNING) {
+                state = State.COMPLETED;
+            }
+        }
+
+        /**
+         * Lines committed by this run per second of its wall-clock time
+         */
+        long rowsPerSecond() {
+            long elapsed = (finishNanos != 0 ? finishNanos : System.nanoTime()) - startNanos;
+            return elapsed > 0 ? lines.sum() * TimeUnit.SECONDS.toNanos(1) / elapsed : 0;
+        }
+
+        Map<String, Object> status() {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("id", id);
+            status.put("state", state);
+            status.put("startedAt", startedAt);
+            status.put("lines", lines.sum());
+            status.put("imported", imported.sum());
+            status.put("rejected", rejected.sum());
+            status.put("chunksCommitted", chunksCommitted.sum());
+            status.put("chunksSkipped", chunksSkipped);
+            status.put("chunksTotal", chunksTotal >= 0 ? chunksTotal : null);
+            status.put("rowsPerSecond", rowsPerSecond());
+            status.put("error", error.get());
+            return status;
+        }
+    }
+}
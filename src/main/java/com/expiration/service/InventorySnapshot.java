@@ -0,0 +1,155 @@
+package com.expiration.service;
+
+import com.expiration.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Immutable classification of every product expiring within the next week (or already
+ * expired) into the buckets the scheduler jobs and alert endpoints work with.
+ * Each product lands in exactly one bucket. A snapshot covers one store, or every store
+ * when it was merged from per-store snapshots.
+ */
+public final class InventorySnapshot {
+
+    public enum Bucket {
+        EXPIRED, TODAY, TOMORROW, LATER_THIS_WEEK
+    }
+
+    public static final int WEEK_DAYS = 7;
+
+    private static final Comparator<Product> EXPIRATION_ORDER =
+            Comparator.comparing(Product::getExpirationDate).thenComparing(Product::getId);
+
+    private final String storeId;
+    private final LocalDate date;
+    private final long dataVersion;
+    private final Map<Bucket, List<Product>> products;
+    private final Map<Bucket, BigDecimal> values;
+    private final Map<String, Map<Bucket, Long>> categoryCounts;
+
+    private InventorySnapshot(String storeId, LocalDate date, long dataVersion, Map<Bucket, List<Product>> products,
+                              Map<Bucket, BigDecimal> values, Map<String, Map<Bucket, Long>> categoryCounts) {
+        this.storeId = storeId;
+        this.date = date;
+        this.dataVersion = dataVersion;
+        this.products = products;
+        this.values = values;
+        this.categoryCounts = categoryCounts;
+    }
+
+    /**
+     * Classify products already ordered by expiration date
+     */
+    static InventorySnapshot classify(String storeId, LocalDate date, long dataVersion, List<Product> orderedProducts) {
+        Map<Bucket, List<Product>> products = new EnumMap<>(Bucket.class);
+        Map<Bucket, BigDecimal> values = new EnumMap<>(Bucket.class);
+        for (Bucket bucket : Bucket.values()) {
+            products.put(bucket, new ArrayList<>());
+            values.put(bucket, BigDecimal.ZERO);
+        }
+        Map<String, Map<Bucket, Long>> categoryCounts = new TreeMap<>();
+
+        long today = date.toEpochDay();
+        for (Product product : orderedProducts) {
+            long daysLeft = product.getExpirationDate().toEpochDay() - today;
+            if (daysLeft > WEEK_DAYS) {
+                continue;
+            }
+            Bucket bucket = daysLeft < 0 ? Bucket.EXPIRED
+                    : daysLeft == 0 ? Bucket.TODAY
+                    : daysLeft == 1 ? Bucket.TOMORROW
+                    : Bucket.LATER_THIS_WEEK;
+            products.get(bucket).add(product);
+            values.merge(bucket, product.getPrice().multiply(BigDecimal.valueOf(product.getQuantity())), BigDecimal::add);
+            categoryCounts.computeIfAbsent(product.getCategory(), c -> new EnumMap<>(Bucket.class))
+                    .merge(bucket, 1L, Long::sum);
+        }
+
+        products.replaceAll((bucket, list) -> Collections.unmodifiableList(list));
+        categoryCounts.replaceAll((category, counts) -> Collections.unmodifiableMap(counts));
+        return new InventorySnapshot(storeId, date, dataVersion, Collections.unmodifiableMap(products),
+                                     Collections.unmodifiableMap(values), Collections.unmodifiableMap(categoryCounts));
+    }
+
+    /**
+     * Combine per-store snapshots into one covering all of them, without querying again
+     */
+    static InventorySnapshot merge(LocalDate date, long dataVersion, Collection<InventorySnapshot> stores) {
+        List<Product> products = new ArrayList<>();
+        for (InventorySnapshot store : stores) {
+            for (Bucket bucket : Bucket.values()) {
+                products.addAll(store.products.get(bucket));
+            }
+        }
+        products.sort(EXPIRATION_ORDER);
+        return classify(null, date, dataVersion, products);
+    }
+
+    /**
+     * Store this snapshot covers, or null for a snapshot of every store
+     */
+    public String getStoreId() {
+        return storeId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    public List<Product> getProducts(Bucket bucket) {
+        return products.get(bucket);
+    }
+
+    public BigDecimal getValue(Bucket bucket) {
+        return values.get(bucket);
+    }
+
+    public List<Product> getExpiredProducts() {
+        return products.get(Bucket.EXPIRED);
+    }
+
+    public List<Product> getTomorrowProducts() {
+        return products.get(Bucket.TOMORROW);
+    }
+
+    /**
+     * Products expiring from today through the next 7 days, in expiration order
+     */
+    public List<Product> getWeekProducts() {
+        return concat(Bucket.TODAY, Bucket.TOMORROW, Bucket.LATER_THIS_WEEK);
+    }
+
+    /**
+     * Products for a SEVEN_DAYS alert raised alongside a TOMORROW alert:
+     * the week without tomorrow's products, which the TOMORROW alert already covers
+     */
+    public List<Product> getSevenDayAlertProducts() {
+        return concat(Bucket.TODAY, Bucket.LATER_THIS_WEEK);
+    }
+
+    public BigDecimal getWeekValue() {
+        return values.get(Bucket.TODAY).add(values.get(Bucket.TOMORROW)).add(values.get(Bucket.LATER_THIS_WEEK));
+    }
+
+    /**
+     * Product counts per category and bucket
+     */
+    public Map<String, Map<Bucket, Long>> getCategoryCounts() {
+        return categoryCounts;
+    }
+
+    private List<Product> concat(Bucket... buckets) {
+        List<Product> result = new ArrayList<>();
+        for (Bucket bucket : buckets) {
+            result.addAll(products.get(bucket));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,206 @@
+package com.expiration.service;
+
+import com.expiration.event.ProductChangedEvent;
+import com.expiration.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Computes the {@link InventorySnapshot}s shared by the scheduler jobs and the manual alert check.
+ *
+ * Inventory is partitioned by store: each store's snapshot comes from one scan of that store's
+ * range of the (store_id, expiration_date, id) index and is reused until the day changes or a
+ * change to one of its products commits, so a change in one store leaves the others cached.
+ * Scans of several stores run in parallel on a bounded pool, and the all-stores snapshot is
+ * merged from the per-store ones, so no query reads every row.
+ */
+@Service
+public class InventorySnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventorySnapshotService.class);
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService scanExecutor;
+
+    // Known stores; loaded from the table once and extended by change events
+    private final ConcurrentMap<String, StoreState> stores = new ConcurrentHashMap<>();
+    private volatile boolean storesLoaded;
+
+    // Versions the all-stores snapshot; bumped by every committed change
+    private final AtomicLong dataVersion = new AtomicLong();
+    private final AtomicReference<InventorySnapshot> combined = new AtomicReference<>();
+
+    @Autowired
+    public InventorySnapshotService(ProductRepository productRepository, PlatformTransactionManager transactionManager,
+                                    @Value("${inventory.scan.threads:0}") int scanThreads) {
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        int poolSize = scanThreads > 0 ? scanThreads : Runtime.getRuntime().availableProcessors();
+        this.scanExecutor = Executors.newFixedThreadPool(poolSize, daemonThreads("inventory-scan-"));
+    }
+
+    @PreDestroy
+    public void stop() {
+        scanExecutor.shutdown();
+    }
+
+    /**
+     * Snapshot of one store, recomputed if the day or the store's data changed since it was built
+     */
+    public InventorySnapshot getSnapshot(String storeId) {
+        LocalDate today = LocalDate.now();
+        if (!storesLoaded) {
+            loadStores();
+        }
+        StoreState state = stores.get(storeId);
+        if (state == null) {
+            // Unknown store: answer without caching, so lookups of arbitrary ids do not pile up
+            return scan(storeId, today, 0);
+        }
+        long version = state.version.get();
+        InventorySnapshot snapshot = state.snapshot;
+        if (snapshot != null && snapshot.getDate().equals(today) && snapshot.getDataVersion() == version) {
+            return snapshot;
+        }
+
+        snapshot = scan(storeId, today, version);
+        state.snapshot = snapshot;
+        return snapshot;
+    }
+
+    /**
+     * Snapshot of every store, merged from the per-store snapshots
+     */
+    public InventorySnapshot getSnapshot() {
+        LocalDate today = LocalDate.now();
+        long version = dataVersion.get();
+        InventorySnapshot snapshot = combined.get();
+        if (snapshot != null && snapshot.getDate().equals(today) && snapshot.getDataVersion() == version) {
+            return snapshot;
+        }
+
+        snapshot = InventorySnapshot.merge(today, version, scanStores(Function.identity()).values());
+        combined.set(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Apply {@code perStore} to the current snapshot of every store, in parallel.
+     * Results are keyed by store in store order; a store whose scan or callback fails is
+     * logged and left out so the other stores still complete.
+     */
+    public <R> Map<String, R> scanStores(Function<InventorySnapshot, R> perStore) {
+        List<String> storeIds = getStoreIds();
+        Map<String, CompletableFuture<R>> futures = new LinkedHashMap<>();
+        for (String storeId : storeIds) {
+            futures.put(storeId, CompletableFuture.supplyAsync(() -> perStore.apply(getSnapshot(storeId)), scanExecutor));
+        }
+
+        Map<String, R> results = new LinkedHashMap<>();
+        futures.forEach((storeId, future) -> {
+            try {
+                results.put(storeId, future.join());
+            } catch (CompletionException e) {
+                logger.error("❌ Inventory scan of store {} failed: {}", storeId, e.getCause().getMessage(), e.getCause());
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Every known store, in order
+     */
+    public List<String> getStoreIds() {
+        if (!storesLoaded) {
+            loadStores();
+        }
+        List<String> storeIds = new ArrayList<>(stores.keySet());
+        storeIds.sort(null);
+        return storeIds;
+    }
+
+    private InventorySnapshot scan(String storeId, LocalDate today, long version) {
+        InventorySnapshot snapshot = readOnlyTransaction.execute(status -> InventorySnapshot.classify(storeId, today, version,
+                productRepository.findProductsInStoreExpiringOnOrBefore(storeId, today.plusDays(InventorySnapshot.WEEK_DAYS))));
+        logger.debug("📸 Inventory snapshot of store {} rebuilt for {} (data version {})", storeId, today, version);
+        return snapshot;
+    }
+
+    private synchronized void loadStores() {
+        for (String storeId : productRepository.findStoreIds()) {
+            stores.computeIfAbsent(storeId, id -> new StoreState()).version.incrementAndGet();
+        }
+        storesLoaded = true;
+    }
+
+    /**
+     * Invalidate the snapshots of the stores a product change touched once it commits
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        dataVersion.incrementAndGet();
+        invalidate(event.getStoreId());
+        if (event.getPreviousStoreId() != null && !event.getPreviousStoreId().equals(event.getStoreId())) {
+            invalidate(event.getPreviousStoreId());
+        }
+    }
+
+    private void invalidate(String storeId) {
+        if (storeId != null) {
+            stores.computeIfAbsent(storeId, id -> new StoreState()).version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Reload the stores and drop any snapshot taken while startup data was still being loaded
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void invalidate() {
+        dataVersion.incrementAndGet();
+        loadStores();
+        logger.info("🏬 Tracking inventory of {} store(s)", stores.size());
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // Change counter and cached snapshot of one store
+    private static final class StoreState {
+        private final AtomicLong version = new AtomicLong();
+        private volatile InventorySnapshot snapshot;
+    }
+}
@@ -0,0 +1,335 @@
+package com.expiration.service;
+
+import com.expiration.dto.BatchItemResultDTO;
+import com.expiration.dto.ProductBatchPatchDTO;
+import com.expiration.dto.ProductBatchUpdateDTO;
+import com.expiration.dto.ProductCreateDTO;
+import com.expiration.dto.ProductResponseDTO;
+import com.expiration.entity.Product;
+import com.expiration.event.ProductChangedEvent;
+import com.expiration.repository.ProductRepository;
+import com.expiration.repository.StockLotRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Applies bulk product changes in chunked transactions.
+ * Every row is validated on its own and gets its own result; a failing chunk
+ * only fails the rows it contains. Inserts and updates are flushed once per chunk
+ * so Hibernate can group them into JDBC batches.
+ */
+@Service
+public class ProductBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductBatchService.class);
+
+    public static final int MAX_BATCH_SIZE = 50_000;
+    private static final int CHUNK_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final StockLotRepository stockLotRepository;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public ProductBatchService(ProductRepository productRepository, StockLotRepository stockLotRepository,
+                               EntityManager entityManager, Validator validator,
+                               PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher) {
+        this.productRepository = productRepository;
+        this.stockLotRepository = stockLotRepository;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Create products in chunks
+     */
+    public List<BatchItemResultDTO> createProducts(List<ProductCreateDTO> items) {
+        checkBatchSize(items);
+        return processInChunks(items, (offset, chunk) -> {
+            List<BatchItemResultDTO> results = new ArrayList<>(chunk.size());
+            List<Product> persisted = new ArrayList<>(chunk.size());
+            List<Integer> persistedIndexes = new ArrayList<>(chunk.size());
+
+            for (int i = 0; i < chunk.size(); i++) {
+                ProductCreateDTO item = chunk.get(i);
+                Product product = toEntity(item);
+                Map<String, String> violations = validate(item);
+                if (violations.isEmpty()) {
+                    violations = validate(product);
+                }
+                if (!violations.isEmpty()) {
+                    results.add(BatchItemResultDTO.invalid(offset + i, null, violations));
+                    continue;
+                }
+                entityManager.persist(product);
+                persisted.add(product);
+                persistedIndexes.add(results.size());
+                results.add(null);
+            }
+
+            entityManager.flush();
+            for (int i = 0; i < persisted.size(); i++) {
+                Product product = persisted.get(i);
+                int position = persistedIndexes.get(i);
+                results.set(position, BatchItemResultDTO.succeeded(offset + position, product.getId()));
+                eventPublisher.publishEvent(ProductChangedEvent.created(new ProductResponseDTO(product)));
+            }
+            entityManager.clear();
+            return results;
+        }, item -> null);
+    }
+
+    /**
+     * Update products in chunks; rows whose id does not exist are reported as not found
+     */
+    public List<BatchItemResultDTO> updateProducts(List<ProductBatchUpdateDTO> items) {
+        checkBatchSize(items);
+        return processInChunks(items, (offset, chunk) -> {
+            List<BatchItemResultDTO> results = new ArrayList<>(chunk.size());
+            Set<Long> ids = new HashSet<>();
+            chunk.stream()
+                    .filter(Objects::nonNull)
+                    .map(ProductBatchUpdateDTO::getId)
+                    .filter(Objects::nonNull)
+                    .forEach(ids::add);
+            Map<Long, Product> existing = new HashMap<>();
+            Map<Long, String> previousStores = new HashMap<>();
+            productRepository.findAllById(ids).forEach(product -> {
+                existing.put(product.getId(), product);
+                previousStores.put(product.getId(), product.getStoreId());
+            });
+            Set<Long> withLots = new HashSet<>(stockLotRepository.findProductIdsWithLots(ids));
+
+            for (int i = 0; i < chunk.size(); i++) {
+                ProductBatchUpdateDTO item = chunk.get(i);
+                Map<String, String> violations = validate(item);
+                if (violations.isEmpty()) {
+                    violations = validate(toEntity(item));
+                }
+                if (!violations.isEmpty()) {
+                    results.add(BatchItemResultDTO.invalid(offset + i, item != null ? item.getId() : null, violations));
+                    continue;
+                }
+                Product product = existing.get(item.getId());
+                if (product == null) {
+                    results.add(BatchItemResultDTO.failed(offset + i, item.getId(),
+                                                          "Product not found with id: " + item.getId()));
+                    continue;
+                }
+                if (ProductService.changesLotStock(product, item.getQuantity(), item.getExpirationDate())
+                    && withLots.contains(product.getId())) {
+                    results.add(BatchItemResultDTO.failed(offset + i, item.getId(),
+                                                          ProductService.lotStockMessage(item.getId())));
+                    continue;
+                }
+                product.setName(item.getName());
+                product.setCategory(item.getCategory());
+                product.setExpirationDate(item.getExpirationDate());
+                product.setQuantity(item.getQuantity());
+                product.setPrice(item.getPrice());
+                if (item.getStoreId() != null) {
+                    product.setStoreId(item.getStoreId());
+                }
+                results.add(BatchItemResultDTO.succeeded(offset + i, product.getId()));
+            }
+
+            entityManager.flush();
+            for (BatchItemResultDTO result : results) {
+                if (result.isSuccess()) {
+                    Product product = existing.get(result.getId());
+                    eventPublisher.publishEvent(ProductChangedEvent.updated(new ProductResponseDTO(product),
+                                                                               previousStores.get(product.getId())));
+                }
+            }
+            entityManager.clear();
+            return results;
+        }, ProductBatchUpdateDTO::getId);
+    }
+
+    /**
+     * Patch products in chunks with conditional UPDATEs that set only the given fields and return
+     * the rows they wrote; rows that update nothing are reported as not found, stale or lot-managed
+     */
+    public List<BatchItemResultDTO> patchProducts(List<ProductBatchPatchDTO> items) {
+        checkBatchSize(items);
+        return processInChunks(items, (offset, chunk) -> {
+            List<BatchItemResultDTO> results = new ArrayList<>(Collections.nCopies(chunk.size(), null));
+            // Only moves to another store need the product's current store, for the store's invalidation
+            Map<Long, String> previousStores = new HashMap<>();
+            List<Long> moving = chunk.stream()
+                    .filter(item -> item != null && item.getId() != null && item.getStoreId() != null)
+                    .map(ProductBatchPatchDTO::getId)
+                    .toList();
+            if (!moving.isEmpty()) {
+                for (Object[] row : productRepository.findExistingIdsAndStores(moving)) {
+                    previousStores.put((Long) row[0], (String) row[1]);
+                }
+            }
+
+            List<ProductPatchStatement.Patch> patches = new ArrayList<>(chunk.size());
+            List<Integer> patchIndexes = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                ProductBatchPatchDTO item = chunk.get(i);
+                Map<String, String> violations = validate(item);
+                if (!violations.isEmpty()) {
+                    results.set(i, BatchItemResultDTO.invalid(offset + i, item != null ? item.getId() : null, violations));
+                } else if (!item.hasChanges()) {
+                    results.set(i, BatchItemResultDTO.failed(offset + i, item.getId(), ProductService.EMPTY_PATCH_MESSAGE));
+                } else if (item.getStoreId() != null && !previousStores.containsKey(item.getId())) {
+                    results.set(i, BatchItemResultDTO.failed(offset + i, item.getId(),
+                                                             "Product not found with id: " + item.getId()));
+                } else {
+                    patches.add(new ProductPatchStatement.Patch(item.getId(), item, previousStores.get(item.getId())));
+                    patchIndexes.add(i);
+                }
+            }
+
+            ProductResponseDTO[] written = ProductPatchStatement.execute(entityManager, patches);
+            Set<Long> patched = new LinkedHashSet<>();
+            Set<Long> unpatched = new HashSet<>();
+            for (int j = 0; j < patches.size(); j++) {
+                (written[j] != null ? patched : unpatched).add(patches.get(j).id());
+            }
+            // Tell apart the reasons for rows that updated nothing with two reads over just those ids
+            Set<Long> existing = new HashSet<>();
+            Set<Long> withLots = new HashSet<>();
+            if (!unpatched.isEmpty()) {
+                productRepository.findExistingIdsAndStores(unpatched).forEach(row -> existing.add((Long) row[0]));
+                withLots.addAll(stockLotRepository.findProductIdsWithLots(unpatched));
+            }
+            for (int j = 0; j < patches.size(); j++) {
+                ProductPatchStatement.Patch patch = patches.get(j);
+                int position = patchIndexes.get(j);
+                if (written[j] != null) {
+                    results.set(position, BatchItemResultDTO.succeeded(offset + position, patch.id()));
+                    // The statement returned the product as written, which is all the change event carries
+                    eventPublisher.publishEvent(ProductChangedEvent.updated(
+                            written[j], patch.previousStoreId() != null ? patch.previousStoreId() : written[j].getStoreId()));
+                } else {
+                    results.set(position, BatchItemResultDTO.failed(offset + position, patch.id(), ProductPatchStatement.failure(
+                            patch, existing.contains(patch.id()), withLots.contains(patch.id())).getMessage()));
+                }
+            }
+
+            if (!patched.isEmpty()) {
+                ProductService.evictAfterCommit(entityManager.getEntityManagerFactory(), patched);
+            }
+            entityManager.clear();
+            return results;
+        }, ProductBatchPatchDTO::getId);
+    }
+
+    /**
+     * Delete products in chunks with one set-based DELETE per chunk, after locking the chunk's
+     * product rows so stock changes in flight finish first, as for a single delete
+     */
+    public List<BatchItemResultDTO> deleteProducts(List<Long> ids) {
+        checkBatchSize(ids);
+        return processInChunks(ids, (offset, chunk) -> {
+            List<BatchItemResultDTO> results = new ArrayList<>(chunk.size());
+            Map<Long, String> existing = new HashMap<>();
+            List<Long> requested = chunk.stream().filter(Objects::nonNull).toList();
+            if (!requested.isEmpty()) {
+                for (Object[] row : productRepository.lockExistingIdsAndStores(requested)) {
+                    existing.put(((Number) row[0]).longValue(), (String) row[1]);
+                }
+            }
+
+            Set<Long> deleted = new HashSet<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                Long id = chunk.get(i);
+                if (id == null) {
+                    results.add(BatchItemResultDTO.failed(offset + i, null, "Product id is required"));
+                } else if (deleted.contains(id) || !existing.containsKey(id)) {
+                    results.add(BatchItemResultDTO.failed(offset + i, id, "Product not found with id: " + id));
+                } else {
+                    deleted.add(id);
+                    results.add(BatchItemResultDTO.succeeded(offset + i, id));
+                }
+            }
+
+            if (!deleted.isEmpty()) {
+                stockLotRepository.deleteByProductIdIn(deleted);
+                productRepository.deleteAllByIdInBatch(deleted);
+                deleted.forEach(id -> eventPublisher.publishEvent(ProductChangedEvent.deleted(id, existing.get(id))));
+            }
+            return results;
+        }, Function.identity());
+    }
+
+    private <T> List<BatchItemResultDTO> processInChunks(List<T> items, ChunkProcessor<T> processor,
+                                                          Function<T, Long> idOf) {
+        List<BatchItemResultDTO> results = new ArrayList<>(items.size());
+        for (int offset = 0; offset < items.size(); offset += CHUNK_SIZE) {
+            int chunkOffset = offset;
+            List<T> chunk = items.subList(offset, Math.min(offset + CHUNK_SIZE, items.size()));
+            try {
+                results.addAll(transactionTemplate.execute(status -> processor.process(chunkOffset, chunk)));
+            } catch (RuntimeException e) {
+                // The chunk rolled back as a whole; report every row in it as failed
+                logger.warn("Batch chunk at offset {} failed: {}", chunkOffset, e.getMessage());
+                for (int i = 0; i < chunk.size(); i++) {
+                    T item = chunk.get(i);
+                    results.add(BatchItemResultDTO.failed(chunkOffset + i, item != null ? idOf.apply(item) : null,
+                                                          "Chunk rolled back: " + e.getMessage()));
+                }
+            }
+        }
+        return results;
+    }
+
+    private static Product toEntity(ProductCreateDTO item) {
+        if (item == null) {
+            return null;
+        }
+        return new Product(item.getStoreId() != null ? item.getStoreId() : Product.DEFAULT_STORE, item.getName(),
+                           item.getCategory(), item.getExpirationDate(), item.getQuantity(), item.getPrice());
+    }
+
+    /**
+     * Bean Validation errors keyed by property; entity constraints are checked per row
+     * up front so a single bad row cannot fail the flush of its whole chunk
+     */
+    private Map<String, String> validate(Object item) {
+        if (item == null) {
+            return Map.of("item", "Item is required");
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, String> errors = new HashMap<>();
+        violations.forEach(v -> errors.put(v.getPropertyPath().toString(), v.getMessage()));
+        return errors;
+    }
+
+    private static void checkBatchSize(List<?> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one item");
+        }
+        if (items.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch must not exceed " + MAX_BATCH_SIZE + " items");
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkProcessor<T> {
+        List<BatchItemResultDTO> process(int offset, List<T> chunk);
+    }
+}
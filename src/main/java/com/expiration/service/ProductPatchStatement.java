@@ -0,0 +1,176 @@
+package com.expiration.service;
+
+import com.expiration.dto.ProductPatchDTO;
+import com.expiration.dto.ProductResponseDTO;
+import com.expiration.entity.Product;
+import com.expiration.exception.ProductNotFoundException;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Partial product updates as plain UPDATE statements that set only the patched columns and bump
+ * the version, with no read before the write. What the write depends on goes into its WHERE
+ * clause instead: the version the client last saw, the store a move starts from, and, when the
+ * quantity or expiration date is set, that the product has no stock lots. Each UPDATE is wrapped
+ * in H2's {@code SELECT ... FROM FINAL TABLE (...)}, so the same statement returns the row as
+ * written, for the response and the change event, with no read after the write either. No row
+ * back means the product is gone or one of those conditions no longer holds; {@link #failure}
+ * tells which.
+ *
+ * Consecutive patches of the same columns reuse one prepared statement. Being queries, they
+ * cannot go out as a JDBC batch, which the embedded database would run row by row anyway. The
+ * statements bypass Hibernate, which therefore neither dirty-checks nor clears the products
+ * cache region; callers evict the patched products once the transaction commits.
+ */
+final class ProductPatchStatement {
+
+    /**
+     * A patch of one product; previousStoreId is the store it is in when the patch moves it, otherwise null
+     */
+    record Patch(Long id, ProductPatchDTO changes, String previousStoreId) {
+    }
+
+    private static final String COLUMNS =
+            "id, name, category, expiration_date, quantity, price, store_id, created_at, version";
+
+    private ProductPatchStatement() {
+    }
+
+    /**
+     * Run the patches in order on the transaction's connection; the patched product for each, or
+     * null where the patch updated nothing
+     */
+    static ProductResponseDTO[] execute(EntityManager entityManager, List<Patch> patches) {
+        ProductResponseDTO[] patched = new ProductResponseDTO[patches.size()];
+        if (patches.isEmpty()) {
+            return patched;
+        }
+        // Pending entity changes go first, so the statements see them
+        entityManager.flush();
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            int start = 0;
+            while (start < patches.size()) {
+                String sql = sql(patches.get(start));
+                int end = start + 1;
+                while (end < patches.size() && sql.equals(sql(patches.get(end)))) {
+                    end++;
+                }
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    for (int i = start; i < end; i++) {
+                        bind(statement, patches.get(i));
+                        try (ResultSet row = statement.executeQuery()) {
+                            patched[i] = row.next() ? product(row) : null;
+                        }
+                    }
+                }
+                start = end;
+            }
+        });
+        return patched;
+    }
+
+    /**
+     * Why a patch updated nothing, given whether the product exists and whether it has stock lots
+     */
+    static RuntimeException failure(Patch patch, boolean exists, boolean hasLots) {
+        if (!exists) {
+            return new ProductNotFoundException("Product not found with id: " + patch.id());
+        }
+        if (setsLotStock(patch.changes()) && hasLots) {
+            return new IllegalArgumentException(ProductService.lotStockMessage(patch.id()));
+        }
+        // The version moved on or the product changed store since it was read
+        return new ObjectOptimisticLockingFailureException(Product.class, patch.id());
+    }
+
+    private static String sql(Patch patch) {
+        ProductPatchDTO changes = patch.changes();
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM FINAL TABLE (UPDATE products SET ");
+        if (changes.getName() != null) {
+            sql.append("name = ?, ");
+        }
+        if (changes.getCategory() != null) {
+            sql.append("category = ?, ");
+        }
+        if (changes.getExpirationDate() != null) {
+            sql.append("expiration_date = ?, ");
+        }
+        if (changes.getQuantity() != null) {
+            sql.append("quantity = ?, ");
+        }
+        if (changes.getPrice() != null) {
+            sql.append("price = ?, ");
+        }
+        if (changes.getStoreId() != null) {
+            sql.append("store_id = ?, ");
+        }
+        sql.append("version = version + 1 WHERE id = ?");
+        if (changes.getVersion() != null) {
+            sql.append(" AND version = ?");
+        }
+        if (patch.previousStoreId() != null) {
+            sql.append(" AND store_id = ?");
+        }
+        if (setsLotStock(changes)) {
+            sql.append(" AND NOT EXISTS (SELECT 1 FROM stock_lots l WHERE l.product_id = products.id)");
+        }
+        return sql.append(')').toString();
+    }
+
+    /**
+     * Whether the patch sets a field that follows from the stock lots of a product that has them
+     */
+    private static boolean setsLotStock(ProductPatchDTO changes) {
+        return changes.getQuantity() != null || changes.getExpirationDate() != null;
+    }
+
+    private static ProductResponseDTO product(ResultSet row) throws SQLException {
+        Product product = new Product(row.getString("store_id"), row.getString("name"), row.getString("category"),
+                                      row.getObject("expiration_date", LocalDate.class), row.getInt("quantity"),
+                                      row.getBigDecimal("price"));
+        product.setId(row.getLong("id"));
+        product.setCreatedAt(row.getObject("created_at", LocalDateTime.class));
+        ProductResponseDTO response = new ProductResponseDTO(product);
+        response.setVersion(row.getLong("version"));
+        return response;
+    }
+
+    private static void bind(PreparedStatement statement, Patch patch) throws SQLException {
+        ProductPatchDTO changes = patch.changes();
+        int index = 1;
+        if (changes.getName() != null) {
+            statement.setString(index++, changes.getName());
+        }
+        if (changes.getCategory() != null) {
+            statement.setString(index++, changes.getCategory());
+        }
+        if (changes.getExpirationDate() != null) {
+            statement.setDate(index++, Date.valueOf(changes.getExpirationDate()));
+        }
+        if (changes.getQuantity() != null) {
+            statement.setInt(index++, changes.getQuantity());
+        }
+        if (changes.getPrice() != null) {
+            statement.setBigDecimal(index++, changes.getPrice());
+        }
+        if (changes.getStoreId() != null) {
+            statement.setString(index++, changes.getStoreId());
+        }
+        statement.setLong(index++, patch.id());
+        if (changes.getVersion() != null) {
+            statement.setLong(index++, changes.getVersion());
+        }
+        if (patch.previousStoreId() != null) {
+            statement.setString(index, patch.previousStoreId());
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.expiration.service;
+
+import com.expiration.dto.ProductResponseDTO;
+import com.expiration.dto.ProductView;
+import com.expiration.event.ProductChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of the expiry and category list results served by {@link ProductService}.
+ * Entries are dropped least recently used first once max-entries is reached, and after the TTL.
+ *
+ * A committed product change evicts exactly the entries it can affect: those that hold the
+ * product, and those whose filter matches its new state. Every other entry stays cached.
+ * Results loaded while a change was committing are returned but not stored, so a load that
+ * read the old rows can never outlive the invalidation.
+ */
+@Service
+public class ProductQueryCache {
+
+    /**
+     * What a cached result was filtered on. Null fields do not filter; the day is part of the
+     * key because days left and status in the views depend on it.
+     */
+    public record Key(String query, String storeId, String category, LocalDate fromDate, LocalDate toDate,
+                      LocalDate today) {
+
+        public static Key category(String category, LocalDate today) {
+            return new Key("category", null, category, null, null, today);
+        }
+
+        public static Key expiring(String query, String storeId, LocalDate fromDate, LocalDate toDate, LocalDate today) {
+            return new Key(query, storeId, null, fromDate, toDate, today);
+        }
+
+        boolean matches(ProductResponseDTO product) {
+            LocalDate date = product.getExpirationDate();
+            return (storeId == null || storeId.equals(product.getStoreId()))
+                    && (category == null || category.equals(product.getCategory()))
+                    && (fromDate == null || !date.isBefore(fromDate))
+                    && (toDate == null || !date.isAfter(toDate));
+        }
+    }
+
+    private record Entry(List<ProductView> products, Set<Long> ids, long expiresAt) {}
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long version;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expirations;
+    private final Counter invalidations;
+
+    @Autowired
+    public ProductQueryCache(MeterRegistry meterRegistry,
+                             @Value("${products.query-cache.max-entries:500}") int maxEntries,
+                             @Value("${products.query-cache.ttl:PT10M}") Duration ttl) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        Gauge.builder("product.query.cache.size", this, ProductQueryCache::size)
+                .description("Product list results currently cached")
+                .register(meterRegistry);
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.sizeEvictions = evictions(meterRegistry, "size");
+        this.expirations = evictions(meterRegistry, "expired");
+        this.invalidations = evictions(meterRegistry, "invalidated");
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("product.query.cache.requests")
+                .description("Product list lookups answered from the cache (hit) or the database (miss)")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter evictions(MeterRegistry meterRegistry, String cause) {
+        return Counter.builder("product.query.cache.evictions")
+                .description("Cached product list results dropped")
+                .tag("cause", cause)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cached result for the key, or the loader's result, which is cached unless a change
+     * committed while it ran. With max-entries 0 every call goes to the loader.
+     */
+    public List<ProductView> get(Key key, Supplier<List<ProductView>> loader) {
+        if (maxEntries <= 0) {
+            misses.increment();
+            return loader.get();
+        }
+        long loadVersion;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (System.currentTimeMillis() < entry.expiresAt()) {
+                    hits.increment();
+                    return entry.products();
+                }
+                entries.remove(key);
+                expirations.increment();
+            }
+            loadVersion = version;
+        }
+
+        misses.increment();
+        List<ProductView> products = List.copyOf(loader.get());
+        Set<Long> ids = new HashSet<>(products.size() * 2);
+        products.forEach(product -> ids.add(product.id()));
+        Entry entry = new Entry(products, ids, System.currentTimeMillis() + ttlMillis);
+
+        synchronized (this) {
+            if (version == loadVersion) {
+                entries.put(key, entry);
+                evictOverflow();
+            }
+        }
+        return products;
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            sizeEvictions.increment();
+        }
+    }
+
+    /**
+     * Evict the results a committed change can affect
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        version++;
+        Long id = event.getProductId();
+        ProductResponseDTO product = event.getProduct();
+        for (Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Key, Entry> cached = it.next();
+            if (cached.getValue().ids().contains(id) || (product != null && cached.getKey().matches(product))) {
+                it.remove();
+                invalidations.increment();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public Map<String, Object> getMetrics() {
+        return Map.of(
+                "entries", size(),
+                "maxEntries", maxEntries,
+                "ttlSeconds", ttlMillis / 1000,
+                "hits", (long) hits.count(),
+                "misses", (long) misses.count(),
+                "sizeEvictions", (long) sizeEvictions.count(),
+                "expirations", (long) expirations.count(),
+                "invalidations", (long) invalidations.count()
+        );
+    }
+}
@@ -0,0 +1,589 @@
+package com.expiration.service;
+
+import com.expiration.dto.ProductResponseDTO;
+import com.expiration.event.ProductChangedEvent;
+import com.expiration.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over product names for search and autocomplete.
+ *
+ * Names are split into lower-cased, accent-stripped tokens. Each distinct token (term) keeps
+ * the sorted int array of the documents that contain it; a document is one version of a
+ * product, numbered in insertion order, so postings only ever grow at the end. Letter-only
+ * terms are also indexed by their letter pairs, which finds terms within one edit (two for
+ * words of eight letters or more) of a misspelt query token. The last query token also matches as
+ * a prefix. Every query token must match; results are ranked by how well they matched, then
+ * by shorter name.
+ *
+ * Like {@link ExpirationCalendarIndex} the index is loaded once the application is ready and
+ * kept current from {@link ProductChangedEvent}s delivered after commit. An update or delete
+ * only marks the old document dead; once dead documents outnumber live ones the index is
+ * compacted in memory. Until the first load completes {@link #isReady()} is false and callers
+ * should fall back to the database.
+ */
+@Service
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Prefixes shorter than this only match whole terms
+    private static final int MIN_PREFIX = 2;
+    // Terms one prefix can expand to, in term order
+    private static final int MAX_EXPANSIONS = 32;
+    // Query tokens shorter than this must be spelt right
+    private static final int MIN_FUZZY = 4;
+    private static final int TWO_EDITS_FROM = 8;
+    private static final int COMPACT_MIN_DEAD = 1024;
+
+    /** A matching product; score is the sum over query tokens of 1 (exact), up to 1 (prefix) or 0.7/0.4 (one/two edits) */
+    public record Hit(long productId, String name, String storeId, float score) {}
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Index index = new Index();
+    private List<ProductChangedEvent> pendingDuringRebuild;
+    private volatile boolean ready;
+
+    @Autowired
+    public ProductSearchIndex(ProductRepository productRepository, PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Initial load, after the data initializer has populated the table
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Reload the whole index from the products table.
+     * Changes committed while the table is being scanned are replayed on top of the new state.
+     */
+    public int rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Index loaded = new Index();
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = productRepository.streamSearchEntries()) {
+                    rows.forEach(row -> loaded.add((Long) row[0], (String) row[1], (String) row[2]));
+                }
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            index = loaded;
+            List<ProductChangedEvent> pending = pendingDuringRebuild;
+            pendingDuringRebuild = null;
+            pending.forEach(this::apply);
+            ready = true;
+            logger.info("🔎 Product search index loaded: {} products, {} terms", index.liveDocs(), index.terms.size());
+            return index.liveDocs();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply a committed product change, ahead of the listeners that invalidate results read through the index
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event);
+            }
+            apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(ProductChangedEvent event) {
+        index.remove(event.getProductId());
+        if (event.getChangeType() != ProductChangedEvent.ChangeType.DELETED) {
+            ProductResponseDTO product = event.getProduct();
+            index.add(product.getId(), product.getName(), product.getStoreId());
+        }
+        if (index.deadDocs > COMPACT_MIN_DEAD && index.deadDocs > index.liveDocs()) {
+            index = index.compact();
+        }
+    }
+
+    /**
+     * The best {@code limit} products whose names match every token of the query, optionally in
+     * one store. Misspelt tokens match within one or two edits, and the last token also matches
+     * as a prefix, so the query can be a partly typed name.
+     */
+    public List<Hit> search(String query, String storeId, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return index.search(tokens, storeId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("ready", ready);
+            stats.put("products", index.liveDocs());
+            stats.put("deadDocuments", index.deadDocs);
+            stats.put("terms", index.terms.size());
+            stats.put("letterPairs", index.grams.size());
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lower-cased, accent-stripped letter and digit runs of the text
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Distinct letter pairs of the term with "^" and "$" marking its start and end
+     */
+    private static Set<String> bigrams(String term) {
+        String marked = "^" + term + "$";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 2 <= marked.length(); i++) {
+            grams.add(marked.substring(i, i + 2));
+        }
+        return grams;
+    }
+
+    private static boolean isWord(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            if (!Character.isLetter(term.charAt(i))) {
+                return false;
+            }
+        }
+        return term.length() >= MIN_FUZZY - 1;
+    }
+
+    /**
+     * Optimal string alignment distance (edits, including swapping adjacent letters), or max + 1 once it exceeds max
+     */
+    static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], previous2[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * Sorted, append-only int array
+     */
+    private static final class Postings {
+        private int[] values = new int[2];
+        private int size;
+
+        void add(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    private static final class Term {
+        private final String text;
+        private final int id;
+        private final Postings docs = new Postings();
+
+        Term(String text, int id) {
+            this.text = text;
+            this.id = id;
+        }
+    }
+
+    private record TermMatch(Term term, float score) {}
+
+    private static final class Index {
+        private long[] productIds = new long[1024];
+        private String[] names = new String[1024];
+        // Kept apart from names so ranking a candidate does not have to load its string
+        private int[] nameLengths = new int[1024];
+        // Each document's store as a number, for filtering without comparing strings
+        private int[] storeCodes = new int[1024];
+        private final Map<String, Integer> codeByStore = new HashMap<>();
+        private final List<String> storeByCode = new ArrayList<>();
+        private int docCount;
+        private final BitSet dead = new BitSet();
+        private int deadDocs;
+        private final Map<Long, Integer> docByProduct = new HashMap<>();
+
+        private final TreeMap<String, Term> terms = new TreeMap<>();
+        private final List<Term> termsById = new ArrayList<>();
+        // Letter pair -> ids of the letter-only terms containing it
+        private final Map<String, Postings> grams = new HashMap<>();
+
+        int liveDocs() {
+            return docCount - deadDocs;
+        }
+
+        void add(long productId, String name, String storeId) {
+            if (name == null) {
+                return;
+            }
+            if (docCount == productIds.length) {
+                int capacity = docCount * 2;
+                productIds = Arrays.copyOf(productIds, capacity);
+                names = Arrays.copyOf(names, capacity);
+                nameLengths = Arrays.copyOf(nameLengths, capacity);
+                storeCodes = Arrays.copyOf(storeCodes, capacity);
+            }
+            int doc = docCount++;
+            productIds[doc] = productId;
+            names[doc] = name;
+            nameLengths[doc] = name.length();
+            storeCodes[doc] = codeByStore.computeIfAbsent(storeId, store -> {
+                storeByCode.add(store);
+                return storeByCode.size() - 1;
+            });
+            docByProduct.put(productId, doc);
+            for (String token : tokenize(name)) {
+                term(token).docs.add(doc);
+            }
+        }
+
+        private Term term(String text) {
+            Term term = terms.get(text);
+            if (term == null) {
+                term = new Term(text, termsById.size());
+                terms.put(text, term);
+                termsById.add(term);
+                if (isWord(text)) {
+                    for (String gram : bigrams(text)) {
+                        grams.computeIfAbsent(gram, g -> new Postings()).add(term.id);
+                    }
+                }
+            }
+            return term;
+        }
+
+        void remove(long productId) {
+            Integer doc = docByProduct.remove(productId);
+            if (doc != null) {
+                dead.set(doc);
+                deadDocs++;
+            }
+        }
+
+        /**
+         * A new index holding only the live documents
+         */
+        Index compact() {
+            Index compacted = new Index();
+            for (int doc = dead.nextClearBit(0); doc < docCount; doc = dead.nextClearBit(doc + 1)) {
+                compacted.add(productIds[doc], names[doc], storeByCode.get(storeCodes[doc]));
+            }
+            logger.debug("Compacted product search index: {} live of {} documents", compacted.docCount, docCount);
+            return compacted;
+        }
+
+        List<Hit> search(List<String> tokens, String storeId, int limit) {
+            int storeCode = -1;
+            if (storeId != null) {
+                Integer code = codeByStore.get(storeId);
+                if (code == null) {
+                    return List.of();
+                }
+                storeCode = code;
+            }
+            List<DocCursor> cursors = new ArrayList<>(tokens.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                List<TermMatch> matches = match(tokens.get(i), i == tokens.size() - 1);
+                if (matches.isEmpty()) {
+                    return List.of();
+                }
+                cursors.add(new DocCursor(matches));
+            }
+            // Drive the intersection from the token with the fewest documents
+            cursors.sort(Comparator.comparingLong(cursor -> cursor.cost));
+
+            Comparator<Hit> ranking = Comparator.comparingDouble((Hit hit) -> -hit.score())
+                    .thenComparingInt(hit -> hit.name().length())
+                    .thenComparingLong(Hit::productId);
+            PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, ranking.reversed());
+
+            DocCursor lead = cursors.get(0);
+            int target = 0;
+            while (true) {
+                int doc = lead.advance(target);
+                if (doc == Integer.MAX_VALUE) {
+                    break;
+                }
+                float score = lead.score;
+                int next = doc;
+                for (int i = 1; i < cursors.size() && next == doc; i++) {
+                    next = cursors.get(i).advance(doc);
+                    score += cursors.get(i).score;
+                }
+                if (next != doc) {
+                    // Some token's next document is further on; leapfrog to it
+                    if (next == Integer.MAX_VALUE) {
+                        break;
+                    }
+                    target = next;
+                    continue;
+                }
+                if (!dead.get(doc) && (storeCode < 0 || storeCode == storeCodes[doc])
+                    && (best.size() < limit || outranks(score, doc, best.peek()))) {
+                    best.add(new Hit(productIds[doc], names[doc], storeByCode.get(storeCodes[doc]), score));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+                target = doc + 1;
+            }
+
+            List<Hit> hits = new ArrayList<>(best);
+            hits.sort(ranking);
+            return hits;
+        }
+
+        /**
+         * Whether the document ranks ahead of the hit, checked before allocating a hit for it
+         */
+        private boolean outranks(float score, int doc, Hit hit) {
+            if (score != hit.score()) {
+                return score > hit.score();
+            }
+            if (nameLengths[doc] != hit.name().length()) {
+                return nameLengths[doc] < hit.name().length();
+            }
+            return productIds[doc] < hit.productId();
+        }
+
+        /**
+         * Terms a query token matches, with the score of each: exactly, as a prefix when it is the last token, or within the allowed edits
+         */
+        private List<TermMatch> match(String token, boolean last) {
+            Map<Term, Float> matches = new HashMap<>();
+            Term exact = terms.get(token);
+            if (exact != null) {
+                matches.put(exact, 1f);
+            }
+            if (last && token.length() >= MIN_PREFIX) {
+                int expansions = 0;
+                for (Term term : terms.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+                    if (++expansions > MAX_EXPANSIONS) {
+                        break;
+                    }
+                    matches.put(term, 0.5f + 0.5f * token.length() / term.text.length());
+                }
+            }
+            if (token.length() >= MIN_FUZZY && isWord(token)) {
+                int maxEdits = token.length() >= TWO_EDITS_FROM ? 2 : 1;
+                Set<String> queryGrams = bigrams(token);
+                // Each edit, a swap of neighbouring letters included, loses at most three pairs
+                int minShared = Math.max(1, queryGrams.size() - 3 * maxEdits);
+                Map<Integer, Integer> shared = new HashMap<>();
+                for (String gram : queryGrams) {
+                    Postings termIds = grams.get(gram);
+                    if (termIds != null) {
+                        for (int i = 0; i < termIds.size; i++) {
+                            shared.merge(termIds.values[i], 1, Integer::sum);
+                        }
+                    }
+                }
+                shared.forEach((termId, count) -> {
+                    if (count < minShared) {
+                        return;
+                    }
+                    Term term = termsById.get(termId);
+                    int distance = editDistance(token, term.text, maxEdits);
+                    if (distance > 0 && distance <= maxEdits) {
+                        matches.merge(term, 1f - 0.3f * distance, Math::max);
+                    }
+                });
+            }
+            List<TermMatch> result = new ArrayList<>(matches.size());
+            matches.forEach((term, score) -> result.add(new TermMatch(term, score)));
+            return result;
+        }
+    }
+
+    /**
+     * The union of the documents of one query token's matching terms, walked in document order.
+     * Where several terms hold a document, its score is the best of theirs.
+     */
+    private static final class DocCursor {
+        private final int[][] lists;
+        private final int[] sizes;
+        private final float[] scores;
+        private final int[] positions;
+        // The document each list is positioned on, Integer.MAX_VALUE once it is exhausted
+        private final int[] heads;
+        private final long cost;
+        private float score;
+
+        DocCursor(List<TermMatch> matches) {
+            int n = matches.size();
+            lists = new int[n][];
+            sizes = new int[n];
+            scores = new float[n];
+            positions = new int[n];
+            heads = new int[n];
+            long total = 0;
+            for (int i = 0; i < n; i++) {
+                Postings docs = matches.get(i).term().docs;
+                lists[i] = docs.values;
+                sizes[i] = docs.size;
+                scores[i] = matches.get(i).score();
+                heads[i] = docs.size > 0 ? docs.values[0] : Integer.MAX_VALUE;
+                total += docs.size;
+            }
+            cost = total;
+        }
+
+        /**
+         * The first document at or after target, or Integer.MAX_VALUE when there is none
+         */
+        int advance(int target) {
+            int min = Integer.MAX_VALUE;
+            float best = 0;
+            for (int i = 0; i < heads.length; i++) {
+                int doc = heads[i];
+                if (doc < target) {
+                    int position = seek(lists[i], positions[i], sizes[i], target);
+                    positions[i] = position;
+                    doc = position < sizes[i] ? lists[i][position] : Integer.MAX_VALUE;
+                    heads[i] = doc;
+                }
+                if (doc < min) {
+                    min = doc;
+                    best = scores[i];
+                } else if (doc == min) {
+                    best = Math.max(best, scores[i]);
+                }
+            }
+            score = best;
+            return min;
+        }
+
+        /**
+         * First position at or after from whose value is at least target: gallop, then binary search
+         */
+        private static int seek(int[] values, int from, int size, int target) {
+            if (from >= size || values[from] >= target) {
+                return from;
+            }
+            int step = 1;
+            int low = from;
+            int high = from + 1;
+            while (high < size && values[high] < target) {
+                low = high;
+                step <<= 1;
+                high = from + step;
+            }
+            high = Math.min(high, size);
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
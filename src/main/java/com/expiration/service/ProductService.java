@@ -1,38 +1,162 @@
 package com.expiration.service;
 
+import com.expiration.dto.ExportQuery;
+import com.expiration.dto.InventorySummaryDTO;
 import com.expiration.dto.ProductCreateDTO;
+import com.expiration.dto.ProductCursor;
+import com.expiration.dto.ProductPageQuery;
+import com.expiration.dto.ProductPatchDTO;
 import com.expiration.dto.ProductResponseDTO;
+import com.expiration.dto.ProductView;
 import com.expiration.entity.Product;
+import com.expiration.event.ProductChangedEvent;
 import com.expiration.exception.ProductNotFoundException;
 import com.expiration.repository.ProductRepository;
+import com.expiration.repository.StockLotRepository;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class ProductService {
     
+    // Upper bound on ids per IN query when loading products found through the index
+    private static final int ID_LOOKUP_CHUNK_SIZE = 1000;
+    
+    public static final int MAX_SEARCH_LIMIT = 500;
+    public static final int MAX_SUGGESTIONS = 50;
+    
+    static final String EMPTY_PATCH_MESSAGE = "Patch must set at least one field";
+    
     private final ProductRepository productRepository;
+    private final StockLotRepository stockLotRepository;
+    private final ExpirationCalendarIndex expirationIndex;
+    private final ProductSearchIndex searchIndex;
+    private final ProductQueryCache queryCache;
+    private final EntityManagerFactory entityManagerFactory;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Autowired
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, StockLotRepository stockLotRepository,
+                          ExpirationCalendarIndex expirationIndex,
+                          ProductSearchIndex searchIndex, ProductQueryCache queryCache, EntityManagerFactory entityManagerFactory,
+                          EntityManager entityManager, ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
+        this.stockLotRepository = stockLotRepository;
+        this.expirationIndex = expirationIndex;
+        this.searchIndex = searchIndex;
+        this.queryCache = queryCache;
+        this.entityManagerFactory = entityManagerFactory;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
     }
     
     /**
-     * Get all products
+     * Get all products, or one store's when storeId is given
      */
     @Transactional(readOnly = true)
-    public List<ProductResponseDTO> getAllProducts() {
-        return productRepository.findAll()
-                .stream()
-                .map(ProductResponseDTO::new)
-                .collect(Collectors.toList());
+    public List<ProductView> getAllProducts(String storeId) {
+        LocalDate today = LocalDate.now();
+        return storeId != null ? productRepository.findViewsByStoreId(storeId, today) : productRepository.findAllViews(today);
+    }
+    
+    /**
+     * Stream one keyset page of products to the consumer in (expirationDate, id) order.
+     * Rows are projected straight into views, so the persistence context stays empty
+     * regardless of table size. Returns the cursor of the next page, or null when this
+     * page reached the end of the result set.
+     */
+    @Transactional(readOnly = true)
+    public ProductCursor streamProducts(ProductPageQuery query, Consumer<ProductView> consumer) {
+        ProductCursor after = query.getAfter();
+        LocalDate afterDate = after != null ? after.getExpirationDate() : ProductPageQuery.MIN_DATE;
+        Long afterId = after != null ? after.getId() : 0L;
+        
+        // Start the range scan at the cursor rather than at the filter's lower bound
+        LocalDate fromDate = afterDate.isAfter(query.getFromDate()) ? afterDate : query.getFromDate();
+        
+        // Fetch one extra row to learn whether another page exists
+        Limit limit = Limit.of(query.getLimit() + 1);
+        try (Stream<ProductView> rows = streamViews(query.getStoreId(), query.getCategory(), fromDate, query.getToDate(),
+                                                    afterDate, afterId, limit)) {
+            
+            Iterator<ProductView> iterator = rows.iterator();
+            ProductView last = null;
+            int emitted = 0;
+            while (iterator.hasNext()) {
+                ProductView product = iterator.next();
+                if (emitted == query.getLimit()) {
+                    return new ProductCursor(last.expirationDate(), last.id());
+                }
+                consumer.accept(product);
+                last = product;
+                emitted++;
+            }
+            return null;
+        }
+    }
+    
+    /**
+     * Stream every product matching the export's filters to the consumer in (expirationDate, id)
+     * order, over one forward-only cursor. Rows are projected into views and never enter the
+     * persistence context, so memory stays flat however many rows are exported. Returns the
+     * number of rows streamed.
+     */
+    @Transactional(readOnly = true)
+    public long exportProducts(ExportQuery query, Consumer<ProductView> consumer) {
+        long exported = 0;
+        try (Stream<ProductView> rows = streamViews(query.getStoreId(), query.getCategory(), query.getExpiresFrom(),
+                                                    query.getExpiresTo(), ProductPageQuery.MIN_DATE, 0L, Limit.unlimited())) {
+            Iterator<ProductView> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                exported++;
+            }
+        }
+        return exported;
+    }
+    
+    /**
+     * Open the keyset scan on the narrowest index for the filters: store, then category, then expiry
+     */
+    private Stream<ProductView> streamViews(String storeId, String category, LocalDate fromDate, LocalDate toDate,
+                                            LocalDate afterDate, Long afterId, Limit limit) {
+        LocalDate today = LocalDate.now();
+        if (storeId != null) {
+            return productRepository.streamViewsInStoreAfter(storeId, category, fromDate, toDate, afterDate, afterId,
+                                                             today, limit);
+        }
+        if (category != null) {
+            return productRepository.streamViewsInCategoryAfter(category, fromDate, toDate, afterDate, afterId, today,
+                                                                limit);
+        }
+        return productRepository.streamViewsAfter(fromDate, toDate, afterDate, afterId, today, limit);
     }
     
     /**
@@ -50,6 +174,7 @@ public class ProductService {
      */
     public ProductResponseDTO createProduct(ProductCreateDTO productCreateDTO) {
         Product product = new Product(
+                productCreateDTO.getStoreId() != null ? productCreateDTO.getStoreId() : Product.DEFAULT_STORE,
                 productCreateDTO.getName(),
                 productCreateDTO.getCategory(),
                 productCreateDTO.getExpirationDate(),
@@ -58,95 +183,201 @@ public class ProductService {
         );
         
         Product savedProduct = productRepository.save(product);
-        return new ProductResponseDTO(savedProduct);
+        ProductResponseDTO response = new ProductResponseDTO(savedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.created(response));
+        return response;
     }
     
     /**
-     * Update existing product
+     * Update existing product. The quantity and expiration date of a product with stock lots only
+     * change through its lots.
      */
     public ProductResponseDTO updateProduct(Long id, ProductCreateDTO productCreateDTO) {
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + id));
+        if (changesLotStock(existingProduct, productCreateDTO.getQuantity(), productCreateDTO.getExpirationDate())
+            && stockLotRepository.existsByProductId(id)) {
+            throw new IllegalArgumentException(lotStockMessage(id));
+        }
+        String previousStoreId = existingProduct.getStoreId();
         
         existingProduct.setName(productCreateDTO.getName());
         existingProduct.setCategory(productCreateDTO.getCategory());
         existingProduct.setExpirationDate(productCreateDTO.getExpirationDate());
         existingProduct.setQuantity(productCreateDTO.getQuantity());
         existingProduct.setPrice(productCreateDTO.getPrice());
+        if (productCreateDTO.getStoreId() != null) {
+            existingProduct.setStoreId(productCreateDTO.getStoreId());
+        }
         
-        Product updatedProduct = productRepository.save(existingProduct);
-        return new ProductResponseDTO(updatedProduct);
+        // Flushed here so the response carries the version the update produced
+        Product updatedProduct = productRepository.saveAndFlush(existingProduct);
+        ProductResponseDTO response = new ProductResponseDTO(updatedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(response, previousStoreId));
+        return response;
     }
     
     /**
-     * Delete product
+     * Delete product and its stock lots. The row lock queues the delete behind stock changes in
+     * flight, so a lot received concurrently is either deleted too or finds the product gone.
      */
     public void deleteProduct(Long id) {
-        if (!productRepository.existsById(id)) {
-            throw new ProductNotFoundException("Product not found with id: " + id);
+        Product product = productRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + id));
+        stockLotRepository.deleteByProductIdIn(List.of(id));
+        productRepository.delete(product);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id, product.getStoreId()));
+    }
+    
+    /**
+     * Apply a partial update: one UPDATE of the given fields, conditional on the version when the
+     * patch carries one, that also returns the product as written. Only a move to another store
+     * reads the product first, for the store it leaves; only a patch that updated nothing reads
+     * again, to tell why.
+     */
+    public ProductResponseDTO patchProduct(Long id, ProductPatchDTO patchDTO) {
+        if (!patchDTO.hasChanges()) {
+            throw new IllegalArgumentException(EMPTY_PATCH_MESSAGE);
         }
-        productRepository.deleteById(id);
+        String previousStoreId = null;
+        if (patchDTO.getStoreId() != null) {
+            List<Object[]> current = productRepository.findExistingIdsAndStores(List.of(id));
+            if (current.isEmpty()) {
+                throw new ProductNotFoundException("Product not found with id: " + id);
+            }
+            previousStoreId = (String) current.get(0)[1];
+        }
+        
+        ProductPatchStatement.Patch patch = new ProductPatchStatement.Patch(id, patchDTO, previousStoreId);
+        ProductResponseDTO response = ProductPatchStatement.execute(entityManager, List.of(patch))[0];
+        if (response == null) {
+            throw ProductPatchStatement.failure(patch, productRepository.existsById(id),
+                                                stockLotRepository.existsByProductId(id));
+        }
+        evictAfterCommit(entityManagerFactory, List.of(id));
+        eventPublisher.publishEvent(ProductChangedEvent.updated(
+                response, previousStoreId != null ? previousStoreId : response.getStoreId()));
+        return response;
+    }
+    
+    /**
+     * Drop products from the second-level cache once the current transaction commits, for
+     * changes written past Hibernate
+     */
+    static void evictAfterCommit(EntityManagerFactory entityManagerFactory, Collection<Long> ids) {
+        List<Long> evicted = List.copyOf(ids);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                Cache cache = entityManagerFactory.getCache();
+                evicted.forEach(id -> cache.evict(Product.class, id));
+            }
+        });
     }
     
     /**
-     * Search products by name
+     * Whether an update sets a different quantity or expiration date, which for a product with
+     * stock lots follow from its lots
+     */
+    static boolean changesLotStock(Product product, Integer quantity, LocalDate expirationDate) {
+        return !product.getQuantity().equals(quantity) || !product.getExpirationDate().equals(expirationDate);
+    }
+    
+    static String lotStockMessage(Long id) {
+        return "Product " + id + " has stock lots; its quantity and expiration date follow its lots, "
+               + "so receive a lot or consume stock instead";
+    }
+    
+    /**
+     * Search products by name, in one store when storeId is given, best matches first.
+     * Tolerates typos and a partly typed last word; until the search index has loaded,
+     * falls back to a case-insensitive substring match in the database.
      */
     @Transactional(readOnly = true)
-    public List<ProductResponseDTO> searchProductsByName(String name) {
-        return productRepository.findByNameContainingIgnoreCase(name)
-                .stream()
-                .map(ProductResponseDTO::new)
-                .collect(Collectors.toList());
+    public List<ProductView> searchProductsByName(String name, String storeId, int limit) {
+        checkLimit(limit, MAX_SEARCH_LIMIT);
+        LocalDate today = LocalDate.now();
+        if (searchIndex.isReady()) {
+            List<Long> ids = searchIndex.search(name, storeId, limit).stream()
+                    .map(ProductSearchIndex.Hit::productId)
+                    .toList();
+            return findViewsByIdInOrder(ids, today);
+        }
+        String pattern = EscapeCharacter.DEFAULT.escape(name);
+        return storeId != null
+                ? productRepository.findViewsInStoreByNameContaining(storeId, pattern, today, Limit.of(limit))
+                : productRepository.findViewsByNameContaining(pattern, today, Limit.of(limit));
+    }
+    
+    /**
+     * Name suggestions for a partly typed query, answered from the search index alone;
+     * empty until the index has loaded
+     */
+    public List<ProductSearchIndex.Hit> suggestProducts(String prefix, String storeId, int limit) {
+        checkLimit(limit, MAX_SUGGESTIONS);
+        return searchIndex.isReady() ? searchIndex.search(prefix, storeId, limit) : List.of();
+    }
+    
+    private static void checkLimit(int limit, int max) {
+        if (limit < 1 || limit > max) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + max);
+        }
     }
     
     /**
      * Get products by category
      */
     @Transactional(readOnly = true)
-    public List<ProductResponseDTO> getProductsByCategory(String category) {
-        return productRepository.findByCategory(category)
-                .stream()
-                .map(ProductResponseDTO::new)
-                .collect(Collectors.toList());
+    public List<ProductView> getProductsByCategory(String category) {
+        LocalDate today = LocalDate.now();
+        return queryCache.get(ProductQueryCache.Key.category(category, today),
+                              () -> productRepository.findViewsByCategory(category, today));
     }
     
     /**
-     * Get products expiring tomorrow
+     * Get products expiring tomorrow, in one store when storeId is given.
+     * The calendar index spans all stores, so a store's products come from its own index range.
      */
     @Transactional(readOnly = true)
-    public List<Product> getProductsExpiringTomorrow() {
-        LocalDate tomorrow = LocalDate.now().plusDays(1);
-        return productRepository.findProductsExpiringTomorrow(tomorrow);
+    public List<ProductView> getProductsExpiringTomorrow(String storeId) {
+        LocalDate today = LocalDate.now();
+        LocalDate tomorrow = today.plusDays(1);
+        return queryCache.get(ProductQueryCache.Key.expiring("expiring", storeId, tomorrow, tomorrow, today),
+                              () -> loadProductsExpiringBetween(storeId, tomorrow, tomorrow, today));
     }
     
     /**
-     * Get products expiring within specified days
+     * Get products expiring within specified days, in one store when storeId is given
      */
     @Transactional(readOnly = true)
-    public List<Product> getProductsExpiringWithinDays(int days) {
+    public List<ProductView> getProductsExpiringWithinDays(int days, String storeId) {
         LocalDate today = LocalDate.now();
         LocalDate futureDate = today.plusDays(days);
-        return productRepository.findProductsExpiringWithinDays(today, futureDate);
+        return queryCache.get(ProductQueryCache.Key.expiring("expiring", storeId, today, futureDate, today),
+                              () -> loadProductsExpiringBetween(storeId, today, futureDate, today));
     }
     
     /**
      * Get expired products
      */
     @Transactional(readOnly = true)
-    public List<Product> getExpiredProducts() {
+    public List<ProductView> getExpiredProducts() {
         LocalDate today = LocalDate.now();
-        return productRepository.findExpiredProducts(today);
+        return queryCache.get(ProductQueryCache.Key.expiring("expired", null, null, today.minusDays(1), today),
+                              () -> expirationIndex.isReady()
+                                      ? findViewsByIdInOrder(expirationIndex.findIdsExpiringBefore(today), today)
+                                      : productRepository.findExpiredViews(today));
     }
     
-    /**
-     * Get products expiring within days as DTOs
-     */
-    @Transactional(readOnly = true)
-    public List<ProductResponseDTO> getProductsExpiringWithinDaysAsDTO(int days) {
-        return getProductsExpiringWithinDays(days)
-                .stream()
-                .map(ProductResponseDTO::new)
-                .collect(Collectors.toList());
+    private List<ProductView> loadProductsExpiringBetween(String storeId, LocalDate fromDate, LocalDate toDate,
+                                                          LocalDate today) {
+        if (storeId != null) {
+            return productRepository.findViewsInStoreExpiringBetween(storeId, fromDate, toDate, today);
+        }
+        if (expirationIndex.isReady()) {
+            return findViewsByIdInOrder(expirationIndex.findIdsExpiringBetween(fromDate, toDate), today);
+        }
+        return productRepository.findViewsExpiringBetween(fromDate, toDate, today);
     }
     
     /**
@@ -156,6 +387,9 @@ public class ProductService {
     public Double getTotalValueOfProductsExpiringWithinDays(int days) {
         LocalDate today = LocalDate.now();
         LocalDate futureDate = today.plusDays(days);
+        if (expirationIndex.isReady()) {
+            return expirationIndex.valueExpiringBetween(today, futureDate).doubleValue();
+        }
         return productRepository.getTotalValueOfProductsExpiringWithinDays(today, futureDate);
     }
     
@@ -166,6 +400,70 @@ public class ProductService {
     public Long countProductsExpiringWithinDays(int days) {
         LocalDate today = LocalDate.now();
         LocalDate futureDate = today.plusDays(days);
+        if (expirationIndex.isReady()) {
+            return expirationIndex.countExpiringBetween(today, futureDate);
+        }
         return productRepository.countProductsExpiringWithinDays(today, futureDate);
     }
+    
+    /**
+     * Counts, units and value per category and expiry status from one grouped query,
+     * over one store when storeId is given
+     */
+    @Transactional(readOnly = true)
+    public InventorySummaryDTO getInventorySummary(String storeId) {
+        LocalDate today = LocalDate.now();
+        InventorySummaryDTO summary = new InventorySummaryDTO(today);
+        List<Object[]> rows = storeId != null
+                ? productRepository.summarizeStoreByCategoryAndStatus(storeId, today, today.plusDays(1), today.plusDays(7))
+                : productRepository.summarizeByCategoryAndStatus(today, today.plusDays(1), today.plusDays(7));
+        for (Object[] row : rows) {
+            summary.add((String) row[0], (String) row[1], ((Number) row[2]).longValue(), ((Number) row[3]).longValue(),
+                        (BigDecimal) row[4]);
+        }
+        return summary;
+    }
+    
+    /**
+     * Hits, misses and size of the product entity cache region and of the list result cache
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> getCacheMetrics() {
+        Map<String, Object> entities = new LinkedHashMap<>();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        CacheRegionStatistics region = statistics.getCacheRegionStatistics(Product.CACHE_REGION);
+        entities.put("enabled", region != null);
+        if (region != null) {
+            entities.put("hits", region.getHitCount());
+            entities.put("misses", region.getMissCount());
+            entities.put("puts", region.getPutCount());
+            entities.put("entries", region.getElementCountInMemory());
+        }
+        
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("entities", entities);
+        metrics.put("queries", queryCache.getMetrics());
+        metrics.put("statementsPrepared", statistics.getPrepareStatementCount());
+        return metrics;
+    }
+    
+    /**
+     * Load product views by id, preserving the order of the given ids
+     */
+    private List<ProductView> findViewsByIdInOrder(List<Long> ids, LocalDate today) {
+        Map<Long, ProductView> byId = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += ID_LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + ID_LOOKUP_CHUNK_SIZE, ids.size()));
+            productRepository.findViewsByIdIn(chunk, today).forEach(product -> byId.put(product.id(), product));
+        }
+        
+        List<ProductView> products = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProductView product = byId.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
 }
\ No newline at end of file
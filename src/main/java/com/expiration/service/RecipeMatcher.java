@@ -0,0 +1,284 @@
+package com.expiration.service;
+
+import java.util.*;
+
+/**
+ * Precompiled matcher from product names to recipe keys.
+ *
+ * Recipe keys and category keywords are compiled once into an Aho-Corasick automaton,
+ * so every key or keyword contained in a product name is found in a single pass over
+ * the name. Names that are themselves part of a key (e.g. "egg" for "eggs") are found
+ * through a suffix array over all keys. Lookups never iterate the recipe database.
+ */
+final class RecipeMatcher {
+
+    /**
+     * How a product name was resolved, in order of precedence
+     */
+    enum MatchPath {
+        DIRECT, PARTIAL, CATEGORY, DEFAULT
+    }
+
+    /**
+     * Outcome of a match: the recipe key to use, or null for the default recipes
+     */
+    record Match(MatchPath path, String key) {}
+
+    // Bound on how many suffix array entries are inspected for very short names
+    private static final int MAX_SUBSTRING_CANDIDATES = 256;
+    private static final char KEY_SEPARATOR = '\u0001';
+
+    private final Set<String> keys;
+    private final String[] categoryRecipeKeys;
+
+    // Automaton: per-node sorted edge labels and targets, failure and dictionary links
+    private final char[][] edgeLabels;
+    private final int[][] edgeTargets;
+    private final int[] failure;
+    private final int[] dictionaryLink;
+    private final int[] keyLength;
+    private final String[] keyAt;
+    private final int[] categoryRankAt;
+
+    // Suffix array over all keys joined by KEY_SEPARATOR
+    private final String joinedKeys;
+    private final int[] suffixes;
+    private final int[] keyStarts;
+    private final String[] keysByStart;
+
+    /**
+     * @param keys               recipe keys, already lowercase
+     * @param categoryKeywords   keyword lists in priority order; a name matching several
+     *                           categories resolves to the first one
+     * @param categoryRecipeKeys recipe key used for each category, same order
+     */
+    RecipeMatcher(Collection<String> keys, List<List<String>> categoryKeywords, List<String> categoryRecipeKeys) {
+        this.keys = Set.copyOf(keys);
+        this.categoryRecipeKeys = categoryRecipeKeys.toArray(new String[0]);
+
+        // Build a pointer trie first, then compact it into arrays
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<String> nodeKey = new ArrayList<>();
+        List<Integer> nodeCategory = new ArrayList<>();
+        List<Integer> nodeDepth = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        nodeKey.add(null);
+        nodeCategory.add(-1);
+        nodeDepth.add(0);
+
+        for (String key : this.keys) {
+            int node = insert(trie, nodeKey, nodeCategory, nodeDepth, key);
+            nodeKey.set(node, key);
+        }
+        for (int rank = 0; rank < categoryKeywords.size(); rank++) {
+            for (String keyword : categoryKeywords.get(rank)) {
+                int node = insert(trie, nodeKey, nodeCategory, nodeDepth, keyword);
+                int existing = nodeCategory.get(node);
+                if (existing < 0 || rank < existing) {
+                    nodeCategory.set(node, rank);
+                }
+            }
+        }
+
+        int size = trie.size();
+        edgeLabels = new char[size][];
+        edgeTargets = new int[size][];
+        keyAt = new String[size];
+        categoryRankAt = new int[size];
+        keyLength = new int[size];
+        for (int node = 0; node < size; node++) {
+            TreeMap<Character, Integer> edges = trie.get(node);
+            edgeLabels[node] = new char[edges.size()];
+            edgeTargets[node] = new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                edgeLabels[node][i] = edge.getKey();
+                edgeTargets[node][i] = edge.getValue();
+                i++;
+            }
+            keyAt[node] = nodeKey.get(node);
+            categoryRankAt[node] = nodeCategory.get(node);
+            keyLength[node] = nodeDepth.get(node);
+        }
+
+        // Breadth-first failure and dictionary links
+        failure = new int[size];
+        dictionaryLink = new int[size];
+        Arrays.fill(dictionaryLink, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : edgeTargets[0]) {
+            failure[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < edgeLabels[node].length; i++) {
+                char label = edgeLabels[node][i];
+                int child = edgeTargets[node][i];
+                int fallback = failure[node];
+                while (fallback != 0 && next(fallback, label) < 0) {
+                    fallback = failure[fallback];
+                }
+                int target = next(fallback, label);
+                failure[child] = target >= 0 && target != child ? target : 0;
+                int suffix = failure[child];
+                dictionaryLink[child] = hasOutput(suffix) ? suffix : dictionaryLink[suffix];
+                queue.add(child);
+            }
+        }
+
+        // Suffix array for "key contains name" lookups
+        List<String> sortedKeys = new ArrayList<>(this.keys);
+        Collections.sort(sortedKeys);
+        StringBuilder joined = new StringBuilder();
+        keyStarts = new int[sortedKeys.size()];
+        keysByStart = new String[sortedKeys.size()];
+        for (int i = 0; i < sortedKeys.size(); i++) {
+            keyStarts[i] = joined.length();
+            keysByStart[i] = sortedKeys.get(i);
+            joined.append(sortedKeys.get(i)).append(KEY_SEPARATOR);
+        }
+        joinedKeys = joined.toString();
+        suffixes = buildSuffixArray(joinedKeys);
+    }
+
+    /**
+     * Resolve a normalized (lowercase, trimmed) product name
+     */
+    Match match(String name) {
+        if (keys.contains(name)) {
+            return new Match(MatchPath.DIRECT, name);
+        }
+
+        // One pass: longest recipe key inside the name, and highest priority category keyword
+        String bestKey = null;
+        int bestCategory = -1;
+        int state = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            int target;
+            while ((target = next(state, c)) < 0 && state != 0) {
+                state = failure[state];
+            }
+            state = Math.max(target, 0);
+            for (int out = hasOutput(state) ? state : dictionaryLink[state]; out > 0; out = dictionaryLink[out]) {
+                if (keyAt[out] != null && (bestKey == null || keyLength[out] > bestKey.length())) {
+                    bestKey = keyAt[out];
+                }
+                if (categoryRankAt[out] >= 0 && (bestCategory < 0 || categoryRankAt[out] < bestCategory)) {
+                    bestCategory = categoryRankAt[out];
+                }
+            }
+        }
+
+        if (bestKey == null) {
+            bestKey = shortestKeyContaining(name);
+        }
+        if (bestKey != null) {
+            return new Match(MatchPath.PARTIAL, bestKey);
+        }
+        if (bestCategory >= 0) {
+            return new Match(MatchPath.CATEGORY, categoryRecipeKeys[bestCategory]);
+        }
+        return new Match(MatchPath.DEFAULT, null);
+    }
+
+    private String shortestKeyContaining(String name) {
+        if (name.indexOf(KEY_SEPARATOR) >= 0) {
+            return null;
+        }
+        int low = 0;
+        int high = suffixes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareSuffix(suffixes[mid], name) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        String best = null;
+        for (int i = low; i < suffixes.length && i < low + MAX_SUBSTRING_CANDIDATES; i++) {
+            if (!joinedKeys.startsWith(name, suffixes[i])) {
+                break;
+            }
+            int owner = Arrays.binarySearch(keyStarts, suffixes[i]);
+            String key = keysByStart[owner >= 0 ? owner : -owner - 2];
+            if (best == null || key.length() < best.length()
+                    || (key.length() == best.length() && key.compareTo(best) < 0)) {
+                best = key;
+            }
+        }
+        return best;
+    }
+
+    private int compareSuffix(int position, String name) {
+        int length = Math.min(joinedKeys.length() - position, name.length());
+        for (int i = 0; i < length; i++) {
+            int diff = joinedKeys.charAt(position + i) - name.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return (joinedKeys.length() - position) < name.length() ? -1 : 0;
+    }
+
+    private boolean hasOutput(int node) {
+        return node != 0 && (keyAt[node] != null || categoryRankAt[node] >= 0);
+    }
+
+    private int next(int node, char label) {
+        int index = Arrays.binarySearch(edgeLabels[node], label);
+        return index >= 0 ? edgeTargets[node][index] : -1;
+    }
+
+    private static int insert(List<TreeMap<Character, Integer>> trie, List<String> nodeKey,
+                              List<Integer> nodeCategory, List<Integer> nodeDepth, String word) {
+        int node = 0;
+        for (int i = 0; i < word.length(); i++) {
+            Integer child = trie.get(node).get(word.charAt(i));
+            if (child == null) {
+                child = trie.size();
+                trie.add(new TreeMap<>());
+                nodeKey.add(null);
+                nodeCategory.add(-1);
+                nodeDepth.add(i + 1);
+                trie.get(node).put(word.charAt(i), child);
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    private static int[] buildSuffixArray(String text) {
+        // Only suffixes starting at a key character are useful; separators never match a name
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) != KEY_SEPARATOR) {
+                count++;
+            }
+        }
+        Integer[] positions = new Integer[count];
+        for (int i = 0, p = 0; i < text.length(); i++) {
+            if (text.charAt(i) != KEY_SEPARATOR) {
+                positions[p++] = i;
+            }
+        }
+        Arrays.sort(positions, (a, b) -> {
+            int length = text.length() - Math.max(a, b);
+            for (int i = 0; i < length; i++) {
+                int diff = text.charAt(a + i) - text.charAt(b + i);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return b - a;
+        });
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = positions[i];
+        }
+        return result;
+    }
+}
@@ -1,71 +1,76 @@
 package com.expiration.service;
 
 import com.expiration.dto.RecipeDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
 
 @Service
 public class RecipeService {
     
+    // Category keyword groups in priority order, and the recipe key each one falls back to
+    private static final List<List<String>> CATEGORY_KEYWORDS = List.of(
+            List.of("chicken", "beef", "pork", "meat", "turkey", "lamb"),
+            List.of("lettuce", "tomato", "spinach", "pepper", "carrot", "onion", "broccoli"),
+            List.of("apple", "banana", "berry", "orange", "grape", "strawberry"),
+            List.of("milk", "cheese", "yogurt", "cream", "butter")
+    );
+    private static final List<String> CATEGORY_RECIPE_KEYS = List.of("chicken", "tomatoes", "apples", "milk");
+    
+    // Limit to top 5 recipes to avoid overwhelming
+    private static final int MAX_SUGGESTED_RECIPES = 5;
+    
+    // Immutable recipe templates, shared by every lookup
     private final Map<String, List<RecipeDTO>> recipeDatabase;
+    private final RecipeMatcher matcher;
+    private final String databaseVersion;
+    
+    // Lookup latency per match path, registered up front so lookups never touch the registry
+    private final Map<RecipeMatcher.MatchPath, Timer> lookupTimers = new EnumMap<>(RecipeMatcher.MatchPath.class);
     
-    public RecipeService() {
-        this.recipeDatabase = initializeRecipeDatabase();
+    @Autowired
+    public RecipeService(MeterRegistry meterRegistry) {
+        this(meterRegistry, Map.of());
+    }
+    
+    /**
+     * Service over the built-in recipes plus additional ones keyed by lowercase product
+     * keyword; an additional key replaces the built-in recipes for the same key
+     */
+    public RecipeService(MeterRegistry meterRegistry, Map<String, List<RecipeDTO>> additionalRecipes) {
+        Map<String, List<RecipeDTO>> recipes = new HashMap<>(initializeRecipeDatabase());
+        additionalRecipes.forEach((key, templates) -> recipes.put(key, List.copyOf(templates)));
+        this.recipeDatabase = Map.copyOf(recipes);
+        this.matcher = new RecipeMatcher(recipeDatabase.keySet(), CATEGORY_KEYWORDS, CATEGORY_RECIPE_KEYS);
+        this.databaseVersion = computeDatabaseVersion(recipeDatabase);
+        for (RecipeMatcher.MatchPath path : RecipeMatcher.MatchPath.values()) {
+            lookupTimers.put(path, Timer.builder("recipe.lookup")
+                    .description("Recipe key lookup by match path")
+                    .tag("path", path.name().toLowerCase())
+                    .register(meterRegistry));
+        }
     }
     
     /**
      * Get recipe suggestions for a specific product
      */
     public List<RecipeDTO> getRecipesForProduct(String productName) {
-        String normalizedName = productName.toLowerCase().trim();
-        
-        // Direct match
-        List<RecipeDTO> directMatch = recipeDatabase.get(normalizedName);
-        if (directMatch != null && !directMatch.isEmpty()) {
-            return directMatch.stream()
-                    .map(recipe -> {
-                        RecipeDTO dto = new RecipeDTO(recipe.getName(), recipe.getDescription(), 
-                                                    recipe.getIngredients(), recipe.getCookTime(), 
-                                                    recipe.getDifficulty());
-                        dto.setForProduct(productName);
-                        return dto;
-                    })
-                    .collect(Collectors.toList());
-        }
-        
-        // Partial match
-        for (Map.Entry<String, List<RecipeDTO>> entry : recipeDatabase.entrySet()) {
-            if (normalizedName.contains(entry.getKey()) || entry.getKey().contains(normalizedName)) {
-                return entry.getValue().stream()
-                        .map(recipe -> {
-                            RecipeDTO dto = new RecipeDTO(recipe.getName(), recipe.getDescription(), 
-                                                        recipe.getIngredients(), recipe.getCookTime(), 
-                                                        recipe.getDifficulty());
-                            dto.setForProduct(productName);
-                            return dto;
-                        })
-                        .collect(Collectors.toList());
-            }
+        List<RecipeDTO> templates = findTemplates(productName);
+        if (templates == null) {
+            return getDefaultRecipes(productName);
         }
         
-        // Category-based suggestions
-        List<RecipeDTO> categoryRecipes = getCategoryBasedRecipes(normalizedName);
-        if (!categoryRecipes.isEmpty()) {
-            return categoryRecipes.stream()
-                    .map(recipe -> {
-                        RecipeDTO dto = new RecipeDTO(recipe.getName(), recipe.getDescription(), 
-                                                    recipe.getIngredients(), recipe.getCookTime(), 
-                                                    recipe.getDifficulty());
-                        dto.setForProduct(productName);
-                        return dto;
-                    })
-                    .collect(Collectors.toList());
+        List<RecipeDTO> recipes = new ArrayList<>(templates.size());
+        for (RecipeDTO template : templates) {
+            recipes.add(forProduct(template, productName));
         }
-        
-        // Default generic recipes
-        return getDefaultRecipes(productName);
+        return recipes;
     }
     
     /**
@@ -75,42 +80,80 @@ public class RecipeService {
         Set<String> uniqueRecipes = new HashSet<>();
         List<RecipeDTO> allRecipes = new ArrayList<>();
         
+        // Only the first few unique recipes are kept, so stop matching once they are found
         for (String productName : productNames) {
-            List<RecipeDTO> recipes = getRecipesForProduct(productName);
-            for (RecipeDTO recipe : recipes) {
-                if (uniqueRecipes.add(recipe.getName())) {
-                    allRecipes.add(recipe);
+            List<RecipeDTO> templates = findTemplates(productName);
+            List<RecipeDTO> candidates = templates != null ? templates : getDefaultRecipes(productName);
+            for (RecipeDTO candidate : candidates) {
+                if (uniqueRecipes.add(candidate.getName())) {
+                    allRecipes.add(templates != null ? forProduct(candidate, productName) : candidate);
+                    if (allRecipes.size() == MAX_SUGGESTED_RECIPES) {
+                        return allRecipes;
+                    }
                 }
             }
         }
         
-        // Limit to top 5 recipes to avoid overwhelming
-        return allRecipes.stream().limit(5).collect(Collectors.toList());
+        return allRecipes;
     }
     
-    private List<RecipeDTO> getCategoryBasedRecipes(String productName) {
-        String[] meatKeywords = {"chicken", "beef", "pork", "meat", "turkey", "lamb"};
-        String[] vegetableKeywords = {"lettuce", "tomato", "spinach", "pepper", "carrot", "onion", "broccoli"};
-        String[] fruitKeywords = {"apple", "banana", "berry", "orange", "grape", "strawberry"};
-        String[] dairyKeywords = {"milk", "cheese", "yogurt", "cream", "butter"};
-        
-        if (Arrays.stream(meatKeywords).anyMatch(productName::contains)) {
-            return recipeDatabase.getOrDefault("chicken", new ArrayList<>());
-        }
-        
-        if (Arrays.stream(vegetableKeywords).anyMatch(productName::contains)) {
-            return recipeDatabase.getOrDefault("tomatoes", new ArrayList<>());
-        }
-        
-        if (Arrays.stream(fruitKeywords).anyMatch(productName::contains)) {
-            return recipeDatabase.getOrDefault("apples", new ArrayList<>());
+    /**
+     * Combine suggestions made for separate product groups, keeping the first few unique recipes
+     */
+    public List<RecipeDTO> mergeRecipes(List<List<RecipeDTO>> suggestions) {
+        Set<String> uniqueRecipes = new HashSet<>();
+        List<RecipeDTO> merged = new ArrayList<>();
+        for (List<RecipeDTO> recipes : suggestions) {
+            for (RecipeDTO recipe : recipes) {
+                if (uniqueRecipes.add(recipe.getName())) {
+                    merged.add(recipe);
+                    if (merged.size() == MAX_SUGGESTED_RECIPES) {
+                        return merged;
+                    }
+                }
+            }
         }
-        
-        if (Arrays.stream(dairyKeywords).anyMatch(productName::contains)) {
-            return recipeDatabase.getOrDefault("milk", new ArrayList<>());
+        return merged;
+    }
+    
+    /**
+     * Content hash of the recipe templates; changes only when the templates themselves do
+     */
+    public String getDatabaseVersion() {
+        return databaseVersion;
+    }
+    
+    private static String computeDatabaseVersion(Map<String, List<RecipeDTO>> recipes) {
+        CRC32 crc = new CRC32();
+        new TreeMap<>(recipes).forEach((key, templates) -> {
+            crc.update(key.getBytes(StandardCharsets.UTF_8));
+            for (RecipeDTO template : templates) {
+                String fields = String.join("\u0000", template.getName(), template.getDescription(),
+                                            String.join(",", template.getIngredients()),
+                                            template.getCookTime(), template.getDifficulty());
+                crc.update(fields.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        return Long.toHexString(crc.getValue());
+    }
+    
+    /**
+     * Shared templates for the product, or null when only the default recipes apply
+     */
+    private List<RecipeDTO> findTemplates(String productName) {
+        long start = System.nanoTime();
+        RecipeMatcher.Match match = matcher.match(productName.toLowerCase().trim());
+        lookupTimers.get(match.path()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (match.key() == null) {
+            return null;
         }
-        
-        return new ArrayList<>();
+        List<RecipeDTO> templates = recipeDatabase.get(match.key());
+        return templates == null || templates.isEmpty() ? null : templates;
+    }
+    
+    private static RecipeDTO forProduct(RecipeDTO template, String productName) {
+        return new RecipeDTO(template.getName(), template.getDescription(), template.getIngredients(),
+                             template.getCookTime(), template.getDifficulty(), productName);
     }
     
     private List<RecipeDTO> getDefaultRecipes(String productName) {
@@ -134,102 +177,102 @@ public class RecipeService {
         );
     }
     
-    private Map<String, List<RecipeDTO>> initializeRecipeDatabase() {
+    private static Map<String, List<RecipeDTO>> initializeRecipeDatabase() {
         Map<String, List<RecipeDTO>> recipes = new HashMap<>();
         
         // Dairy recipes
-        recipes.put("milk", Arrays.asList(
+        recipes.put("milk", List.of(
                 new RecipeDTO("Creamy Pancakes", "Fluffy pancakes perfect for breakfast",
-                        Arrays.asList("milk", "flour", "eggs", "sugar", "baking powder"), "20 minutes", "Easy"),
+                        List.of("milk", "flour", "eggs", "sugar", "baking powder"), "20 minutes", "Easy"),
                 new RecipeDTO("Milk Rice Pudding", "Comforting dessert with warm spices",
-                        Arrays.asList("milk", "rice", "sugar", "vanilla", "cinnamon"), "45 minutes", "Easy"),
+                        List.of("milk", "rice", "sugar", "vanilla", "cinnamon"), "45 minutes", "Easy"),
                 new RecipeDTO("White Sauce Pasta", "Creamy pasta with rich white sauce",
-                        Arrays.asList("milk", "pasta", "butter", "flour", "cheese"), "25 minutes", "Medium")
+                        List.of("milk", "pasta", "butter", "flour", "cheese"), "25 minutes", "Medium")
         ));
         
-        recipes.put("cheese", Arrays.asList(
+        recipes.put("cheese", List.of(
                 new RecipeDTO("Cheese Quesadillas", "Quick and delicious Mexican-style quesadillas",
-                        Arrays.asList("cheese", "tortillas", "onions", "peppers"), "15 minutes", "Easy"),
+                        List.of("cheese", "tortillas", "onions", "peppers"), "15 minutes", "Easy"),
                 new RecipeDTO("Mac and Cheese", "Classic comfort food with creamy cheese sauce",
-                        Arrays.asList("cheese", "pasta", "milk", "butter", "flour"), "30 minutes", "Medium"),
+                        List.of("cheese", "pasta", "milk", "butter", "flour"), "30 minutes", "Medium"),
                 new RecipeDTO("Cheese Omelette", "Perfect breakfast with melted cheese",
-                        Arrays.asList("cheese", "eggs", "butter", "herbs"), "10 minutes", "Easy")
+                        List.of("cheese", "eggs", "butter", "herbs"), "10 minutes", "Easy")
         ));
         
-        recipes.put("yogurt", Arrays.asList(
+        recipes.put("yogurt", List.of(
                 new RecipeDTO("Yogurt Smoothie Bowl", "Healthy breakfast bowl with fresh toppings",
-                        Arrays.asList("yogurt", "berries", "granola", "honey"), "5 minutes", "Easy"),
+                        List.of("yogurt", "berries", "granola", "honey"), "5 minutes", "Easy"),
                 new RecipeDTO("Yogurt Marinated Chicken", "Tender chicken with yogurt marinade",
-                        Arrays.asList("yogurt", "chicken", "spices", "garlic", "lemon"), "45 minutes", "Medium")
+                        List.of("yogurt", "chicken", "spices", "garlic", "lemon"), "45 minutes", "Medium")
         ));
         
         // Meat recipes
-        recipes.put("chicken", Arrays.asList(
+        recipes.put("chicken", List.of(
                 new RecipeDTO("Chicken Stir Fry", "Quick and healthy stir-fry with fresh vegetables",
-                        Arrays.asList("chicken", "vegetables", "soy sauce", "garlic", "ginger"), "20 minutes", "Easy"),
+                        List.of("chicken", "vegetables", "soy sauce", "garlic", "ginger"), "20 minutes", "Easy"),
                 new RecipeDTO("Chicken Curry", "Aromatic curry with rich coconut sauce",
-                        Arrays.asList("chicken", "coconut milk", "curry powder", "onions", "tomatoes"), "40 minutes", "Medium"),
+                        List.of("chicken", "coconut milk", "curry powder", "onions", "tomatoes"), "40 minutes", "Medium"),
                 new RecipeDTO("Grilled Chicken Salad", "Healthy salad with grilled chicken breast",
-                        Arrays.asList("chicken", "lettuce", "tomatoes", "cucumber", "dressing"), "25 minutes", "Easy")
+                        List.of("chicken", "lettuce", "tomatoes", "cucumber", "dressing"), "25 minutes", "Easy")
         ));
         
-        recipes.put("beef", Arrays.asList(
+        recipes.put("beef", List.of(
                 new RecipeDTO("Beef Tacos", "Classic tacos with seasoned ground beef",
-                        Arrays.asList("ground beef", "taco shells", "lettuce", "cheese", "tomatoes"), "20 minutes", "Easy"),
+                        List.of("ground beef", "taco shells", "lettuce", "cheese", "tomatoes"), "20 minutes", "Easy"),
                 new RecipeDTO("Beef Stew", "Hearty stew perfect for cold days",
-                        Arrays.asList("beef", "potatoes", "carrots", "onions", "broth"), "2 hours", "Medium")
+                        List.of("beef", "potatoes", "carrots", "onions", "broth"), "2 hours", "Medium")
         ));
         
         // Vegetable recipes
-        recipes.put("tomatoes", Arrays.asList(
+        recipes.put("tomatoes", List.of(
                 new RecipeDTO("Caprese Salad", "Fresh Italian salad with ripe tomatoes",
-                        Arrays.asList("tomatoes", "mozzarella", "basil", "olive oil"), "10 minutes", "Easy"),
+                        List.of("tomatoes", "mozzarella", "basil", "olive oil"), "10 minutes", "Easy"),
                 new RecipeDTO("Tomato Pasta Sauce", "Homemade pasta sauce with fresh tomatoes",
-                        Arrays.asList("tomatoes", "garlic", "onions", "herbs", "olive oil"), "30 minutes", "Easy"),
+                        List.of("tomatoes", "garlic", "onions", "herbs", "olive oil"), "30 minutes", "Easy"),
                 new RecipeDTO("Stuffed Tomatoes", "Baked tomatoes stuffed with savory filling",
-                        Arrays.asList("tomatoes", "rice", "herbs", "cheese"), "45 minutes", "Medium")
+                        List.of("tomatoes", "rice", "herbs", "cheese"), "45 minutes", "Medium")
         ));
         
-        recipes.put("lettuce", Arrays.asList(
+        recipes.put("lettuce", List.of(
                 new RecipeDTO("Caesar Salad", "Classic Caesar salad with crispy lettuce",
-                        Arrays.asList("lettuce", "croutons", "parmesan", "caesar dressing"), "10 minutes", "Easy"),
+                        List.of("lettuce", "croutons", "parmesan", "caesar dressing"), "10 minutes", "Easy"),
                 new RecipeDTO("Lettuce Wraps", "Healthy wraps using lettuce as shells",
-                        Arrays.asList("lettuce", "ground meat", "vegetables", "sauce"), "15 minutes", "Easy")
+                        List.of("lettuce", "ground meat", "vegetables", "sauce"), "15 minutes", "Easy")
         ));
         
         // Fruit recipes
-        recipes.put("apples", Arrays.asList(
+        recipes.put("apples", List.of(
                 new RecipeDTO("Apple Pie", "Classic American apple pie with flaky crust",
-                        Arrays.asList("apples", "pie crust", "sugar", "cinnamon", "butter"), "1 hour", "Medium"),
+                        List.of("apples", "pie crust", "sugar", "cinnamon", "butter"), "1 hour", "Medium"),
                 new RecipeDTO("Apple Crisp", "Warm dessert with crunchy oat topping",
-                        Arrays.asList("apples", "oats", "brown sugar", "butter", "cinnamon"), "45 minutes", "Easy"),
+                        List.of("apples", "oats", "brown sugar", "butter", "cinnamon"), "45 minutes", "Easy"),
                 new RecipeDTO("Apple Sauce", "Homemade applesauce perfect as side or snack",
-                        Arrays.asList("apples", "sugar", "cinnamon", "lemon juice"), "25 minutes", "Easy")
+                        List.of("apples", "sugar", "cinnamon", "lemon juice"), "25 minutes", "Easy")
         ));
         
-        recipes.put("bananas", Arrays.asList(
+        recipes.put("bananas", List.of(
                 new RecipeDTO("Banana Bread", "Moist banana bread perfect for overripe bananas",
-                        Arrays.asList("bananas", "flour", "sugar", "eggs", "butter"), "1 hour", "Easy"),
+                        List.of("bananas", "flour", "sugar", "eggs", "butter"), "1 hour", "Easy"),
                 new RecipeDTO("Banana Smoothie", "Creamy smoothie with natural sweetness",
-                        Arrays.asList("bananas", "milk", "honey", "ice"), "5 minutes", "Easy")
+                        List.of("bananas", "milk", "honey", "ice"), "5 minutes", "Easy")
         ));
         
         // Bakery recipes
-        recipes.put("bread", Arrays.asList(
+        recipes.put("bread", List.of(
                 new RecipeDTO("French Toast", "Perfect breakfast using day-old bread",
-                        Arrays.asList("bread", "eggs", "milk", "cinnamon", "vanilla"), "15 minutes", "Easy"),
+                        List.of("bread", "eggs", "milk", "cinnamon", "vanilla"), "15 minutes", "Easy"),
                 new RecipeDTO("Bread Pudding", "Comforting dessert that uses stale bread",
-                        Arrays.asList("bread", "milk", "eggs", "sugar", "vanilla"), "45 minutes", "Easy")
+                        List.of("bread", "milk", "eggs", "sugar", "vanilla"), "45 minutes", "Easy")
         ));
         
         // Eggs
-        recipes.put("eggs", Arrays.asList(
+        recipes.put("eggs", List.of(
                 new RecipeDTO("Scrambled Eggs", "Creamy scrambled eggs for any meal",
-                        Arrays.asList("eggs", "butter", "milk", "salt", "pepper"), "5 minutes", "Easy"),
+                        List.of("eggs", "butter", "milk", "salt", "pepper"), "5 minutes", "Easy"),
                 new RecipeDTO("Egg Fried Rice", "Quick fried rice with scrambled eggs",
-                        Arrays.asList("eggs", "rice", "vegetables", "soy sauce"), "15 minutes", "Easy")
+                        List.of("eggs", "rice", "vegetables", "soy sauce"), "15 minutes", "Easy")
         ));
         
-        return recipes;
+        return Map.copyOf(recipes);
     }
 }
\ No newline at end of file
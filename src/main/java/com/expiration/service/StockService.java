@@ -0,0 +1,160 @@
+package com.expiration.service;
+
+import com.expiration.dto.ProductResponseDTO;
+import com.expiration.dto.StockConsumptionDTO;
+import com.expiration.dto.StockLotCreateDTO;
+import com.expiration.dto.StockLotView;
+import com.expiration.entity.Product;
+import com.expiration.entity.StockLot;
+import com.expiration.event.ProductChangedEvent;
+import com.expiration.exception.InsufficientStockException;
+import com.expiration.exception.ProductNotFoundException;
+import com.expiration.repository.ProductRepository;
+import com.expiration.repository.StockLotRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lot-level stock: receiving lots and selling from them first-expiring-first-out.
+ *
+ * Every change takes the product's row lock first, so changes to one product queue for a
+ * transaction of a few statements while other products proceed in parallel. FEFO sends every
+ * sale of a product to the same lot, so optimistic retries would mostly collide; queueing on the
+ * lock never retries. Lots and the product total are then changed with conditional UPDATEs
+ * that cannot take a lot or the product below zero. A product's first lot operation moves the
+ * stock it already holds into an opening lot, so lots always add up to the product quantity.
+ */
+@Service
+@Transactional
+public class StockService {
+
+    private final ProductRepository productRepository;
+    private final StockLotRepository stockLotRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public StockService(ProductRepository productRepository, StockLotRepository stockLotRepository,
+                        EntityManager entityManager, ApplicationEventPublisher eventPublisher) {
+        this.productRepository = productRepository;
+        this.stockLotRepository = stockLotRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * A product's lots, first-expiring first, including emptied ones
+     */
+    @Transactional(readOnly = true)
+    public List<StockLotView> getLots(Long productId) {
+        if (!productRepository.existsById(productId)) {
+            throw new ProductNotFoundException("Product not found with id: " + productId);
+        }
+        return stockLotRepository.findViewsByProductId(productId);
+    }
+
+    /**
+     * Add a received lot to a product's stock
+     */
+    public StockLotView receiveLot(Long productId, StockLotCreateDTO lotCreateDTO) {
+        Product product = lockProduct(productId);
+        List<StockLot> stocked = stockedLots(product);
+        StockLot lot = stockLotRepository.save(new StockLot(productId, lotCreateDTO.getLotCode(),
+                                                            lotCreateDTO.getExpirationDate(),
+                                                            lotCreateDTO.getQuantity()));
+
+        LocalDate expirationDate = lot.getExpirationDate();
+        if (!stocked.isEmpty() && stocked.get(0).getExpirationDate().isBefore(expirationDate)) {
+            expirationDate = stocked.get(0).getExpirationDate();
+        }
+        adjustStock(product, lot.getQuantity(), expirationDate);
+        return new StockLotView(lot.getId(), productId, lot.getLotCode(), lot.getExpirationDate(), lot.getQuantity(),
+                                lot.getReceivedAt());
+    }
+
+    /**
+     * Take units from a product's lots, first-expiring first; nothing is taken unless all of them can be
+     */
+    public StockConsumptionDTO consume(Long productId, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be at least 1");
+        }
+        Product product = lockProduct(productId);
+        if (product.getQuantity() < quantity) {
+            throw new InsufficientStockException(productId, quantity, product.getQuantity());
+        }
+
+        List<StockConsumptionDTO.LotTaken> taken = new ArrayList<>();
+        List<StockLot> lots = stockedLots(product);
+        int needed = quantity;
+        int next = 0;
+        while (needed > 0 && next < lots.size()) {
+            StockLot lot = lots.get(next);
+            int take = Math.min(needed, lot.getQuantity());
+            if (stockLotRepository.take(lot.getId(), take) == 0) {
+                throw new IllegalStateException("Lot " + lot.getId() + " changed while product " + productId + " was locked");
+            }
+            needed -= take;
+            int left = lot.getQuantity() - take;
+            taken.add(new StockConsumptionDTO.LotTaken(lot.getId(), lot.getLotCode(), lot.getExpirationDate(), take, left));
+            if (left > 0) {
+                // Still holds stock, so it stays the first lot to expire
+                break;
+            }
+            next++;
+        }
+        if (needed > 0) {
+            // Lots hold less than the product total; roll back rather than leave them apart
+            throw new InsufficientStockException(productId, quantity, quantity - needed);
+        }
+        // The first lot still in stock sets the date; with every lot emptied the date stays as it was
+        LocalDate expirationDate = next < lots.size() ? lots.get(next).getExpirationDate() : product.getExpirationDate();
+
+        adjustStock(product, -quantity, expirationDate);
+        return new StockConsumptionDTO(productId, quantity, product.getQuantity(), expirationDate, taken);
+    }
+
+    /**
+     * Lock the product row for the rest of the transaction. The entity is detached so that the
+     * stock statements below are the only writes; it only supplies values for the change event.
+     */
+    private Product lockProduct(Long productId) {
+        Product product = productRepository.findByIdForUpdate(productId)
+                .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + productId));
+        entityManager.detach(product);
+        return product;
+    }
+
+    /**
+     * The product's lots with stock, in FEFO order; stock held before its first lot becomes an opening lot
+     */
+    private List<StockLot> stockedLots(Product product) {
+        if (product.getQuantity() > 0 && !stockLotRepository.existsByProductId(product.getId())) {
+            StockLot opening = new StockLot(product.getId(), null, product.getExpirationDate(), product.getQuantity());
+            return List.of(stockLotRepository.save(opening));
+        }
+        return stockLotRepository.findStockedLots(product.getId());
+    }
+
+    private void adjustStock(Product product, int delta, LocalDate expirationDate) {
+        if (productRepository.adjustStock(product.getId(), delta, expirationDate) == 0) {
+            throw new IllegalStateException("Stock of product " + product.getId() + " changed while it was locked");
+        }
+        product.setQuantity(product.getQuantity() + delta);
+        product.setExpirationDate(expirationDate);
+        ProductResponseDTO response = new ProductResponseDTO(product);
+        // The detached entity still has the version from before the UPDATE bumped it
+        response.setVersion(product.getVersion() + 1);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(response, product.getStoreId()));
+
+        // The stock UPDATE bypasses the products cache region; drop this product's entry once it commits
+        ProductService.evictAfterCommit(entityManager.getEntityManagerFactory(), List.of(product.getId()));
+    }
+}
@@ -0,0 +1,193 @@
+package com.expiration.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * EXPLAIN plans of the expiry, category and store queries over 1M products: each must be served
+ * by its index rather than a table scan, and the keyset scans must read rows presorted from it.
+ * The plans are taken for the SQL Hibernate actually generates for the repository methods.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.expiration.repository.RecordingStatementInspector")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DirtiesContext
+class ProductIndexPlanTest {
+
+    private static final int ROWS = 1_000_000;
+    private static final long FIRST_ID = 10_000_001L;
+    private static final String[] CATEGORIES = {"Dairy", "Meat", "Seafood", "Bakery", "Vegetables", "Fruits", "Pantry"};
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeAll
+    void insertProducts() {
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(10_000);
+        for (long id = FIRST_ID; id < FIRST_ID + ROWS; id++) {
+            batch.add(new Object[]{id, "Product " + id, CATEGORIES[(int) (id % CATEGORIES.length)],
+                    Date.valueOf(today.plusDays(id * 7919 % 396 - 30)), (int) (1 + id % 50),
+                    BigDecimal.valueOf(199 + id % 1000, 2), "store-" + id % 20, createdAt});
+            if (batch.size() == 10_000) {
+                insert(batch);
+            }
+        }
+        insert(batch);
+        jdbcTemplate.execute("ANALYZE TABLE products");
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO products (id, name, category, expiration_date, quantity, price, store_id, "
+                                 + "created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+
+    @Test
+    void schedulerScansUseTheExpirationIndexes() {
+        assertIndexSorted(planOf(() -> productRepository.findProductsExpiringOnOrBefore(today.minusDays(29))),
+                          "IDX_PRODUCTS_EXPIRATION");
+        assertIndexSorted(planOf(() -> productRepository.findProductsInStoreExpiringOnOrBefore("store-3",
+                                                                                               today.minusDays(29))),
+                          "IDX_PRODUCTS_STORE_EXPIRATION");
+    }
+
+    @Test
+    void expiryListsUseTheExpirationIndexes() {
+        assertIndexSorted(planOf(() -> productRepository.findViewsExpiringBetween(today, today.plusDays(1), today)),
+                          "IDX_PRODUCTS_EXPIRATION");
+        assertIndexSorted(planOf(() -> productRepository.findViewsInStoreExpiringBetween("store-3", today,
+                                                                                         today.plusDays(1), today)),
+                          "IDX_PRODUCTS_STORE_EXPIRATION");
+        assertIndexSorted(planOf(() -> productRepository.findExpiredViews(today.minusDays(29))),
+                          "IDX_PRODUCTS_EXPIRATION");
+    }
+
+    @Test
+    void categoryListUsesTheCategoryIndex() {
+        assertIndex(planOf(() -> productRepository.findViewsByCategory("Dairy", today)),
+                    "IDX_PRODUCTS_CATEGORY_EXPIRATION");
+    }
+
+    @Test
+    void aggregatesUseTheExpirationIndexes() {
+        assertIndex(planOf(() -> productRepository.countProductsExpiringWithinDays(today, today.plusDays(7))),
+                    "IDX_PRODUCTS_EXPIRATION");
+        // The value index holds price and quantity, so the sum never reads the table rows
+        assertIndex(planOf(() -> productRepository.getTotalValueOfProductsExpiringWithinDays(today,
+                                                                                             today.plusDays(7))),
+                    "IDX_PRODUCTS_EXPIRATION_VALUE");
+    }
+
+    @Test
+    void keysetScansReadRowsPresortedFromTheirIndex() {
+        assertIndexSorted(planOfStream(() -> productRepository.streamViewsAfter(
+                today, today.plusDays(30), today, 0L, today, Limit.of(100))), "IDX_PRODUCTS_EXPIRATION");
+        assertIndexSorted(planOfStream(() -> productRepository.streamViewsInCategoryAfter(
+                "Dairy", today, today.plusDays(30), today, 0L, today, Limit.of(100))),
+                          "IDX_PRODUCTS_CATEGORY_EXPIRATION");
+        assertIndexSorted(planOfStream(() -> productRepository.streamViewsInStoreAfter(
+                "store-3", null, today, today.plusDays(30), today, 0L, today, Limit.of(100))),
+                          "IDX_PRODUCTS_STORE_EXPIRATION");
+    }
+
+    private static void assertIndex(String plan, String index) {
+        assertThat(plan).contains("PUBLIC." + index + ":").doesNotContain("tableScan");
+    }
+
+    private static void assertIndexSorted(String plan, String index) {
+        assertIndex(plan, index);
+        assertThat(plan).contains("index sorted");
+    }
+
+    private String planOf(Runnable query) {
+        RecordingStatementInspector.STATEMENTS.clear();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> query.run());
+        return explain(lastSelect());
+    }
+
+    private String planOfStream(java.util.function.Supplier<Stream<?>> query) {
+        RecordingStatementInspector.STATEMENTS.clear();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            try (Stream<?> rows = query.get()) {
+                rows.findFirst();
+            }
+        });
+        return explain(lastSelect());
+    }
+
+    private static String lastSelect() {
+        List<String> statements = RecordingStatementInspector.STATEMENTS;
+        for (int i = statements.size() - 1; i >= 0; i--) {
+            if (statements.get(i).stripLeading().toLowerCase().startsWith("select")) {
+                return statements.get(i);
+            }
+        }
+        throw new AssertionError("No SELECT was prepared");
+    }
+
+    /**
+     * EXPLAIN of a prepared statement, with each parameter bound to a value of the type H2 inferred for it.
+     * H2 plans a parameterized query once, before the values are known, so the values do not change the plan.
+     */
+    private String explain(String sql) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+            ParameterMetaData parameters = explain.getParameterMetaData();
+            for (int i = 1; i <= parameters.getParameterCount(); i++) {
+                switch (parameters.getParameterType(i)) {
+                    case Types.DATE -> explain.setDate(i, Date.valueOf(today));
+                    case Types.VARCHAR, Types.CHAR -> explain.setString(i, "Dairy");
+                    case Types.NUMERIC, Types.DECIMAL -> explain.setBigDecimal(i, BigDecimal.ONE);
+                    default -> explain.setLong(i, 1);
+                }
+            }
+            try (ResultSet plan = explain.executeQuery()) {
+                plan.next();
+                return plan.getString(1);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("EXPLAIN failed for " + sql, e);
+        }
+    }
+}
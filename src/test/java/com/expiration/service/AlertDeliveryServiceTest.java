@@ -0,0 +1,148 @@
+package com.expiration.service;
+
+import com.expiration.dto.ExpirationAlertDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The mail delivery pipeline end to end against an SMTP server on a loopback port
+ */
+class AlertDeliveryServiceTest {
+
+    private static final int MAX_IN_FLIGHT = 2;
+
+    private SmtpStub smtp;
+    private AlertDeliveryService delivery;
+
+    @BeforeEach
+    void startSmtp() throws IOException {
+        smtp = new SmtpStub();
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        if (delivery != null) {
+            delivery.stop();
+        }
+        smtp.close();
+    }
+
+    private AlertDeliveryService start(int maxAttempts, Duration initialBackoff) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.port());
+        mailSender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "5000");
+        mailSender.getJavaMailProperties().put("mail.smtp.timeout", "60000");
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("mailSender", mailSender);
+        delivery = new AlertDeliveryService(beans.getBeanProvider(JavaMailSender.class), true, "monitor@example.com",
+                                            List.of("store@example.com", "ops@example.com"), 100,
+                                            Duration.ofMillis(200), 500, 1, MAX_IN_FLIGHT, maxAttempts,
+                                            initialBackoff, Duration.ofSeconds(1), 10);
+        delivery.start();
+        return delivery;
+    }
+
+    private static ExpirationAlertDTO alert(String type) {
+        ExpirationAlertDTO.ProductAlertInfo milk = new ExpirationAlertDTO.ProductAlertInfo(
+                1L, "Organic Milk", "Dairy", LocalDate.now().plusDays(1), 3, new BigDecimal("4.49"), 1L);
+        return new ExpirationAlertDTO("store-1", type, List.of(milk), List.of(), new BigDecimal("13.47"));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition within 20s").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void alertsWithinTheWindowArriveAsOneDigestPerRecipient() throws Exception {
+        start(3, Duration.ofMillis(10));
+
+        assertThat(delivery.submit(alert("TOMORROW"))).isTrue();
+        assertThat(delivery.submit(alert("SEVEN_DAYS"))).isTrue();
+        assertThat(delivery.submit(alert("TOMORROW"))).isTrue();
+        await(() -> smtp.messages().size() == 2);
+
+        assertThat(smtp.messages()).extracting(SmtpStub.Message::recipients)
+                .containsExactlyInAnyOrder(List.of("store@example.com"), List.of("ops@example.com"));
+        for (SmtpStub.Message message : smtp.messages()) {
+            assertThat(message.from()).isEqualTo("monitor@example.com");
+            assertThat(message.subject()).isEqualTo("[Expiration Monitor] 3 alert(s): 3 product(s), $40.41 at risk");
+            assertThat(message.data()).contains("Store store-1: SEVEN_DAYS alert at", "Organic Milk (Dairy) expires");
+        }
+        await(() -> delivery.getMetrics().getAvailableSendSlots() == MAX_IN_FLIGHT);
+        AlertDeliveryService.DeliveryMetrics metrics = delivery.getMetrics();
+        assertThat(metrics.getTransport()).isEqualTo("smtp");
+        assertThat(metrics.getDigestsSent()).isEqualTo(2);
+        assertThat(metrics.getAlertsDelivered()).isEqualTo(6);
+        assertThat(metrics.getDeadLettered()).isZero();
+    }
+
+    @Test
+    void failedSendsAreRetriedThenDeadLetteredAndCanBeRequeued() throws Exception {
+        start(2, Duration.ofMillis(10));
+        smtp.replyToData("451 Try again later");
+
+        delivery.submit(alert("TOMORROW"));
+        await(() -> delivery.getDeadLetters().size() == 2);
+
+        assertThat(delivery.getDeadLetters()).allSatisfy(letter -> {
+            assertThat(letter.getAttempts()).isEqualTo(2);
+            assertThat(letter.getAlertCount()).isEqualTo(1);
+        });
+        assertThat(delivery.getMetrics().getRetries()).isEqualTo(2);
+        assertThat(delivery.getMetrics().getAvailableSendSlots()).isEqualTo(MAX_IN_FLIGHT);
+        assertThat(smtp.messages()).isEmpty();
+
+        smtp.replyToData("250 OK");
+        assertThat(delivery.retryDeadLetters()).isEqualTo(2);
+        await(() -> smtp.messages().size() == 2);
+        assertThat(delivery.getDeadLetters()).isEmpty();
+    }
+
+    @Test
+    void sendFailingWhileTheServiceStopsIsDeadLetteredAndFreesItsSlot() throws Exception {
+        start(5, Duration.ofMillis(10));
+        smtp.replyToData("451 Try again later");
+        CountDownLatch releaseReply = smtp.holdDataReplies();
+
+        delivery.submit(alert("TOMORROW"));
+        assertThat(smtp.awaitData(20, TimeUnit.SECONDS)).isTrue();
+        // The sender pool shuts down once the idle dispatcher has exited, at most a second later
+        CompletableFuture<Void> stopping = CompletableFuture.runAsync(() -> {
+            try {
+                delivery.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(1_500);
+        releaseReply.countDown();
+        stopping.get(30, TimeUnit.SECONDS);
+
+        // Neither digest could schedule its retry, so the first failure is final
+        assertThat(delivery.getDeadLetters()).hasSize(2)
+                .allSatisfy(letter -> assertThat(letter.getAttempts()).isEqualTo(1));
+        assertThat(delivery.getMetrics().getRetries()).isZero();
+        assertThat(delivery.getMetrics().getAvailableSendSlots()).isEqualTo(MAX_IN_FLIGHT);
+    }
+}
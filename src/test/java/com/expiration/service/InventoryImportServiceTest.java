@@ -0,0 +1,149 @@
+package com.expiration.service;
+
+import com.expiration.exception.ImportNotFoundException;
+import com.expiration.repository.ImportChunkRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Resuming imports from their checkpoints, with two lines per chunk
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:import-test",
+        "inventory.import.dir=target/test-data/import-test/imports",
+        "inventory.import.chunk-lines=2"
+})
+@ActiveProfiles("test")
+class InventoryImportServiceTest {
+
+    @Autowired
+    private InventoryImportService importService;
+
+    @Autowired
+    private ImportChunkRepository importChunkRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${inventory.import.dir}")
+    private String importDir;
+
+    private static String csv(String prefix) {
+        StringBuilder csv = new StringBuilder("name,category,expirationDate,quantity,price\n");
+        for (int i = 1; i <= 5; i++) {
+            csv.append(prefix).append(' ').append(i).append(",Dairy,").append(LocalDate.now().plusDays(10))
+               .append(",3,4.49\n");
+        }
+        return csv.toString();
+    }
+
+    private String importAndWait(String csv) throws Exception {
+        Map<String, Object> started = importService.startImport(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        String id = (String) started.get("id");
+        assertThat(awaitFinished(importService, id).get("state")).isEqualTo(InventoryImportService.State.COMPLETED);
+        return id;
+    }
+
+    private static Map<String, Object> awaitFinished(InventoryImportService service, String id) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (true) {
+            Map<String, Object> status = service.getStatus(id);
+            if (status.get("state") != InventoryImportService.State.RUNNING) {
+                return status;
+            }
+            assertThat(System.nanoTime()).as("import finished within 30s").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    /**
+     * Drop the last chunk's checkpoint and product, as if the import had stopped before it committed
+     */
+    private void loseLastChunk(String id, String lastName) {
+        jdbcTemplate.update("DELETE FROM import_chunks WHERE id = ?", id + "/2");
+        jdbcTemplate.update("DELETE FROM products WHERE name = ?", lastName);
+    }
+
+    private int productsNamed(String prefix) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products WHERE name LIKE ?", Integer.class,
+                                           prefix + " %");
+    }
+
+    @Test
+    void resumeSplitsTheFileWithTheChunkSizeOfItsCheckpoints() throws Exception {
+        String id = importAndWait(csv("Resumed"));
+        loseLastChunk(id, "Resumed 5");
+
+        // Restarted with three lines per chunk, which would put lines 4 and 5 in the committed chunk 1
+        InventoryImportService restarted = new InventoryImportService(
+                importChunkRepository, entityManager, validator, transactionManager, eventPublisher, importDir, 3, 1, 1, 8);
+        try {
+            restarted.resumeImport(id);
+            Map<String, Object> status = awaitFinished(restarted, id);
+
+            assertThat(status.get("state")).isEqualTo(InventoryImportService.State.COMPLETED);
+            assertThat(status.get("chunksSkipped")).isEqualTo(2);
+            assertThat(status.get("imported")).isEqualTo(1L);
+        } finally {
+            restarted.stop();
+        }
+        assertThat(productsNamed("Resumed")).isEqualTo(5);
+        assertThat(jdbcTemplate.queryForList("SELECT DISTINCT chunk_lines FROM import_chunks WHERE job_id = ?",
+                                             Integer.class, id)).containsExactly(2);
+    }
+
+    @Test
+    void resumeFailsWhenTheFileNoLongerMatchesItsCheckpoints() throws Exception {
+        String id = importAndWait(csv("Changed"));
+        loseLastChunk(id, "Changed 5");
+        Path file = Path.of(importDir, id + ".csv");
+        Files.writeString(file, csv("Changed again"));
+
+        importService.resumeImport(id);
+        Map<String, Object> status = awaitFinished(importService, id);
+
+        assertThat(status.get("state")).isEqualTo(InventoryImportService.State.FAILED);
+        assertThat((String) status.get("error")).contains("the import file has changed");
+        assertThat(productsNamed("Changed")).isEqualTo(4);
+    }
+
+    @Test
+    void unknownImportIsNotFound() {
+        String unknown = "0".repeat(32);
+        assertThatThrownBy(() -> importService.getStatus(unknown)).isInstanceOf(ImportNotFoundException.class);
+        assertThatThrownBy(() -> importService.resumeImport(unknown)).isInstanceOf(ImportNotFoundException.class);
+        assertThatThrownBy(() -> importService.getStatus("not-an-id")).isInstanceOf(ImportNotFoundException.class);
+    }
+}
@@ -0,0 +1,108 @@
+package com.expiration.service;
+
+import com.expiration.dto.BatchItemResultDTO;
+import com.expiration.dto.ProductBatchPatchDTO;
+import com.expiration.dto.ProductBatchUpdateDTO;
+import com.expiration.dto.ProductCreateDTO;
+import com.expiration.dto.ProductPatchDTO;
+import com.expiration.dto.ProductResponseDTO;
+import com.expiration.dto.ProductView;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class ProductBatchServiceTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductBatchService productBatchService;
+
+    @Test
+    void nullUpdateRowFailsAloneWithoutRollingBackItsChunk() {
+        Long id = productService.createProduct(new ProductCreateDTO("Batch Milk", "Dairy", LocalDate.now().plusDays(5), 3,
+                                                                    new BigDecimal("2.49"))).getId();
+        ProductBatchUpdateDTO update = new ProductBatchUpdateDTO();
+        update.setId(id);
+        update.setName("Batch Milk 2%");
+        update.setCategory("Dairy");
+        update.setExpirationDate(LocalDate.now().plusDays(6));
+        update.setQuantity(3);
+        update.setPrice(new BigDecimal("2.59"));
+
+        List<BatchItemResultDTO> results = productBatchService.updateProducts(Arrays.asList(update, null));
+
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0).isSuccess()).isTrue();
+        assertThat(results.get(1).isSuccess()).isFalse();
+        assertThat(results.get(1).getValidationErrors()).containsEntry("item", "Item is required");
+        assertThat(productService.getProductById(id).getName()).isEqualTo("Batch Milk 2%");
+    }
+
+    @Test
+    void nullCreateAndDeleteRowsFailAlone() {
+        List<BatchItemResultDTO> created = productBatchService.createProducts(Arrays.asList(
+                new ProductCreateDTO("Batch Bread", "Bakery", LocalDate.now().plusDays(2), 1, new BigDecimal("3.10")),
+                null));
+        assertThat(created.get(0).isSuccess()).isTrue();
+        assertThat(created.get(1).isSuccess()).isFalse();
+
+        List<BatchItemResultDTO> deleted = productBatchService.deleteProducts(Arrays.asList(created.get(0).getId(), null));
+        assertThat(deleted.get(0).isSuccess()).isTrue();
+        assertThat(deleted.get(1).isSuccess()).isFalse();
+    }
+
+    @Test
+    void patchesReturnTheRowsAsWrittenAndListRowsCarryTheirVersion() {
+        Long id = productService.createProduct(new ProductCreateDTO("Patch Cheese", "PatchTest", LocalDate.now().plusDays(9),
+                                                                    4, new BigDecimal("5.00"))).getId();
+        ProductView listed = productService.getProductsByCategory("PatchTest").get(0);
+        assertThat(listed.version()).isZero();
+
+        ProductPatchDTO patch = new ProductPatchDTO();
+        patch.setPrice(new BigDecimal("5.5"));
+        patch.setVersion(listed.version());
+        ProductResponseDTO patched = productService.patchProduct(id, patch);
+        assertThat(patched.getVersion()).isEqualTo(1);
+        assertThat(patched.getPrice()).isEqualTo(new BigDecimal("5.50"));
+        assertThat(patched.getName()).isEqualTo("Patch Cheese");
+        assertThat(patched.getCreatedAt()).isEqualTo(productService.getProductById(id).getCreatedAt());
+        assertThat(productService.getProductsByCategory("PatchTest").get(0).version()).isEqualTo(1);
+
+        assertThatThrownBy(() -> productService.patchProduct(id, patch))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        ProductBatchPatchDTO current = new ProductBatchPatchDTO();
+        current.setId(id);
+        current.setQuantity(7);
+        current.setVersion(1L);
+        ProductBatchPatchDTO stale = new ProductBatchPatchDTO();
+        stale.setId(id);
+        stale.setQuantity(8);
+        stale.setVersion(1L);
+        ProductBatchPatchDTO missing = new ProductBatchPatchDTO();
+        missing.setId(-1L);
+        missing.setQuantity(9);
+        List<BatchItemResultDTO> results = productBatchService.patchProducts(List.of(current, stale, missing));
+
+        assertThat(results.get(0).isSuccess()).isTrue();
+        assertThat(results.get(1).getError()).contains("optimistic locking failed");
+        assertThat(results.get(2).getError()).isEqualTo("Product not found with id: -1");
+        ProductResponseDTO stored = productService.getProductById(id);
+        assertThat(stored.getQuantity()).isEqualTo(7);
+        assertThat(stored.getVersion()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,152 @@
+package com.expiration.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minimal SMTP server on a loopback port for delivery tests. It accepts every envelope,
+ * records the messages it answers with 250, and can fail or hold the reply to DATA.
+ */
+final class SmtpStub implements AutoCloseable {
+
+    record Message(String from, List<String> recipients, String data) {
+
+        String subject() {
+            return data.lines().filter(line -> line.startsWith("Subject: ")).findFirst()
+                    .map(line -> line.substring("Subject: ".length())).orElse(null);
+        }
+    }
+
+    private final ServerSocket server;
+    private final List<Message> messages = new CopyOnWriteArrayList<>();
+    private final CountDownLatch dataReceived = new CountDownLatch(1);
+    private volatile String dataReply = "250 OK";
+    private volatile CountDownLatch releaseDataReply;
+
+    SmtpStub() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "smtp-stub");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int port() {
+        return server.getLocalPort();
+    }
+
+    List<Message> messages() {
+        return messages;
+    }
+
+    /**
+     * Answer every DATA with the given reply, e.g. a 451 to make sends fail
+     */
+    void replyToData(String reply) {
+        dataReply = reply;
+    }
+
+    /**
+     * Hold replies to DATA until the returned latch is counted down
+     */
+    CountDownLatch holdDataReplies() {
+        releaseDataReply = new CountDownLatch(1);
+        return releaseDataReply;
+    }
+
+    boolean awaitData(long timeout, TimeUnit unit) throws InterruptedException {
+        return dataReceived.await(timeout, unit);
+    }
+
+    @Override
+    public void close() throws IOException {
+        CountDownLatch held = releaseDataReply;
+        if (held != null) {
+            held.countDown();
+        }
+        server.close();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Thread session = new Thread(() -> serve(socket), "smtp-stub-session");
+                session.setDaemon(true);
+                session.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+            reply(out, "220 localhost SMTP stub");
+            String from = null;
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.toUpperCase();
+                if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                    reply(out, "250 localhost");
+                } else if (command.startsWith("MAIL FROM:")) {
+                    from = address(line);
+                    recipients.clear();
+                    reply(out, "250 OK");
+                } else if (command.startsWith("RCPT TO:")) {
+                    recipients.add(address(line));
+                    reply(out, "250 OK");
+                } else if (command.equals("DATA")) {
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    StringBuilder data = new StringBuilder();
+                    while ((line = in.readLine()) != null && !line.equals(".")) {
+                        data.append(line.startsWith("..") ? line.substring(1) : line).append('\n');
+                    }
+                    dataReceived.countDown();
+                    CountDownLatch held = releaseDataReply;
+                    if (held != null) {
+                        held.await(30, TimeUnit.SECONDS);
+                    }
+                    String result = dataReply;
+                    if (result.startsWith("250")) {
+                        messages.add(new Message(from, List.copyOf(recipients), data.toString()));
+                    }
+                    reply(out, result);
+                } else if (command.equals("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                } else if (command.equals("RSET") || command.equals("NOOP")) {
+                    reply(out, "250 OK");
+                } else {
+                    reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // Client went away or the stub is closing
+        }
+    }
+
+    private static void reply(PrintWriter out, String reply) {
+        out.print(reply + "\r\n");
+        out.flush();
+    }
+
+    private static String address(String line) {
+        String value = line.substring(line.indexOf(':') + 1).trim();
+        int end = value.indexOf('>');
+        return value.startsWith("<") && end > 0 ? value.substring(1, end) : value;
+    }
+}
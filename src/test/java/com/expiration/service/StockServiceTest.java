@@ -0,0 +1,198 @@
+package com.expiration.service;
+
+import com.expiration.dto.ProductCreateDTO;
+import com.expiration.dto.ProductPatchDTO;
+import com.expiration.dto.StockConsumptionDTO;
+import com.expiration.dto.StockLotCreateDTO;
+import com.expiration.dto.StockLotView;
+import com.expiration.exception.InsufficientStockException;
+import com.expiration.exception.ProductNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Lot stock against the application's own datasource and lock settings
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class StockServiceTest {
+
+    private static final int LOTS = 20;
+    private static final int UNITS_PER_LOT = 50;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDate today = LocalDate.now();
+
+    private Long productWithLots(int lots, int unitsPerLot) {
+        Long id = productService.createProduct(new ProductCreateDTO("Lot Yogurt", "Dairy", today.plusDays(30), 0,
+                                                                    new BigDecimal("1.99"))).getId();
+        // Received out of date order, so FEFO has to sort them
+        for (int i = lots; i >= 1; i--) {
+            stockService.receiveLot(id, new StockLotCreateDTO("L" + i, today.plusDays(i), unitsPerLot));
+        }
+        return id;
+    }
+
+    private int productQuantity(Long id) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE id = ?", Integer.class, id);
+    }
+
+    private LocalDate productExpirationDate(Long id) {
+        return jdbcTemplate.queryForObject("SELECT expiration_date FROM products WHERE id = ?", LocalDate.class, id);
+    }
+
+    private int lotTotal(Long id) {
+        return stockService.getLots(id).stream().mapToInt(StockLotView::quantity).sum();
+    }
+
+    @Test
+    void partlyTakenLotKeepsSettingTheExpirationDate() {
+        Long id = productWithLots(2, 10);
+
+        StockConsumptionDTO partial = stockService.consume(id, 3);
+        assertThat(partial.expirationDate()).isEqualTo(today.plusDays(1));
+        assertThat(productExpirationDate(id)).isEqualTo(today.plusDays(1));
+
+        StockConsumptionDTO emptiesFirst = stockService.consume(id, 7);
+        assertThat(emptiesFirst.expirationDate()).isEqualTo(today.plusDays(2));
+        assertThat(productExpirationDate(id)).isEqualTo(today.plusDays(2));
+
+        StockConsumptionDTO spansBoth = stockService.consume(id, 10);
+        assertThat(spansBoth.remaining()).isZero();
+        assertThat(productExpirationDate(id)).isEqualTo(today.plusDays(2));
+    }
+
+    @Test
+    void concurrentSalesNeitherLoseNorOversellStock() throws Exception {
+        Long id = productWithLots(LOTS, UNITS_PER_LOT);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger takenFromLots = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> sellers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int units = 1 + t % 3;
+            sellers.add(pool.submit(() -> {
+                // Sell until the product runs out, so the last sales race for the last units
+                while (true) {
+                    try {
+                        StockConsumptionDTO sale = stockService.consume(id, units);
+                        sold.addAndGet(sale.consumed());
+                        takenFromLots.addAndGet(sale.lots().stream().mapToInt(StockConsumptionDTO.LotTaken::quantity).sum());
+                        assertThat(sale.remaining()).isNotNegative();
+                    } catch (InsufficientStockException e) {
+                        refused.incrementAndGet();
+                        if (e.getAvailable() == 0) {
+                            return;
+                        }
+                    }
+                }
+            }));
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        for (Future<?> seller : sellers) {
+            seller.get();
+        }
+
+        assertThat(sold.get()).isEqualTo(LOTS * UNITS_PER_LOT);
+        assertThat(takenFromLots.get()).isEqualTo(sold.get());
+        assertThat(refused.get()).isGreaterThanOrEqualTo(THREADS);
+        assertThat(productQuantity(id)).isZero();
+        assertThat(stockService.getLots(id)).hasSize(LOTS).allSatisfy(lot -> assertThat(lot.quantity()).isZero());
+    }
+
+    @Test
+    void concurrentSalesKeepLotsAndProductInStep() throws Exception {
+        Long id = productWithLots(LOTS, UNITS_PER_LOT);
+        int salesPerThread = 25;
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<Integer>> sellers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            sellers.add(pool.submit(() -> {
+                int units = 0;
+                for (int i = 0; i < salesPerThread; i++) {
+                    units += stockService.consume(id, 2).consumed();
+                }
+                return units;
+            }));
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        int sold = 0;
+        for (Future<Integer> seller : sellers) {
+            sold += seller.get();
+        }
+
+        int left = LOTS * UNITS_PER_LOT - THREADS * salesPerThread * 2;
+        assertThat(sold).isEqualTo(THREADS * salesPerThread * 2);
+        assertThat(productQuantity(id)).isEqualTo(left);
+        assertThat(lotTotal(id)).isEqualTo(left);
+        assertThat(stockService.getLots(id)).allSatisfy(lot -> assertThat(lot.quantity()).isNotNegative());
+        // 800 units sold empty the first 16 lots exactly, so the 17th now expires first
+        assertThat(productExpirationDate(id)).isEqualTo(today.plusDays(17));
+    }
+
+    @Test
+    void lotStockCannotBeOverwrittenByPutOrPatch() {
+        Long id = productWithLots(2, 10);
+        ProductCreateDTO put = new ProductCreateDTO("Lot Yogurt", "Dairy", today.plusDays(40), 20, new BigDecimal("1.99"));
+        assertThatThrownBy(() -> productService.updateProduct(id, put))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("has stock lots");
+
+        ProductPatchDTO patch = new ProductPatchDTO();
+        patch.setExpirationDate(today.plusDays(40));
+        assertThatThrownBy(() -> productService.patchProduct(id, patch))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("has stock lots");
+        assertThat(productExpirationDate(id)).isEqualTo(today.plusDays(1));
+
+        // Fields that do not follow from the lots still change
+        ProductPatchDTO price = new ProductPatchDTO();
+        price.setPrice(new BigDecimal("2.49"));
+        assertThat(productService.patchProduct(id, price).getPrice()).isEqualByComparingTo("2.49");
+    }
+
+    @Test
+    void deletedProductTakesItsLotsAndReceivesNoMore() {
+        Long id = productWithLots(2, 10);
+
+        productService.deleteProduct(id);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_lots WHERE product_id = ?", Integer.class, id))
+                .isZero();
+        assertThatThrownBy(() -> stockService.receiveLot(id, new StockLotCreateDTO("L3", today.plusDays(3), 5)))
+                .isInstanceOf(ProductNotFoundException.class);
+        // The schema itself refuses a lot without its product
+        assertThatThrownBy(() -> jdbcTemplate.update(
+                "INSERT INTO stock_lots (id, product_id, expiration_date, quantity, received_at) "
+                + "VALUES (-1, ?, CURRENT_DATE, 1, CURRENT_TIMESTAMP)", id))
+                .hasMessageContaining("FK_STOCK_LOTS_PRODUCT");
+    }
+}